@@ -24,6 +24,7 @@ import com.adobe.dx.content.marketo.service.MarketoClientService.MarketoAccessTo
 import com.adobe.dx.content.marketo.service.MarketoClientService.MarketoForms;
 import com.adobe.dx.content.marketo.service.MarketoFormData;
 import com.adobe.dx.content.marketo.service.MarketoService;
+import com.adobe.dx.metrics.DxMetrics;
 import com.adobe.dx.utils.service.CloudConfigReader;
 
 import java.util.Calendar;
@@ -39,6 +40,8 @@ import org.apache.commons.lang.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,17 +54,34 @@ public class MarketoServiceImpl implements MarketoService {
 
     private static final int MAX_RETRIES = 3;
 
+    static final String METRIC_FORMS = "marketo.getMarketoForms";
+
     @Reference
     private CloudConfigReader cloudConfigReader = null;
 
     @Reference
     private MarketoClientService marketoClientService = null;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    private volatile DxMetrics metrics;
+
     private Map<String, MarketoAccessToken> authTokenMap = new HashMap<>();
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
     @Override
     public List<MarketoFormData> getMarketoForms(@NotNull String resourcePath) {
+        DxMetrics dxMetrics = metrics;
+        long start = dxMetrics != null ? dxMetrics.start() : 0L;
+        try {
+            return readMarketoForms(resourcePath);
+        } finally {
+            if (start != 0L) {
+                dxMetrics.record(METRIC_FORMS, null, start);
+            }
+        }
+    }
+
+    private List<MarketoFormData> readMarketoForms(@NotNull String resourcePath) {
         MarketoConfDetailedInfo marketoDetailedInfo = cloudConfigReader.getContextAwareCloudConfigRes(resourcePath,
             CONFIG_NAME, MarketoConfDetailedInfo.class);
         if (null != marketoDetailedInfo && StringUtils.isNotEmpty(marketoDetailedInfo.getClientSecret())) {
@@ -25,6 +25,8 @@ import com.adobe.dx.content.marketo.models.internal.MarketoConfDetailedInfo;
 import com.adobe.dx.content.marketo.service.MarketoClientService;
 import com.adobe.dx.content.marketo.service.MarketoFormData;
 import com.adobe.dx.content.mocks.MockCloudConfigReader;
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.metrics.internal.DxMetricsImpl;
 import com.adobe.dx.mocks.MockCryptoSupport;
 import com.adobe.dx.testing.AbstractTest;
 import com.adobe.dx.utils.service.CloudConfigReader;
@@ -83,6 +85,15 @@ class MarketoServiceImplTest extends AbstractTest {
         assertEquals(0, mockMarketoClientService.getRetries());
     }
 
+    @Test
+    void testMetrics() {
+        DxMetrics metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        context.registerInjectActivateService(marketoServiceImpl);
+        mockMarketoClientService.setReturnConditions(true, true);
+        marketoServiceImpl.getMarketoForms(RESOURCE_PATH);
+        assertEquals(1, metrics.getStatistics().get(MarketoServiceImpl.METRIC_FORMS).getCount());
+    }
+
     @Test
     void testWhenClientDataIsEmpty() {
         mockMarketoClientService.setReturnConditions(true, false);
@@ -16,6 +16,7 @@
 package com.adobe.dx.structure.flex;
 
 import com.adobe.dx.domtagging.IDTagger;
+import com.adobe.dx.metrics.RenderTrace;
 import com.adobe.dx.responsive.Breakpoint;
 import com.adobe.dx.style.StyleService;
 import com.day.cq.wcm.api.policies.ContentPolicy;
@@ -65,13 +66,25 @@ public class FlexModel {
 
     @PostConstruct
     void init() {
+        RenderTrace trace = RenderTrace.fromRequest(request);
+        long start = trace != null ? trace.start() : 0L;
+        try {
+            initModel();
+        } finally {
+            if (trace != null) {
+                trace.record(request.getResource().getPath(), RenderTrace.MODEL, start);
+            }
+        }
+    }
+
+    private void initModel() {
         bpMap = new HashMap<>();
         if (breakpoints != null) {
             for (Breakpoint breakpoint : breakpoints) {
                 bpMap.put(breakpoint.key(), breakpoint);
             }
         }
-        if (styleService != null) {
+        if (styleService != null && !styleService.collectLocalStyle(getId(), request)) {
             style = styleService.getLocalStyle(getId(), request);
         }
     }
@@ -82,7 +95,12 @@ public class FlexModel {
 
     public String getId() {
         if (StringUtils.isBlank(id) && idTagger != null) {
+            RenderTrace trace = RenderTrace.fromRequest(request);
+            long start = trace != null ? trace.start() : 0L;
             id = idTagger.computeComponentId(request, null);
+            if (trace != null) {
+                trace.record(request.getResource().getPath(), RenderTrace.ID, start);
+            }
         }
         return id;
     }
@@ -0,0 +1,65 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.structure.page;
+
+import com.adobe.dx.style.StyleService;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.models.annotations.DefaultInjectionStrategy;
+import org.apache.sling.models.annotations.Model;
+import org.apache.sling.models.annotations.injectorspecific.OSGiService;
+import org.apache.sling.models.annotations.injectorspecific.SlingObject;
+
+/**
+ * Writes page style aggregated by style service: page head either links the page stylesheet or starts collecting
+ * components style, written inline at the page end
+ */
+@Model(adaptables = SlingHttpServletRequest.class, defaultInjectionStrategy = DefaultInjectionStrategy.OPTIONAL)
+public class PageStyleModel {
+
+    @SlingObject
+    protected SlingHttpServletRequest request;
+
+    @OSGiService
+    StyleService styleService;
+
+    private boolean started;
+
+    private String styleSheet;
+
+    /**
+     * @return path of the page stylesheet, null if style is inline, in which case style of the components rendered
+     * afterwards is collected for {@link #getStyle()}
+     */
+    public String getStyleSheet() {
+        if (!started && styleService != null) {
+            started = true;
+            styleSheet = styleService.getPageStyleSheet(request);
+            if (styleSheet == null) {
+                styleService.startPageStyle(request);
+            }
+        }
+        return styleSheet;
+    }
+
+    /**
+     * @return aggregated style of the components rendered so far, null if none or served as a stylesheet
+     */
+    public String getStyle() {
+        return styleService != null && styleService.getPageStyleSheet(request) == null
+            ? styleService.getPageStyle(request) : null;
+    }
+}
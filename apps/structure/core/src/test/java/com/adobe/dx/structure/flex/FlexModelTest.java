@@ -18,10 +18,13 @@ package com.adobe.dx.structure.flex;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.adobe.dx.domtagging.IDTagger;
 import com.adobe.dx.structure.AbstractStructureModelTest;
+import com.adobe.dx.style.StyleService;
 import com.day.cq.wcm.api.policies.ContentPolicy;
 import com.day.cq.wcm.api.policies.ContentPolicyManager;
 
@@ -81,4 +84,14 @@ class FlexModelTest extends AbstractStructureModelTest {
         assertEquals(1, tablet.size());
         assertEquals("custom", mobile.get(0).get("minHeight"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCollectedStyle() {
+        StyleService styleService = mock(StyleService.class);
+        when(styleService.collectLocalStyle(any(), any())).thenReturn(true);
+        context.registerService(StyleService.class, styleService);
+        model = getModel(FlexModel.class, MODEL_PATH);
+        assertNull(model.getStyle(), "collected style should not be written inline");
+        verify(styleService, never()).getLocalStyle(any(), any());
+    }
+}
@@ -0,0 +1,67 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.structure.page;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.adobe.dx.structure.AbstractStructureModelTest;
+import com.adobe.dx.style.StyleService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PageStyleModelTest extends AbstractStructureModelTest {
+
+    @BeforeEach
+    public void setup() {
+        context.build().resource(MODEL_PATH, "sling:resourceType", "dx/structure/components/page");
+    }
+
+    @Test
+    public void testNoService() {
+        PageStyleModel model = getModel(PageStyleModel.class, MODEL_PATH);
+        assertNull(model.getStyle());
+        assertNull(model.getStyleSheet());
+    }
+
+    @Test
+    public void testPageStyle() {
+        StyleService styleService = mock(StyleService.class);
+        when(styleService.getPageStyle(any())).thenReturn("#foo {color: blue}");
+        context.registerService(StyleService.class, styleService);
+        PageStyleModel model = getModel(PageStyleModel.class, MODEL_PATH);
+        assertNull(model.getStyleSheet());
+        verify(styleService).startPageStyle(any());
+        assertEquals("#foo {color: blue}", getModel(PageStyleModel.class, MODEL_PATH).getStyle());
+    }
+
+    @Test
+    public void testPageStyleSheet() {
+        StyleService styleService = mock(StyleService.class);
+        when(styleService.getPageStyle(any())).thenReturn("#foo {color: blue}");
+        when(styleService.getPageStyleSheet(any())).thenReturn("/content/page.dxstyle.0.css");
+        context.registerService(StyleService.class, styleService);
+        PageStyleModel model = getModel(PageStyleModel.class, MODEL_PATH);
+        assertEquals("/content/page.dxstyle.0.css", model.getStyleSheet());
+        verify(styleService, never()).startPageStyle(any());
+        assertNull(model.getStyle());
+    }
+}
@@ -0,0 +1,50 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.benchmarks;
+
+import static org.apache.sling.testing.mock.caconfig.ContextPlugins.CACONFIG;
+
+import org.apache.sling.testing.mock.osgi.context.ContextPlugins;
+import org.apache.sling.testing.mock.sling.ResourceResolverType;
+
+import io.wcm.testing.mock.aem.junit5.AemContext;
+
+/**
+ * Same AEM context as tests extending <code>AbstractTest</code>, but set up & torn down by a benchmark state
+ * rather than by the JUnit extension
+ */
+final class BenchmarkContext extends AemContext {
+
+    private final ContextPlugins plugins = new ContextPlugins();
+
+    BenchmarkContext() {
+        super(ResourceResolverType.RESOURCERESOLVER_MOCK);
+        plugins.addPlugin(CACONFIG);
+    }
+
+    BenchmarkContext start() {
+        plugins.executeBeforeSetUpCallback(this);
+        setUpContext();
+        plugins.executeAfterSetUpCallback(this);
+        return this;
+    }
+
+    void stop() {
+        plugins.executeBeforeTearDownCallback(this);
+        tearDownContext();
+        plugins.executeAfterTearDownCallback(this);
+    }
+}
@@ -0,0 +1,96 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.benchmarks;
+
+import com.adobe.dx.bindings.internal.DxBindingsValueProvider;
+import com.adobe.dx.responsive.internal.BreakpointCache;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.script.Bindings;
+import javax.script.SimpleBindings;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.scripting.SlingBindings;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * DX bindings of every component of a page, each of them being read once, as a script would
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingsBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int components;
+
+    @Param({ "3", "6" })
+    int breakpoints;
+
+    @Param({ "false", "true" })
+    boolean lazy;
+
+    private BenchmarkContext context;
+
+    private SyntheticPage page;
+
+    private DxBindingsValueProvider provider;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new BenchmarkContext().start();
+        page = new SyntheticPage(context, components, breakpoints);
+        context.registerInjectActivateService(new BreakpointCache());
+        provider = context.registerInjectActivateService(new DxBindingsValueProvider(), "lazy", lazy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    public void addBindings(Blackhole blackhole) {
+        MockSlingHttpServletRequest request = SyntheticPage.newRequest(context);
+        for (Resource component : page.getComponents()) {
+            Bindings bindings = new SimpleBindings();
+            bindings.put(SlingBindings.RESOURCE, component);
+            bindings.put(SlingBindings.REQUEST, request);
+            provider.addBindings(bindings);
+            blackhole.consume(bindings.get(DxBindingsValueProvider.POLICY_KEY));
+            blackhole.consume(bindings.get(DxBindingsValueProvider.BP_KEY));
+            blackhole.consume(bindings.get(DxBindingsValueProvider.RESP_PROPS_KEY));
+        }
+    }
+}
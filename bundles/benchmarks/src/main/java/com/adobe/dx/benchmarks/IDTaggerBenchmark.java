@@ -0,0 +1,104 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.benchmarks;
+
+import com.adobe.dx.domtagging.IDTagger;
+import com.adobe.dx.domtagging.internal.IDTaggerImpl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * ids of every (untagged) component of a page, per id generator
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IDTaggerBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int components;
+
+    @Param({ "3" })
+    int breakpoints;
+
+    @Param({ "SHA256", "MURMUR3" })
+    String idGenerator;
+
+    private BenchmarkContext context;
+
+    private SyntheticPage page;
+
+    private IDTaggerImpl tagger;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new BenchmarkContext().start();
+        page = new SyntheticPage(context, components, breakpoints);
+        tagger = (IDTaggerImpl) context.registerInjectActivateService((IDTagger) new IDTaggerImpl(),
+            "acceptedTypes", new String[] { "dx/benchmarks/.*" }, "idGenerator", idGenerator);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    public void computeComponentId(Blackhole blackhole) {
+        MockSlingHttpServletRequest request = SyntheticPage.newRequest(context);
+        for (Resource component : page.getComponents()) {
+            request.setResource(component);
+            blackhole.consume(tagger.computeComponentId(request, null));
+        }
+    }
+
+    @Benchmark
+    public void getUniqueId(Blackhole blackhole) {
+        for (Resource component : page.getComponents()) {
+            blackhole.consume(tagger.getUniqueId(component.getPath(), false));
+        }
+    }
+
+    /**
+     * salted ids, as generated when bulk tagging new components
+     */
+    @Benchmark
+    public void getSaltedUniqueId(Blackhole blackhole) {
+        for (Resource component : page.getComponents()) {
+            blackhole.consume(tagger.getUniqueId(component.getPath(), true));
+        }
+    }
+}
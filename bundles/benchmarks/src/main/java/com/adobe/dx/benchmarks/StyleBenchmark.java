@@ -0,0 +1,101 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.benchmarks;
+
+import com.adobe.dx.bindings.internal.DxBindingsValueProvider;
+import com.adobe.dx.responsive.internal.BreakpointCache;
+import com.adobe.dx.style.StyleService;
+import com.adobe.dx.style.internal.Border;
+import com.adobe.dx.style.internal.Shadow;
+import com.adobe.dx.style.internal.StyleServiceImpl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.scripting.api.BindingsValuesProvider;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * local style of every component of a page
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StyleBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    int components;
+
+    @Param({ "3", "6" })
+    int breakpoints;
+
+    /**
+     * size of the style cache, 0 disabling it
+     */
+    @Param({ "0" })
+    int cacheSize;
+
+    private BenchmarkContext context;
+
+    private SyntheticPage page;
+
+    private BindingsValuesProvider bindings;
+
+    private StyleService styleService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new BenchmarkContext().start();
+        page = new SyntheticPage(context, components, breakpoints);
+        context.registerInjectActivateService(new BreakpointCache());
+        bindings = context.registerInjectActivateService(new DxBindingsValueProvider());
+        context.registerInjectActivateService(new Border());
+        context.registerInjectActivateService(new Shadow());
+        styleService = context.registerInjectActivateService(new StyleServiceImpl(), "cacheSize", cacheSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.stop();
+    }
+
+    @Benchmark
+    public void getLocalStyle(Blackhole blackhole) {
+        MockSlingHttpServletRequest request = SyntheticPage.newRequest(context);
+        int index = 0;
+        for (Resource component : page.getComponents()) {
+            SyntheticPage.render(request, component, bindings);
+            blackhole.consume(styleService.getLocalStyle("c" + index++, request));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.benchmarks;
+
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.responsive.ResponsiveConfiguration;
+import com.adobe.dx.responsive.internal.BreakpointCache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.script.Bindings;
+import javax.script.SimpleBindings;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.scripting.SlingBindings;
+import org.apache.sling.resourcebuilder.api.ResourceBuilder;
+import org.apache.sling.scripting.api.BindingsValuesProvider;
+import org.apache.sling.testing.mock.caconfig.MockContextAwareConfig;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+
+import io.wcm.testing.mock.aem.junit5.AemContext;
+
+/**
+ * Page with a given number of styled components, in a context with a given number of breakpoints. Each component
+ * has border & shadow properties, some of them being responsive.
+ */
+final class SyntheticPage {
+
+    static final String CONF_ROOT = "/conf/benchmarks";
+
+    static final String SITE_ROOT = "/content/benchmarks";
+
+    static final String PAGE_PATH = SITE_ROOT + "/page";
+
+    static final String COMPONENT_TYPE = "dx/benchmarks/components/styled";
+
+    private static final String[] SUFFIXES = { "Mobile", "Tablet", "Desktop", "Wide", "Large", "Huge" };
+
+    private static final int[] STARTS = { 0, 600, 1200, 1600, 1920, 2560 };
+
+    private static final String[] WORKERS = { "border", "shadow" };
+
+    private final List<Resource> components;
+
+    private final Breakpoint[] breakpoints;
+
+    /**
+     * @param context context to build the page in
+     * @param componentCount number of components of the page
+     * @param breakpointCount number of breakpoints, up to 6
+     */
+    SyntheticPage(AemContext context, int componentCount, int breakpointCount) {
+        ResourceBuilder configs = context.build()
+            .resource(CONF_ROOT + "/sling:configs/" + ResponsiveConfiguration.class.getName() + "/breakpoints")
+            .siblingsMode();
+        for (int i = 0; i < breakpointCount; i++) {
+            Map<String, Object> breakpoint = new HashMap<>();
+            breakpoint.put("key", SUFFIXES[i].toLowerCase());
+            breakpoint.put("propertySuffix", SUFFIXES[i]);
+            breakpoint.put("start", STARTS[i]);
+            if (i > 0) {
+                breakpoint.put("mediaQuery", "@media screen and (min-width: " + STARTS[i] + "px)");
+            }
+            configs.resource(String.valueOf(i + 1), breakpoint);
+        }
+        MockContextAwareConfig.registerAnnotationClasses(context, ResponsiveConfiguration.class, Breakpoint.class);
+        context.create().resource("/apps/" + COMPONENT_TYPE, "styleWorkers", WORKERS);
+        context.create().resource(SITE_ROOT, "sling:configRef", CONF_ROOT);
+        context.create().page(PAGE_PATH);
+        List<Resource> list = new ArrayList<>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            list.add(context.create().resource(PAGE_PATH + "/jcr:content/root/component" + i,
+                getProperties(i, breakpointCount)));
+        }
+        components = Collections.unmodifiableList(list);
+        breakpoints = BreakpointCache.resolveBreakpoints(components.get(0));
+    }
+
+    private static Map<String, Object> getProperties(int index, int breakpointCount) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("sling:resourceType", COMPONENT_TYPE);
+        properties.put("borderSides", "all");
+        properties.put("borderAllStyle", "solid");
+        properties.put("borderAllWidth", 1L);
+        properties.put("borderAllColor", "black");
+        properties.put("borderRadius", "all");
+        properties.put("borderAllRadius", 4L);
+        properties.put("shadowColor", "grey");
+        properties.put("shadowBlur", 2L);
+        for (int i = 1; i < breakpointCount; i++) {
+            //every other breakpoint overrides something, so that cascading is exercised as well
+            if ((index + i) % 2 == 0) {
+                properties.put("borderAllRadius" + SUFFIXES[i], String.valueOf(4 + i));
+                properties.put("shadowBlur" + SUFFIXES[i], String.valueOf(2 + i));
+            }
+            properties.put("minHeight" + SUFFIXES[i], (100 * i) + "px");
+        }
+        return properties;
+    }
+
+    List<Resource> getComponents() {
+        return components;
+    }
+
+    Breakpoint[] getBreakpoints() {
+        return breakpoints;
+    }
+
+    /**
+     * @return new request, as each page rendering is
+     */
+    static MockSlingHttpServletRequest newRequest(AemContext context) {
+        return new MockSlingHttpServletRequest(context.resourceResolver(), context.bundleContext());
+    }
+
+    /**
+     * points request to the given component, with its DX bindings, as a script rendering it would
+     */
+    static void render(MockSlingHttpServletRequest request, Resource component, BindingsValuesProvider provider) {
+        request.setResource(component);
+        Bindings bindings = new SimpleBindings();
+        bindings.put(SlingBindings.RESOURCE, component);
+        bindings.put(SlingBindings.REQUEST, request);
+        provider.addBindings(bindings);
+        SlingBindings slingBindings = new SlingBindings();
+        slingBindings.putAll(bindings);
+        request.setAttribute(SlingBindings.class.getName(), slingBindings);
+    }
+
+    /**
+     * @return property names responsive properties are looked up with
+     */
+    static String[] getResponsiveNames() {
+        return new String[] { "borderAllRadius", "shadowBlur", "minHeight", "gap", "inherit" };
+    }
+}
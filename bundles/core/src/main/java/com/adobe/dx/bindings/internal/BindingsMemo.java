@@ -0,0 +1,125 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.bindings.internal;
+
+import com.adobe.dx.responsive.Breakpoint;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceWrapper;
+import org.apache.sling.api.resource.SyntheticResource;
+import org.apache.sling.api.resource.ValueMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Request scoped memo of DX bindings, keyed by (policy path, resource type, resource path), so that several
+ * scripts or models rendering the same resource with the same policy reuse the same objects. Wrapped and
+ * synthetic resources are never memoized, as their properties may differ from the ones of the resource at that
+ * path. Memo also counts, for the current request, how many entries were built versus reused.
+ */
+public class BindingsMemo {
+
+    static final String ATTRIBUTE = BindingsMemo.class.getName();
+
+    private static final String KEY_SEPARATOR = "|";
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private long built;
+
+    private long reused;
+
+    /**
+     * @param request current request
+     * @return memo attached to that request, created if needed
+     */
+    public static @NotNull BindingsMemo fromRequest(@NotNull ServletRequest request) {
+        Object memo = request.getAttribute(ATTRIBUTE);
+        if (memo instanceof BindingsMemo) {
+            return (BindingsMemo) memo;
+        }
+        BindingsMemo newMemo = new BindingsMemo();
+        request.setAttribute(ATTRIBUTE, newMemo);
+        return newMemo;
+    }
+
+    /**
+     * @return true if that resource's bindings can be memoized, i.e. it is neither wrapped nor synthetic
+     */
+    static boolean isMemoizable(@NotNull Resource resource) {
+        return !(resource instanceof ResourceWrapper) && !(resource instanceof SyntheticResource);
+    }
+
+    static String key(@Nullable String policyPath, @NotNull Resource resource) {
+        String key = resource.getResourceType() + KEY_SEPARATOR + resource.getPath();
+        return policyPath != null ? policyPath + KEY_SEPARATOR + key : key;
+    }
+
+    /**
+     * @return memoized entry for that couple, null if none or if resource is not memoizable
+     */
+    @Nullable Entry get(@Nullable String policyPath, @NotNull Resource resource) {
+        Entry entry = isMemoizable(resource) ? entries.get(key(policyPath, resource)) : null;
+        if (entry != null) {
+            reused++;
+        }
+        return entry;
+    }
+
+    /**
+     * stores a newly built entry, if resource is memoizable
+     */
+    void put(@Nullable String policyPath, @NotNull Resource resource, @NotNull Entry entry) {
+        built++;
+        if (isMemoizable(resource)) {
+            entries.put(key(policyPath, resource), entry);
+        }
+    }
+
+    /**
+     * @return number of entries built during current request
+     */
+    long getBuilt() {
+        return built;
+    }
+
+    /**
+     * @return number of entries reused during current request
+     */
+    long getReused() {
+        return reused;
+    }
+
+    /**
+     * set of DX bindings values for a given resource
+     */
+    static final class Entry {
+        final ValueMap policy;
+        final Breakpoint[] breakpoints;
+        final Map<String, Object> responsiveProperties;
+
+        Entry(ValueMap policy, Breakpoint[] breakpoints, Map<String, Object> responsiveProperties) {
+            this.policy = policy;
+            this.breakpoints = breakpoints;
+            this.responsiveProperties = responsiveProperties;
+        }
+    }
+}
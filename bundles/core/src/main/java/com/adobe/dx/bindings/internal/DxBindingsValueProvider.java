@@ -17,23 +17,34 @@ package com.adobe.dx.bindings.internal;
 
 import static com.day.cq.wcm.scripting.WCMBindingsConstants.NAME_CURRENT_CONTENT_POLICY;
 
-import com.adobe.dx.responsive.ResponsiveConfiguration;
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.metrics.RenderTrace;
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.responsive.internal.BreakpointCache;
 import com.adobe.dx.responsive.internal.ResponsiveProperties;
 import com.day.cq.wcm.api.policies.ContentPolicy;
 
 import javax.script.Bindings;
+import javax.servlet.ServletRequest;
 
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.api.scripting.SlingBindings;
 import org.apache.sling.api.wrappers.CompositeValueMap;
-import org.apache.sling.caconfig.ConfigurationBuilder;
 import org.apache.sling.scripting.api.BindingsValuesProvider;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.osgi.framework.Constants;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 
 @Component(service = BindingsValuesProvider.class,
     property = {
@@ -43,6 +54,7 @@ import org.osgi.service.component.annotations.Reference;
     },
     configurationPolicy = ConfigurationPolicy.REQUIRE
 )
+@Designate(ocd = DxBindingsValueProvider.Configuration.class)
 /**
  * provides DX bindings
  */
@@ -53,24 +65,120 @@ public class DxBindingsValueProvider implements BindingsValuesProvider {
     public static final String RESP_PROPS_KEY = "resprops";
 
     public static final String BP_KEY = "breakpoints";
-    
+
+    static final String METRIC_BINDINGS = "bindings.addBindings";
+
+    static final String METRIC_MEMO = "bindings.memo";
+
+    static final String BUILT = "built";
+
+    static final String REUSED = "reused";
+
+    static final String TRACE_BUILT = METRIC_MEMO + ":" + BUILT;
+
+    static final String TRACE_REUSED = METRIC_MEMO + ":" + REUSED;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    volatile BreakpointCache breakpointCache;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    volatile DxMetrics metrics;
+
+    boolean lazy;
+
+    @Activate
+    @Modified
+    public void activate(Configuration configuration) {
+        lazy = configuration.lazy();
+    }
+
+    /**
+     * @return breakpoints for given resource, from cache if available
+     */
+    Breakpoint[] getBreakpoints(Resource resource) {
+        BreakpointCache cache = breakpointCache;
+        return cache != null ? cache.getBreakpoints(resource) : BreakpointCache.resolveBreakpoints(resource);
+    }
+
     @Override
     public void addBindings(@NotNull Bindings bindings) {
+        DxMetrics dxMetrics = metrics;
+        long start = dxMetrics != null ? dxMetrics.start() : 0L;
+        Object request = bindings.get(SlingBindings.REQUEST);
+        RenderTrace trace = request instanceof ServletRequest ? RenderTrace.fromRequest((ServletRequest) request) : null;
+        long traceStart = trace != null ? trace.start() : 0L;
+        BindingsMemo memo = request instanceof ServletRequest ? BindingsMemo.fromRequest((ServletRequest) request) : null;
+        try {
+            addDxBindings(bindings, memo, dxMetrics);
+        } finally {
+            if (start != 0L) {
+                dxMetrics.record(METRIC_BINDINGS, null, start);
+            }
+            Object resource = bindings.get(SlingBindings.RESOURCE);
+            if (trace != null && resource instanceof Resource) {
+                trace.record(((Resource) resource).getPath(), RenderTrace.BINDINGS, traceStart);
+                trace.count(TRACE_BUILT, memo.getBuilt());
+                trace.count(TRACE_REUSED, memo.getReused());
+            }
+        }
+    }
+
+    private void addDxBindings(@NotNull Bindings bindings, @Nullable BindingsMemo memo,
+                               @Nullable DxMetrics dxMetrics) {
         if (!bindings.containsKey(POLICY_KEY)) {
             Resource resource = bindings.containsKey(SlingBindings.RESOURCE)
                 ? (Resource) bindings.get(SlingBindings.RESOURCE) : null;
             if (resource != null) {
                 ContentPolicy policy = bindings.containsKey(NAME_CURRENT_CONTENT_POLICY)
                     ? (ContentPolicy) bindings.get(NAME_CURRENT_CONTENT_POLICY) : null;
-                ValueMap dxPolicy = policy != null ? new CompositeValueMap(resource.getValueMap(), policy.getProperties()) :
-                    resource.getValueMap();
-                bindings.put(POLICY_KEY, dxPolicy);
-                ResponsiveConfiguration configuration = resource
-                    .adaptTo(ConfigurationBuilder.class)
-                    .as(ResponsiveConfiguration.class);
-                bindings.put(BP_KEY, configuration.breakpoints());
-                bindings.put(RESP_PROPS_KEY, new ResponsiveProperties(configuration, dxPolicy));
+                String policyPath = policy != null ? policy.getPath() : null;
+                BindingsMemo.Entry entry = memo != null ? memo.get(policyPath, resource) : null;
+                boolean reused = entry != null;
+                if (entry == null) {
+                    entry = buildEntry(resource, policy);
+                    if (memo != null) {
+                        memo.put(policyPath, resource, entry);
+                    }
+                }
+                if (memo != null && dxMetrics != null) {
+                    dxMetrics.increment(METRIC_MEMO, reused ? REUSED : BUILT);
+                }
+                bindings.put(POLICY_KEY, entry.policy);
+                bindings.put(BP_KEY, entry.breakpoints);
+                bindings.put(RESP_PROPS_KEY, entry.responsiveProperties);
             }
         }
     }
+
+    /**
+     * builds DX bindings values from scratch, or suppliers of policy & responsive properties in lazy mode.
+     * Breakpoints are always resolved, so that the binding stays a <code>Breakpoint[]</code>.
+     */
+    BindingsMemo.Entry buildEntry(@NotNull Resource resource, ContentPolicy policy) {
+        Breakpoint[] breakpoints = getBreakpoints(resource);
+        if (lazy) {
+            LazyValueMap dxPolicy = new LazyValueMap(() -> getDxPolicy(resource, policy));
+            LazyMap<ResponsiveProperties> responsiveProperties = new LazyMap<>(() ->
+                new ResponsiveProperties(breakpoints, dxPolicy.get()));
+            return new BindingsMemo.Entry(dxPolicy, breakpoints, responsiveProperties);
+        }
+        ValueMap dxPolicy = getDxPolicy(resource, policy);
+        return new BindingsMemo.Entry(dxPolicy, breakpoints, new ResponsiveProperties(breakpoints, dxPolicy));
+    }
+
+    ValueMap getDxPolicy(@NotNull Resource resource, ContentPolicy policy) {
+        return policy != null ? new CompositeValueMap(resource.getValueMap(), policy.getProperties()) :
+            resource.getValueMap();
+    }
+
+    @ObjectClassDefinition(name = "Adobe DX Bindings")
+    public @interface Configuration {
+
+        @AttributeDefinition(
+            name = "Lazy bindings",
+            description = "if checked, dxPolicy & resprops are only computed when first read, breakpoints "
+                + "staying a resolved array. Java code should then read them through RequestUtil"
+        )
+        boolean lazy() default false;
+    }
 }
@@ -0,0 +1,142 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.bindings.internal;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Read only map whose actual content is only computed on first access, used for lazy bindings. Content is
+ * computed once, even if first accessed from several threads at the same time.
+ *
+ * @param <M> type of the underlying map
+ */
+public class LazyMap<M extends Map<String, Object>> implements Map<String, Object>, Supplier<M> {
+
+    private volatile Supplier<M> supplier;
+
+    private volatile M map;
+
+    public LazyMap(@NotNull Supplier<M> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * @return underlying map, computed if not done yet
+     */
+    @Override
+    public M get() {
+        if (supplier != null) {
+            synchronized (this) {
+                Supplier<M> current = supplier;
+                if (current != null) {
+                    map = current.get();
+                    supplier = null;
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @return true if underlying map has been computed already
+     */
+    public boolean isResolved() {
+        return supplier == null;
+    }
+
+    @Override
+    public int size() {
+        return get().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return get().isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get().containsKey(key);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        return get().containsValue(value);
+    }
+
+    @Override
+    public Object get(Object key) {
+        return get().get(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object remove(Object key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void putAll(@NotNull Map<? extends String, ?> m) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @NotNull
+    @Override
+    public Set<String> keySet() {
+        return get().keySet();
+    }
+
+    @NotNull
+    @Override
+    public Collection<Object> values() {
+        return get().values();
+    }
+
+    @NotNull
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return get().entrySet();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o == this || get().equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return get().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return get().toString();
+    }
+}
@@ -0,0 +1,42 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.bindings.internal;
+
+import java.util.function.Supplier;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Value map whose actual content is only computed on first access, used for lazy bindings
+ */
+public class LazyValueMap extends LazyMap<ValueMap> implements ValueMap {
+
+    public LazyValueMap(@NotNull Supplier<ValueMap> supplier) {
+        super(supplier);
+    }
+
+    @Override
+    public <T> T get(@NotNull String name, @NotNull Class<T> type) {
+        return get().get(name, type);
+    }
+
+    @NotNull
+    @Override
+    public <T> T get(@NotNull String name, @NotNull T defaultValue) {
+        return get().get(name, defaultValue);
+    }
+}
@@ -0,0 +1,298 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import static com.adobe.dx.domtagging.internal.IDTaggerImpl.SERVICE_NAME;
+import static org.apache.sling.api.resource.ResourceResolverFactory.SUBSERVICE;
+
+import com.day.cq.wcm.api.NameConstants;
+import com.day.cq.wcm.api.Page;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.jackrabbit.JcrConstants;
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.consumer.JobExecutionContext;
+import org.apache.sling.event.jobs.consumer.JobExecutionResult;
+import org.apache.sling.event.jobs.consumer.JobExecutor;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Tags, with {@link IDTaggerImpl}, all pages of a tree, e.g. after a migration. Pages are walked lazily, and
+ * changes committed in batches, together with a checkpoint (under configured root) holding progress, so that an
+ * interrupted or failed job resumes after the last committed page when run again for the same path.
+ */
+@Component(service = { JobExecutor.class, BulkTaggingJob.class },
+    property = JobExecutor.PROPERTY_TOPICS + "=" + BulkTaggingJob.TOPIC,
+    configurationPolicy = ConfigurationPolicy.REQUIRE)
+@Designate(ocd = BulkTaggingJob.Configuration.class)
+public class BulkTaggingJob implements JobExecutor {
+
+    private final Logger log = LoggerFactory.getLogger(BulkTaggingJob.class);
+
+    static final String TOPIC = "com/adobe/dx/domtagging/bulk";
+
+    static final String PN_PATH = "path";
+
+    static final String PN_STATUS = "status";
+
+    static final String PN_LAST_PAGE = "lastPage";
+
+    static final String PN_PAGES = "pages";
+
+    static final String PN_TAGGED = "tagged";
+
+    static final String PN_THROUGHPUT = "throughput";
+
+    static final String PN_STARTED = "started";
+
+    static final String PN_UPDATED = "updated";
+
+    static final String STATUS_RUNNING = "running";
+
+    static final String STATUS_DONE = "done";
+
+    @Reference
+    ResourceResolverFactory resourceResolverFactory;
+
+    @Reference
+    IDTaggerImpl tagger;
+
+    int batchSize;
+
+    long throttle;
+
+    String checkpointRoot;
+
+    @Activate
+    @Modified
+    public void activate(Configuration configuration) {
+        batchSize = Math.max(1, configuration.batchSize());
+        throttle = Math.max(0L, configuration.throttle());
+        checkpointRoot = configuration.checkpointRoot();
+    }
+
+    /**
+     * @param path root path of a bulk tagging
+     * @return path of its checkpoint
+     */
+    @NotNull String getCheckpointPath(@NotNull String path) {
+        return checkpointRoot + "/" + IdGenerator.SHA256.generate(path);
+    }
+
+    /**
+     * reads progress of a bulk tagging with the service user, so that checkpoint root does not need to be
+     * readable by callers
+     *
+     * @param path root path of a bulk tagging
+     * @return copy of its checkpoint, null if there is none or service user can't log in
+     */
+    @Nullable ValueMap getProgress(@NotNull String path) {
+        try (ResourceResolver resolver =
+                 resourceResolverFactory.getServiceResourceResolver(Collections.singletonMap(SUBSERVICE, SERVICE_NAME))) {
+            Resource checkpoint = resolver.getResource(getCheckpointPath(path));
+            return checkpoint != null ? new ValueMapDecorator(new HashMap<>(checkpoint.getValueMap())) : null;
+        } catch (LoginException e) {
+            log.error("unable to read bulk tagging progress of {}", path, e);
+            return null;
+        }
+    }
+
+    @Override
+    public JobExecutionResult process(Job job, JobExecutionContext context) {
+        String path = job.getProperty(PN_PATH, String.class);
+        try (ResourceResolver resolver =
+                 resourceResolverFactory.getServiceResourceResolver(Collections.singletonMap(SUBSERVICE, SERVICE_NAME))) {
+            Resource root = path != null ? resolver.getResource(path) : null;
+            if (root == null) {
+                return context.result().message("no readable resource at " + path).cancelled();
+            }
+            return tagTree(root, context);
+        } catch (LoginException | PersistenceException e) {
+            log.error("unable to bulk tag {}, will resume from last checkpoint", path, e);
+            return context.result().message(e.getMessage()).failed();
+        }
+    }
+
+    JobExecutionResult tagTree(@NotNull Resource root, JobExecutionContext context) throws PersistenceException {
+        ResourceResolver resolver = root.getResourceResolver();
+        ModifiableValueMap checkpoint = getCheckpoint(resolver, root.getPath());
+        String resumeAfter = STATUS_RUNNING.equals(checkpoint.get(PN_STATUS, String.class))
+            ? checkpoint.get(PN_LAST_PAGE, String.class) : null;
+        long pages = 0L;
+        long tagged = 0L;
+        if (resumeAfter != null) {
+            pages = checkpoint.get(PN_PAGES, 0L);
+            tagged = checkpoint.get(PN_TAGGED, 0L);
+            context.log("resuming after {0}", resumeAfter);
+        } else {
+            checkpoint.remove(PN_LAST_PAGE);
+            checkpoint.put(PN_STARTED, Calendar.getInstance());
+        }
+        checkpoint.put(PN_STATUS, STATUS_RUNNING);
+        resolver.commit();
+        long start = System.nanoTime();
+        long runTagged = 0L;
+        String lastPage = null;
+        int pending = 0;
+        int pendingPages = 0;
+        Iterator<Resource> iterator = new IDTaggerImpl.ComponentIterator(
+            r -> NameConstants.NT_PAGE.equals(r.getResourceType()),
+            r -> JcrConstants.JCR_CONTENT.equals(r.getName()), root);
+        while (iterator.hasNext()) {
+            Resource resource = iterator.next();
+            if (resumeAfter != null) {
+                if (resumeAfter.equals(resource.getPath())) {
+                    resumeAfter = null;
+                }
+                continue;
+            }
+            Page page = resource.adaptTo(Page.class);
+            if (page != null) {
+                int count = tagger.tagPage(page);
+                lastPage = page.getPath();
+                pending += count;
+                runTagged += count;
+                pendingPages++;
+                if (pending >= batchSize || pendingPages >= batchSize) {
+                    pages += pendingPages;
+                    tagged += pending;
+                    saveCheckpoint(resolver, checkpoint, lastPage, pages, tagged, throughput(runTagged, start));
+                    context.log("tagged {0} components in {1} pages, {2} per second", tagged, pages,
+                        checkpoint.get(PN_THROUGHPUT, 0L));
+                    pending = 0;
+                    pendingPages = 0;
+                    if (context.isStopped() || !pause()) {
+                        //checkpoint stays running, job retry will resume from it
+                        return context.result().message("stopped after " + page.getPath()).failed();
+                    }
+                }
+            }
+        }
+        if (resumeAfter != null) {
+            context.log("checkpoint page {0} is gone, starting over", resumeAfter);
+            checkpoint.remove(PN_STATUS);
+            return tagTree(root, context);
+        }
+        pages += pendingPages;
+        tagged += pending;
+        checkpoint.put(PN_STATUS, STATUS_DONE);
+        saveCheckpoint(resolver, checkpoint, lastPage, pages, tagged, throughput(runTagged, start));
+        String message = "tagged " + tagged + " components in " + pages + " pages";
+        log.info("{} under {}", message, root.getPath());
+        return context.result().message(message).succeeded();
+    }
+
+    private ModifiableValueMap getCheckpoint(ResourceResolver resolver, String path) throws PersistenceException {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_UNSTRUCTURED);
+        properties.put(PN_PATH, path);
+        Resource checkpoint = ResourceUtil.getOrCreateResource(resolver, getCheckpointPath(path), properties,
+            "sling:Folder", false);
+        ModifiableValueMap map = checkpoint.adaptTo(ModifiableValueMap.class);
+        if (map == null) {
+            throw new PersistenceException("checkpoint " + checkpoint.getPath() + " is not writable");
+        }
+        return map;
+    }
+
+    /**
+     * commits tagged components with current progress
+     */
+    private void saveCheckpoint(ResourceResolver resolver, ModifiableValueMap checkpoint, String lastPage,
+                                long pages, long tagged, long throughput) throws PersistenceException {
+        if (lastPage != null) {
+            checkpoint.put(PN_LAST_PAGE, lastPage);
+        }
+        checkpoint.put(PN_PAGES, pages);
+        checkpoint.put(PN_TAGGED, tagged);
+        checkpoint.put(PN_THROUGHPUT, throughput);
+        checkpoint.put(PN_UPDATED, Calendar.getInstance());
+        resolver.commit();
+    }
+
+    /**
+     * @return tagged components per second, since given start
+     */
+    private long throughput(long tagged, long start) {
+        long elapsed = Math.max(1L, System.nanoTime() - start);
+        return tagged * TimeUnit.SECONDS.toNanos(1) / elapsed;
+    }
+
+    /**
+     * @return false if interrupted while throttled
+     */
+    private boolean pause() {
+        if (throttle > 0) {
+            try {
+                Thread.sleep(throttle);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @ObjectClassDefinition(name = "Adobe DX Bulk ID Tagging")
+    public @interface Configuration {
+
+        @AttributeDefinition(
+            name = "Batch size",
+            description = "number of tagged components (or visited pages) after which changes are committed, "
+                + "together with a checkpoint"
+        )
+        int batchSize() default 500;
+
+        @AttributeDefinition(
+            name = "Throttle",
+            description = "pause, in milliseconds, after each committed batch"
+        )
+        long throttle() default 100;
+
+        @AttributeDefinition(
+            name = "Checkpoint root",
+            description = "where bulk tagging progress is stored, one resource per tagged tree. Service user "
+                + "used for tagging should be able to write there"
+        )
+        String checkpointRoot() default "/var/dx/idtagging";
+    }
+}
@@ -0,0 +1,165 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_EXTENSIONS;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_PATHS;
+
+import com.adobe.dx.utils.UserUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.Collections;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.servlets.SlingAllMethodsServlet;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Starts (POST) or reports progress (GET) of a {@link BulkTaggingJob} for the tree given as <code>path</code>
+ * parameter, for users of the allowed groups only as the job tags with the service user. A job started on a path
+ * whose previous job did not finish resumes from its checkpoint. Progress is read with the service user too. Path
+ * should not be reachable from publish dispatcher.
+ */
+@Component(
+    service = Servlet.class,
+    property = {
+        SLING_SERVLET_PATHS + "=" + BulkTaggingServlet.PATH,
+        SLING_SERVLET_EXTENSIONS + "=json"})
+@Designate(ocd = BulkTaggingServlet.Configuration.class)
+public class BulkTaggingServlet extends SlingAllMethodsServlet {
+
+    static final String PATH = "/bin/dx/idtagging";
+
+    static final String PN_JOB = "job";
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    private static final String UTF8_ENCODING_NAME = "UTF-8";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Reference
+    private transient JobManager jobManager;
+
+    @Reference
+    private transient BulkTaggingJob bulkTaggingJob;
+
+    String[] allowedGroups = {"administrators"};
+
+    @Activate
+    @Modified
+    public void activate(Configuration configuration) {
+        allowedGroups = configuration.allowedGroups();
+    }
+
+    @Override
+    protected void doPost(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response)
+        throws IOException {
+        if (!UserUtil.isMemberOf(request.getResourceResolver(), allowedGroups)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        String path = request.getParameter(BulkTaggingJob.PN_PATH);
+        if (StringUtils.isBlank(path) || request.getResourceResolver().getResource(path) == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "path parameter should be an existing resource");
+            return;
+        }
+        Job job = jobManager.addJob(BulkTaggingJob.TOPIC, Collections.singletonMap(BulkTaggingJob.PN_PATH, path));
+        if (job == null) {
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "unable to start bulk tagging");
+            return;
+        }
+        writeJson(response, json -> {
+            json.writeStringField(PN_JOB, job.getId());
+            json.writeStringField(BulkTaggingJob.PN_PATH, path);
+        });
+    }
+
+    @Override
+    protected void doGet(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response)
+        throws IOException {
+        if (!UserUtil.isMemberOf(request.getResourceResolver(), allowedGroups)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        String path = request.getParameter(BulkTaggingJob.PN_PATH);
+        ValueMap progress = StringUtils.isNotBlank(path) ? bulkTaggingJob.getProgress(path) : null;
+        if (progress == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        writeJson(response, json -> {
+            json.writeStringField(BulkTaggingJob.PN_PATH, path);
+            json.writeStringField(BulkTaggingJob.PN_STATUS, progress.get(BulkTaggingJob.PN_STATUS, String.class));
+            json.writeStringField(BulkTaggingJob.PN_LAST_PAGE, progress.get(BulkTaggingJob.PN_LAST_PAGE, String.class));
+            json.writeNumberField(BulkTaggingJob.PN_PAGES, progress.get(BulkTaggingJob.PN_PAGES, 0L));
+            json.writeNumberField(BulkTaggingJob.PN_TAGGED, progress.get(BulkTaggingJob.PN_TAGGED, 0L));
+            json.writeNumberField(BulkTaggingJob.PN_THROUGHPUT, progress.get(BulkTaggingJob.PN_THROUGHPUT, 0L));
+            writeDate(json, BulkTaggingJob.PN_STARTED, progress.get(BulkTaggingJob.PN_STARTED, Calendar.class));
+            writeDate(json, BulkTaggingJob.PN_UPDATED, progress.get(BulkTaggingJob.PN_UPDATED, Calendar.class));
+        });
+    }
+
+    private void writeDate(JsonGenerator json, String name, Calendar date) throws IOException {
+        if (date != null) {
+            json.writeNumberField(name, date.getTimeInMillis());
+        }
+    }
+
+    private void writeJson(SlingHttpServletResponse response, JsonWriter writer) throws IOException {
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding(UTF8_ENCODING_NAME);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(response.getWriter())) {
+            json.writeStartObject();
+            writer.write(json);
+            json.writeEndObject();
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonWriter {
+        void write(JsonGenerator json) throws IOException;
+    }
+
+    @ObjectClassDefinition(name = "Adobe DX Bulk ID Tagging Servlet")
+    public @interface Configuration {
+
+        @AttributeDefinition(
+            name = "Allowed groups",
+            description = "groups whose authenticated members can start bulk tagging and read its progress, "
+                + "admin always can"
+        )
+        String[] allowedGroups() default {"administrators"};
+    }
+}
@@ -19,6 +19,7 @@ import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.apache.sling.api.resource.ResourceResolverFactory.SUBSERVICE;
 
 import com.adobe.dx.domtagging.IDTagger;
+import com.adobe.dx.metrics.DxMetrics;
 import com.day.cq.replication.Preprocessor;
 import com.day.cq.replication.ReplicationAction;
 import com.day.cq.replication.ReplicationActionType;
@@ -27,20 +28,25 @@ import com.day.cq.replication.ReplicationOptions;
 import com.day.cq.wcm.api.Page;
 import com.day.cq.wcm.api.PageManager;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
-import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
-import org.apache.sling.api.resource.AbstractResourceVisitor;
 import org.apache.sling.api.resource.LoginException;
 import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.PersistenceException;
@@ -56,8 +62,11 @@ import org.jetbrains.annotations.Nullable;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.metatype.annotations.AttributeDefinition;
 import org.osgi.service.metatype.annotations.Designate;
 import org.osgi.service.metatype.annotations.ObjectClassDefinition;
@@ -68,8 +77,8 @@ import org.slf4j.LoggerFactory;
  * will tag every untagged component with an id that is meant to be unique and to stick to it:
  *
  * <ol>
- *     <li><code>dx_id</code> that are the "almost" unique first 8 chars of paths + date's SHA-256</li>
- *     <li><code>dx_pageId</code> that are the "almost" unique first 8 chars of page path SHA-256</li>
+ *     <li><code>dx_id</code> that are the "almost" unique 8 hex chars of paths + time salt hash</li>
+ *     <li><code>dx_pageId</code> that are the "almost" unique 8 hex chars of page path hash</li>
  * </ol>
  *
  * the tag consists in checking page hash, then if it's absent or inconsistent with current page,
@@ -81,8 +90,11 @@ import org.slf4j.LoggerFactory;
  *     <li>each time the containing page is replicated (this addition is to catch special cases when
  *     component is copied / live copied without POST request)</li>
  * </ul>
+ *
+ * hash is SHA-256 by default, or a faster Murmur3 one if configured (see {@link IdGenerator})
  */
-@Component(configurationPolicy = ConfigurationPolicy.REQUIRE)
+@Component(service = { Preprocessor.class, SlingPostProcessor.class, IDTagger.class, IDTaggerImpl.class },
+    configurationPolicy = ConfigurationPolicy.REQUIRE)
 @Designate(ocd = IDTaggerImpl.Configuration.class)
 public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger {
     private final Logger log = LoggerFactory.getLogger(IDTaggerImpl.class);
@@ -97,6 +109,11 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
      */
     static final String PN_COMPID = "dx_id";
 
+    /**
+     * page marker, set on page content once all its components are tagged
+     */
+    static final String PN_TAG_MARKER = "dx_tagMarker";
+
     static final String ID_SEPARATOR = "-";
 
     static final short ID_SIZE = 8;
@@ -107,8 +124,42 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
 
     static final String ATT_ROOTID = "dx:idtagger:root_id";
 
+    /**
+     * max number of resource types a filter memoizes
+     */
+    static final int MAX_MEMOIZED_TYPES = 2048;
+
+    static final String METRIC_COMPONENT_ID = "idtagger.computeComponentId";
+
+    static final String METRIC_COLLISION = "idtagger.collision";
+
+    static final String METRIC_PAGE_ID = "idtagger.pageId";
+
+    static final String COMPUTED = "computed";
+
+    static final String REUSED = "reused";
+
+    /**
+     * counter making time salts of a same millisecond different
+     */
+    private static final AtomicLong SALT_COUNTER = new AtomicLong();
+
     Function<Resource, Boolean> resourceFilter;
 
+    Function<Resource, Boolean> pruneFilter;
+
+    IdGenerator idGenerator = IdGenerator.SHA256;
+
+    /**
+     * queue pages are tagged through on activation, null in strict mode
+     */
+    volatile TaggingQueue queue;
+
+    /**
+     * hash of the configuration bits tagging depends on, so that a page tagged with other types is not clean
+     */
+    String configurationHash = EMPTY;
+
     List<String> referenceTypes;
 
     Configuration configuration;
@@ -116,6 +167,9 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
     @Reference
     ResourceResolverFactory resourceResolverFactory;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    volatile DxMetrics metrics;
+
     @Activate
     @Modified
     public void activate(Configuration configuration) {
@@ -124,24 +178,80 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
             acceptedTypes.add(Pattern.compile(regexp));
         }
         resourceFilter = getFilter(acceptedTypes);
+        Collection<Pattern> prunedTypes = new ArrayList<>();
+        for (String regexp : configuration.prunedTypes()) {
+            prunedTypes.add(Pattern.compile(regexp));
+        }
+        pruneFilter = getFilter(prunedTypes);
         this.configuration = configuration;
         referenceTypes = Arrays.asList(configuration.referenceTypes());
+        idGenerator = getIdGenerator(configuration.idGenerator());
+        TaggingQueue previous = queue;
+        TaggingQueue next = configuration.strictTagging() ? null
+            : new TaggingQueue(this::tagPages, configuration.asyncBatchSize());
+        // previous queue is done writing before next one can start
+        List<String> left = previous != null ? previous.shutdown() : Collections.emptyList();
+        queue = next;
+        if (next != null) {
+            left.forEach(next::enqueue);
+        } else if (!left.isEmpty()) {
+            tagPages(left);
+        }
+        configurationHash = IdGenerator.MURMUR3.generate(String.join("|", configuration.acceptedTypes())
+            + ID_SEPARATOR + String.join("|", configuration.prunedTypes()));
+    }
+
+    @Deactivate
+    public void deactivate() {
+        TaggingQueue previous = queue;
+        queue = null;
+        if (previous != null) {
+            List<String> left = previous.shutdown();
+            if (!left.isEmpty()) {
+                log.warn("{} pages left untagged, they will be on their next activation: {}", left.size(), left);
+            }
+        }
+    }
+
+    IdGenerator getIdGenerator(String name) {
+        for (IdGenerator generator : IdGenerator.values()) {
+            if (generator.name().equalsIgnoreCase(StringUtils.trim(name))) {
+                return generator;
+            }
+        }
+        log.warn("unknown id generator {}, falling back to {}", name, IdGenerator.SHA256);
+        return IdGenerator.SHA256;
     }
 
     /**
+     * Builds a filter out of patterns, combined in one single alternation, whose results are memoized per
+     * resource type, so that in steady state filtering is one lookup. As filters are built again on each
+     * configuration change, so is the memo.
+     *
      * @param acceptedTypes list of patterns of accepted types for the id
      * @return filter that use the list
      */
     Function<Resource, Boolean> getFilter(Collection<Pattern> acceptedTypes) {
+        if (acceptedTypes.isEmpty()) {
+            return r -> false;
+        }
+        Pattern combined = Pattern.compile(acceptedTypes.stream()
+            .map(pattern -> "(?:" + pattern.pattern() + ")")
+            .collect(Collectors.joining("|")));
+        Map<String, Boolean> memo = new ConcurrentHashMap<>();
         return r -> {
-            if (StringUtils.isNotBlank(r.getResourceType())) {
-                for (Pattern pattern: acceptedTypes) {
-                    if (pattern.matcher(r.getResourceType()).matches()) {
-                        return true;
-                    }
+            String type = r.getResourceType();
+            if (StringUtils.isBlank(type)) {
+                return false;
+            }
+            Boolean accepted = memo.get(type);
+            if (accepted == null) {
+                accepted = combined.matcher(type).matches();
+                if (memo.size() < MAX_MEMOIZED_TYPES) {
+                    memo.put(type, accepted);
                 }
             }
-            return false;
+            return accepted;
         };
     }
 
@@ -149,40 +259,102 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
     public void preprocess(ReplicationAction replicationAction, ReplicationOptions replicationOptions) throws ReplicationException {
         if (configuration.tagOnPublication() &&
             ReplicationActionType.ACTIVATE.equals(replicationAction.getType())) {
-            try (ResourceResolver resolver =
-                     resourceResolverFactory.getServiceResourceResolver(Collections.singletonMap(SUBSERVICE, SERVICE_NAME))) {
-                Resource currentResource = resolver.getResource(replicationAction.getPath());
+            TaggingQueue deferred = queue;
+            if (deferred != null) {
+                deferred.enqueue(replicationAction.getPath());
+            } else {
+                tagPages(Collections.singletonList(replicationAction.getPath()));
+            }
+        }
+    }
+
+    /**
+     * tags given pages, with one single commit
+     * @param paths paths of the pages
+     */
+    void tagPages(List<String> paths) {
+        try (ResourceResolver resolver =
+                 resourceResolverFactory.getServiceResourceResolver(Collections.singletonMap(SUBSERVICE, SERVICE_NAME))) {
+            for (String path : paths) {
+                Resource currentResource = resolver.getResource(path);
                 if (currentResource == null) {
-                    log.debug("replication action made on a non existing or not readable resource {}, abort", replicationAction.getPath());
-                    return;
+                    log.debug("replication action made on a non existing or not readable resource {}, abort", path);
+                    continue;
                 }
                 Page currentPage = currentResource.adaptTo(Page.class);
                 if (currentPage == null) {
                     log.debug("replication action made on something else than a page, abort {}", currentResource.getPath());
-                    return;
+                    continue;
                 }
                 //we just tag page resources
                 tagPage(currentPage);
+            }
+            //and only commit if some pages were not clean already
+            if (resolver.hasChanges()) {
                 resolver.commit();
-            } catch (LoginException | PersistenceException e) {
-                log.error("Issues with current user or content, will not tag that resource", e);
             }
+        } catch (LoginException | PersistenceException e) {
+            log.error("Issues with current user or content, will not tag that resource", e);
         }
     }
 
     /**
-     * tag every single resource in given page
+     * tag every single resource in given page, unless page has been marked as clean since its last modification
      * @param currentPage
+     * @return number of resources that have been tagged
      */
-    void tagPage(Page currentPage) {
+    int tagPage(Page currentPage) {
+        int tagged = 0;
         String pageHash = getUniqueId(currentPage.getPath(), false);
-        for (Iterator<Resource> componentIterator = new ComponentIterator(resourceFilter, currentPage.getContentResource());
+        Resource content = currentPage.getContentResource();
+        String marker = getTagMarker(currentPage, pageHash);
+        if (content == null
+            || marker != null && marker.equals(content.getValueMap().get(PN_TAG_MARKER, String.class))) {
+            log.debug("{} is clean, skipping it", currentPage.getPath());
+            return tagged;
+        }
+        for (Iterator<Resource> componentIterator = new ComponentIterator(resourceFilter, pruneFilter,
+                 currentPage.getContentResource());
              componentIterator.hasNext();) {
             Resource component = componentIterator.next();
             if (needsUpdate(component, pageHash)) {
                 tagResource(component, pageHash);
+                tagged++;
+            }
+        }
+        ModifiableValueMap contentMap = marker != null ? content.adaptTo(ModifiableValueMap.class) : null;
+        if (contentMap != null) {
+            contentMap.put(PN_TAG_MARKER, marker);
+        }
+        return tagged;
+    }
+
+    /**
+     * Marker of a page whose components are all tagged, made of page hash, configuration hash, page last
+     * modification and child counts of the first two levels of page content, so that a moved, edited page, a
+     * structural change not updating last modification (JCR API, workflow, MSM) or a new configuration invalidates it
+     *
+     * @param page page to mark
+     * @param pageHash current page hash
+     * @return marker, null if clean pages should not be skipped, or page has no last modification date to rely on
+     */
+    @Nullable String getTagMarker(@NotNull Page page, @NotNull String pageHash) {
+        Calendar lastModified = page.getLastModified();
+        Resource content = page.getContentResource();
+        if (!configuration.skipCleanPages() || lastModified == null || content == null) {
+            return null;
+        }
+        StringBuilder marker = new StringBuilder(pageHash).append(ID_SEPARATOR).append(configurationHash)
+            .append(ID_SEPARATOR).append(lastModified.getTimeInMillis()).append(ID_SEPARATOR);
+        int children = 0;
+        int grandChildren = 0;
+        for (Resource child : content.getChildren()) {
+            children++;
+            for (Iterator<Resource> iterator = child.listChildren(); iterator.hasNext(); iterator.next()) {
+                grandChildren++;
             }
         }
+        return marker.append(children).append(ID_SEPARATOR).append(grandChildren).toString();
     }
 
     /**
@@ -218,6 +390,31 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
         return null;
     }
 
+    /**
+     * Get current page Hash, looked up & computed once per page and request
+     * @param resource
+     * @param memo request scoped memo of page hashes
+     * @return page hash or null if not possible to compute
+     */
+    String getCurrentPageId(Resource resource, @NotNull PageIdMemo memo) {
+        if (resource.getValueMap().containsKey(PN_PAGEHASH)) {
+            return resource.getValueMap().get(PN_PAGEHASH, String.class);
+        }
+        String pageId = memo.get(resource.getPath());
+        boolean reused = pageId != null;
+        if (pageId == null) {
+            pageId = getCurrentPageId(resource, false);
+            if (pageId != null) {
+                memo.put(resource.getPath(), pageId);
+            }
+        }
+        DxMetrics dxMetrics = metrics;
+        if (dxMetrics != null && pageId != null) {
+            dxMetrics.increment(METRIC_PAGE_ID, reused ? REUSED : COMPUTED);
+        }
+        return pageId;
+    }
+
     /**
      * Get current resource Hash
      * @param resource
@@ -278,15 +475,20 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
      *
      * @param path          The path we should generate an ID from
      * @param timeSalt      wether we should salt it with a time based salt or not
-     * @return              The unique ID (first <code>ID_SIZE</code> chars of sha1 hash)
+     * @return              The unique ID (<code>ID_SIZE</code> hex chars of configured hash)
      */
     public String getUniqueId(final String path, boolean timeSalt) {
-        String source = path;
         if (timeSalt) {
-            source += Calendar.getInstance().toString();
+            return idGenerator.generate(path, timeSalt());
         }
-        String sha256 = DigestUtils.sha256Hex(source);
-        return sha256.substring(0, ID_SIZE);
+        return idGenerator.generate(path);
+    }
+
+    /**
+     * @return salt made of current time, and of a counter for ids generated in the same millisecond
+     */
+    static long timeSalt() {
+        return System.currentTimeMillis() << 20 ^ SALT_COUNTER.incrementAndGet();
     }
 
     @Override
@@ -320,8 +522,9 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
      * we are not in the page root already
      */
     String prefixWithRootReference(SlingHttpServletRequest request, String pageId, String componentId) {
-        if (!isCurrentRequestForRootPage(request, pageId) && request.getAttribute(ATT_REFERENCE) != null) {
-            return request.getAttribute(ATT_REFERENCE) + ID_SEPARATOR + componentId;
+        Object reference = request.getAttribute(ATT_REFERENCE);
+        if (reference != null && !isCurrentRequestForRootPage(request, pageId)) {
+            return PageIdMemo.fromRequest(request).getReferencePrefix(reference, ID_SEPARATOR) + componentId;
         }
         return componentId;
     }
@@ -345,8 +548,20 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
 
     @Override
     public String computeComponentId(SlingHttpServletRequest request, @Nullable String property) {
+        DxMetrics dxMetrics = metrics;
+        long start = dxMetrics != null ? dxMetrics.start() : 0L;
+        try {
+            return computeId(request, property);
+        } finally {
+            if (start != 0L) {
+                dxMetrics.record(METRIC_COMPONENT_ID, null, start);
+            }
+        }
+    }
+
+    private String computeId(SlingHttpServletRequest request, @Nullable String property) {
         Resource resource = request.getResource();
-        String pageId = getCurrentPageId(resource, true);
+        String pageId = getCurrentPageId(resource, PageIdMemo.fromRequest(request));
         if (request.getAttribute(ATT_ROOTID) == null) {
             request.setAttribute(ATT_ROOTID, pageId);
         }
@@ -356,6 +571,9 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
             //the we go for default id tagging
             id = prefixWithRootReference(request, pageId, getResourceId(resource, true));
         }
+        if (configuration.uniqueIds() && id != null) {
+            id = makeUnique(request, resource, id);
+        }
         if (isCurrentRequestForRootPage(request, pageId)) {
             String refId = null;
             if (referenceTypes.contains(resource.getResourceType())) {
@@ -367,41 +585,90 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
     }
 
     /**
-     * lists all resource in a resource tree that have resource type corresponding to passed patterns
+     * @return given id, suffixed if another component already got it during current request
+     */
+    String makeUnique(SlingHttpServletRequest request, Resource resource, String id) {
+        IdRegistry registry = IdRegistry.fromRequest(request);
+        int collisions = registry.getCollisions();
+        String uniqueId = registry.register(id, resource.getPath(), ID_SEPARATOR);
+        if (registry.getCollisions() > collisions) {
+            log.warn("{} id {} collides with another component's, using {}. Component has probably been copied "
+                + "without being retagged", resource.getPath(), id, uniqueId);
+            DxMetrics dxMetrics = metrics;
+            if (dxMetrics != null) {
+                dxMetrics.increment(METRIC_COLLISION, resource.getResourceType());
+            }
+        }
+        return uniqueId;
+    }
+
+    /**
+     * Lazily lists, depth first, all resources of a resource tree accepted by a filter. Tree is walked as the
+     * iterator is consumed, with an explicit stack of children iterators, so that memory only depends on tree
+     * depth. Children of pruned resources are skipped.
      */
-    static class ComponentIterator extends AbstractResourceVisitor implements Iterator<Resource> {
+    static class ComponentIterator implements Iterator<Resource> {
 
-        Function<Resource, Boolean> rFilter;
-        Collection<Resource> internalList = new ArrayList<>();
-        Iterator<Resource> internalIT;
+        final Function<Resource, Boolean> rFilter;
+        final Function<Resource, Boolean> pruneFilter;
+        final Deque<Iterator<Resource>> stack = new ArrayDeque<>();
+        Resource nextResource;
 
         public ComponentIterator(Function<Resource, Boolean> filter, Resource root) {
-            rFilter = filter;
-            accept(root);
+            this(filter, r -> false, root);
         }
 
-        @Override
-        protected void visit(@NotNull Resource resource) {
-            if (Boolean.TRUE.equals(rFilter.apply(resource))) {
-                internalList.add(resource);
+        /**
+         * @param filter filter of resources to list
+         * @param pruneFilter filter of resources whose subtree should not be walked
+         * @param root root of the walked tree, included
+         */
+        public ComponentIterator(Function<Resource, Boolean> filter, Function<Resource, Boolean> pruneFilter,
+                                 Resource root) {
+            rFilter = filter;
+            this.pruneFilter = pruneFilter;
+            if (root != null) {
+                stack.push(Collections.singletonList(root).iterator());
             }
         }
 
-        Iterator<Resource> getIterator() {
-            if (internalIT == null) {
-                internalIT = internalList.iterator();
+        /**
+         * @return next accepted resource in depth first order, null if there is none left
+         */
+        private Resource advance() {
+            while (!stack.isEmpty()) {
+                Iterator<Resource> siblings = stack.peek();
+                if (!siblings.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                Resource resource = siblings.next();
+                if (!Boolean.TRUE.equals(pruneFilter.apply(resource))) {
+                    stack.push(resource.listChildren());
+                }
+                if (Boolean.TRUE.equals(rFilter.apply(resource))) {
+                    return resource;
+                }
             }
-            return internalIT;
+            return null;
         }
 
         @Override
         public boolean hasNext() {
-            return getIterator().hasNext();
+            if (nextResource == null) {
+                nextResource = advance();
+            }
+            return nextResource != null;
         }
 
         @Override
         public Resource next() {
-            return getIterator().next();
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Resource resource = nextResource;
+            nextResource = null;
+            return resource;
         }
     }
 
@@ -428,6 +695,13 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
         @SuppressWarnings("squid:S00100")
         String[] acceptedTypes() default { "dx/structure/components/.*" };
 
+        @AttributeDefinition(
+            name = "Pruned types",
+            description = "list of pattern for resource types whose subtree can never contain components to tag, "
+                + "and is thus not walked when tagging a page"
+        )
+        String[] prunedTypes() default {};
+
         @AttributeDefinition(
             name = "Reference type",
             description = "type with which a reference is made, we should consider for ID generation"
@@ -440,5 +714,45 @@ public class IDTaggerImpl implements Preprocessor, SlingPostProcessor, IDTagger
             + "in case this is checked, the component hash will be rewritten as well"
         )
         boolean shouldRewriteComponentHash() default true;
+
+        @AttributeDefinition(
+            name = "ID generator",
+            description = "hash ids are generated with: SHA256, or MURMUR3 that is much faster. Changing it "
+                + "changes page ids, and thus triggers retagging of components of pages tagged before"
+        )
+        String idGenerator() default "SHA256";
+
+        @AttributeDefinition(
+            name = "Unique ids",
+            description = "if checked, a component whose id was already given to another one in the same render "
+                + "gets it suffixed with -2, -3, ... Collisions are logged with the component path, and counted in "
+                + "DX metrics"
+        )
+        boolean uniqueIds() default false;
+
+        @AttributeDefinition(
+            name = "Skip clean pages",
+            description = "if checked, a page whose components were all tagged is marked, and not walked again "
+                + "until its last modification, configuration or child counts of its first two content levels "
+                + "change. Deeper changes made without updating last modification (JCR API, workflow, MSM) are "
+                + "then only tagged after next page edition"
+        )
+        boolean skipCleanPages() default false;
+
+        @AttributeDefinition(
+            name = "Strict tagging on publication",
+            description = "if checked, activation waits for the page to be tagged. Otherwise the page is queued, "
+                + "and tagged shortly after by one single writer, so that tags are only published on next "
+                + "activation of a page that was not tagged yet. Queued pages are kept on configuration change, "
+                + "but not persisted: pages still queued on shutdown or restart are only tagged on their next "
+                + "activation"
+        )
+        boolean strictTagging() default true;
+
+        @AttributeDefinition(
+            name = "Asynchronous batch size",
+            description = "when not strict, max number of queued pages tagged with one single commit"
+        )
+        int asyncBatchSize() default 50;
     }
 }
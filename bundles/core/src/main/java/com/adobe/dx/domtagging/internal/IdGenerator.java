@@ -0,0 +1,158 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Strategies generating the 8 hex chars ids of {@link IDTaggerImpl}, from a path and an optional salt. Both keep
+ * 32 bits of their hash, so have the same collision probability.
+ */
+enum IdGenerator {
+
+    /**
+     * first 8 chars of SHA-256 hex digest, the historical generator that page ids already stored rely on
+     */
+    SHA256 {
+        private final ThreadLocal<MessageDigest> digests = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        @Override
+        int hash(@NotNull String source) {
+            byte[] digest = digests.get().digest(source.getBytes(StandardCharsets.UTF_8));
+            return (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8 | digest[3] & 0xff;
+        }
+
+        @Override
+        int hash(@NotNull String source, long salt) {
+            return hash(source + SALT_SEPARATOR + salt);
+        }
+    },
+
+    /**
+     * non cryptographic 64 bits Murmur3 (x64) mix, directly computed on the path's chars with no allocation
+     */
+    MURMUR3 {
+        private static final long SEED = 0x9747b28cL;
+
+        @Override
+        int hash(@NotNull String source) {
+            return hash(source, SEED);
+        }
+
+        @Override
+        int hash(@NotNull String source, long salt) {
+            return (int) (hash64(source, salt) >>> 32);
+        }
+    };
+
+    private static final String SALT_SEPARATOR = ":";
+
+    private static final long C1 = 0x87c37b91114253d5L;
+
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * @param source string to hash
+     * @return 32 first bits of source's hash
+     */
+    abstract int hash(@NotNull String source);
+
+    /**
+     * @param source string to hash
+     * @param salt salt to mix with the source
+     * @return 32 first bits of salted source's hash
+     */
+    abstract int hash(@NotNull String source, long salt);
+
+    /**
+     * @param source string to hash
+     * @return 8 lower case hex chars id of given source
+     */
+    @NotNull String generate(@NotNull String source) {
+        return toHex(hash(source));
+    }
+
+    /**
+     * @param source string to hash
+     * @param salt salt to mix with the source
+     * @return 8 lower case hex chars id of given source and salt
+     */
+    @NotNull String generate(@NotNull String source, long salt) {
+        return toHex(hash(source, salt));
+    }
+
+    /**
+     * Murmur3 (x64) mix of a string's UTF-16 chars, 4 per 64 bits block
+     *
+     * @param source string to hash
+     * @param seed seed (or salt) of the hash
+     * @return 64 bits hash
+     */
+    static long hash64(@NotNull String source, long seed) {
+        long h = seed;
+        int length = source.length();
+        int i = 0;
+        for (; i + 4 <= length; i += 4) {
+            long k = source.charAt(i) | (long) source.charAt(i + 1) << 16
+                | (long) source.charAt(i + 2) << 32 | (long) source.charAt(i + 3) << 48;
+            h ^= mixK(k);
+            h = Long.rotateLeft(h, 27) * 5 + 0x52dce729;
+        }
+        if (i < length) {
+            long k = 0L;
+            for (int shift = 0; i < length; i++, shift += 16) {
+                k |= (long) source.charAt(i) << shift;
+            }
+            h ^= mixK(k);
+        }
+        h ^= length;
+        return fmix(h);
+    }
+
+    private static long mixK(long k) {
+        return Long.rotateLeft(k * C1, 31) * C2;
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    static @NotNull String toHex(int bits) {
+        char[] chars = new char[8];
+        for (int i = chars.length - 1; i >= 0; i--) {
+            chars[i] = HEX[bits & 0xf];
+            bits >>>= 4;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,90 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import javax.servlet.ServletRequest;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Request scoped registry of the ids given to components, making sure two different components never get the same
+ * id in one render: a component whose id is already owned by another one gets it suffixed with <code>-2</code>,
+ * <code>-3</code>, ... in render order. Ids and (id, component) couples are only stored as 64 bits hashes.
+ */
+class IdRegistry {
+
+    static final String ATTRIBUTE = IdRegistry.class.getName();
+
+    private static final long SEED = 0x5bd1e995L;
+
+    /**
+     * ids given so far
+     */
+    private final LongOpenSet ids = new LongOpenSet();
+
+    /**
+     * ids given so far, combined with the path of the component owning them
+     */
+    private final LongOpenSet owners = new LongOpenSet();
+
+    private int collisions;
+
+    /**
+     * @param request current request
+     * @return registry attached to that request, created if needed
+     */
+    static @NotNull IdRegistry fromRequest(@NotNull ServletRequest request) {
+        Object registry = request.getAttribute(ATTRIBUTE);
+        if (registry instanceof IdRegistry) {
+            return (IdRegistry) registry;
+        }
+        IdRegistry newRegistry = new IdRegistry();
+        request.setAttribute(ATTRIBUTE, newRegistry);
+        return newRegistry;
+    }
+
+    /**
+     * @param id computed id of a component
+     * @param path path of the component
+     * @param separator separator of the suffix
+     * @return id, suffixed if already given to another component, same result for a same component
+     */
+    @NotNull String register(@NotNull String id, @NotNull String path, @NotNull String separator) {
+        String candidate = id;
+        for (int suffix = 2;; suffix++) {
+            long idHash = IdGenerator.hash64(candidate, SEED);
+            long ownerHash = IdGenerator.hash64(path, idHash);
+            if (owners.contains(ownerHash)) {
+                return candidate;
+            }
+            if (ids.add(idHash)) {
+                owners.add(ownerHash);
+                if (suffix > 2) {
+                    collisions++;
+                }
+                return candidate;
+            }
+            candidate = id + separator + suffix;
+        }
+    }
+
+    /**
+     * @return number of components whose id collided with another one's
+     */
+    int getCollisions() {
+        return collisions;
+    }
+}
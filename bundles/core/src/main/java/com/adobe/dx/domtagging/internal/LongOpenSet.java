@@ -0,0 +1,111 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+/**
+ * Compact set of longs, with open addressing & linear probing in one single array, growing when half full.
+ * 0 marks free slots, and is stored apart.
+ */
+final class LongOpenSet {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] table;
+
+    private int mask;
+
+    private int size;
+
+    private boolean containsZero;
+
+    LongOpenSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expected expected number of values, table is sized for it
+     */
+    LongOpenSet(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+        table = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @param value value to add
+     * @return true if value was not there yet
+     */
+    boolean add(long value) {
+        if (value == 0L) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        int slot = slot(value);
+        while (table[slot] != 0L) {
+            if (table[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = value;
+        if (++size * 2 > table.length) {
+            grow();
+        }
+        return true;
+    }
+
+    boolean contains(long value) {
+        if (value == 0L) {
+            return containsZero;
+        }
+        int slot = slot(value);
+        while (table[slot] != 0L) {
+            if (table[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slot(long value) {
+        //values are expected to be hashes already, folding high bits is enough
+        return (int) (value ^ value >>> 32) & mask;
+    }
+
+    private void grow() {
+        long[] previous = table;
+        table = new long[previous.length * 2];
+        mask = table.length - 1;
+        for (long value : previous) {
+            if (value != 0L) {
+                int slot = slot(value);
+                while (table[slot] != 0L) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+
+import org.apache.jackrabbit.JcrConstants;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Request scoped memo of page ids, keyed by the path components are stored under (the one before their
+ * page's content node), so that a page path is looked up & hashed once per request, and of the current
+ * reference prefix
+ */
+class PageIdMemo {
+
+    static final String ATTRIBUTE = PageIdMemo.class.getName();
+
+    private static final String CONTENT_SEGMENT = "/" + JcrConstants.JCR_CONTENT;
+
+    private final Map<String, String> pageIds = new HashMap<>();
+
+    private Object reference;
+
+    private String referencePrefix;
+
+    /**
+     * @param request current request
+     * @return memo attached to that request, created if needed
+     */
+    static @NotNull PageIdMemo fromRequest(@NotNull ServletRequest request) {
+        Object memo = request.getAttribute(ATTRIBUTE);
+        if (memo instanceof PageIdMemo) {
+            return (PageIdMemo) memo;
+        }
+        PageIdMemo newMemo = new PageIdMemo();
+        request.setAttribute(ATTRIBUTE, newMemo);
+        return newMemo;
+    }
+
+    /**
+     * @param resourcePath path of a resource
+     * @return path of the resource's page if it is in a page content, resource path otherwise
+     */
+    static @NotNull String key(@NotNull String resourcePath) {
+        int index = resourcePath.indexOf(CONTENT_SEGMENT);
+        while (index >= 0) {
+            int end = index + CONTENT_SEGMENT.length();
+            if (end == resourcePath.length() || resourcePath.charAt(end) == '/') {
+                return resourcePath.substring(0, index);
+            }
+            index = resourcePath.indexOf(CONTENT_SEGMENT, end);
+        }
+        return resourcePath;
+    }
+
+    /**
+     * @return memoized page id for that resource, null if none
+     */
+    @Nullable String get(@NotNull String resourcePath) {
+        return pageIds.get(key(resourcePath));
+    }
+
+    /**
+     * stores a newly computed page id
+     */
+    void put(@NotNull String resourcePath, @NotNull String pageId) {
+        pageIds.put(key(resourcePath), pageId);
+    }
+
+    /**
+     * @param reference current reference id
+     * @param separator separator between reference & component ids
+     * @return prefix of component ids for that reference, built once per reference
+     */
+    @NotNull String getReferencePrefix(@NotNull Object reference, @NotNull String separator) {
+        if (!reference.equals(this.reference)) {
+            this.reference = reference;
+            referencePrefix = reference + separator;
+        }
+        return referencePrefix;
+    }
+}
@@ -0,0 +1,179 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single writer queue of page paths to tag out of replication: paths enqueued while they are still pending are
+ * coalesced, and pending paths are handed to the writer in batches, by one single thread. On shutdown, the batch
+ * being written is awaited (for a bounded time) before pending paths are handed back, so that a queue taking
+ * them over does not write at the same time.
+ */
+final class TaggingQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TaggingQueue.class);
+
+    private static final String THREAD_NAME = "dx-idtagging";
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+
+    private final Consumer<List<String>> writer;
+
+    private final int batchSize;
+
+    private final Executor executor;
+
+    private final Set<String> pending = new LinkedHashSet<>();
+
+    private boolean draining;
+
+    private boolean stopped;
+
+    /**
+     * @param writer tags a batch of page paths
+     * @param batchSize max number of paths per batch
+     */
+    TaggingQueue(@NotNull Consumer<List<String>> writer, int batchSize) {
+        this(writer, batchSize, newExecutor());
+    }
+
+    TaggingQueue(@NotNull Consumer<List<String>> writer, int batchSize, @NotNull Executor executor) {
+        this.writer = writer;
+        this.batchSize = Math.max(1, batchSize);
+        this.executor = executor;
+    }
+
+    private static ExecutorService newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @param path page path to tag, ignored if already pending. Once the queue is shut down, path is only kept
+     * pending, to be handed back.
+     */
+    void enqueue(@NotNull String path) {
+        boolean schedule;
+        synchronized (pending) {
+            pending.add(path);
+            schedule = !draining && !stopped;
+            draining = draining || schedule;
+        }
+        if (schedule) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                synchronized (pending) {
+                    // paths enqueued meanwhile did not schedule any drain, and would be stuck as well
+                    LOG.warn("queue is shut down, {} will be tagged on their next activation", pending);
+                    pending.clear();
+                    draining = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of paths waiting to be tagged
+     */
+    int size() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private void drain() {
+        List<String> batch = nextBatch();
+        while (!batch.isEmpty()) {
+            try {
+                writer.accept(batch);
+            } catch (RuntimeException e) {
+                LOG.error("unable to tag {}", batch, e);
+            }
+            batch = nextBatch();
+        }
+    }
+
+    /**
+     * @return next batch of pending paths, empty (and drain done) if there is none or if queue is stopped
+     */
+    private List<String> nextBatch() {
+        synchronized (pending) {
+            List<String> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            if (!stopped) {
+                for (Iterator<String> iterator = pending.iterator(); iterator.hasNext() && batch.size() < batchSize;) {
+                    batch.add(iterator.next());
+                    iterator.remove();
+                }
+            }
+            draining = !batch.isEmpty();
+            return batch;
+        }
+    }
+
+    /**
+     * stops the queue, and waits for a drain in progress to finish its current batch, for at most
+     * {@value #SHUTDOWN_TIMEOUT_SECONDS} seconds. Pending paths are then handed back so that they can be moved to
+     * another queue: they are not persisted, and thus lost if not.
+     *
+     * @return paths that were still pending
+     */
+    @NotNull List<String> shutdown() {
+        synchronized (pending) {
+            stopped = true;
+        }
+        if (executor instanceof ExecutorService) {
+            ExecutorService service = (ExecutorService) executor;
+            service.shutdown();
+            try {
+                if (!service.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    LOG.warn("current batch is still being tagged, handing pending paths over anyway");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (pending) {
+            List<String> left = new ArrayList<>(pending);
+            pending.clear();
+            return left;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics;
+
+/**
+ * Read only statistics of calls to an entry point. Percentiles are upper bounds of the latency range they
+ * fall in, ranges growing as powers of 2 microseconds.
+ */
+public final class CallStatistics {
+
+    private final long count;
+
+    private final long totalNanos;
+
+    private final long maxNanos;
+
+    private final long p50Micros;
+
+    private final long p90Micros;
+
+    private final long p99Micros;
+
+    public CallStatistics(long count, long totalNanos, long maxNanos, long p50Micros, long p90Micros,
+                          long p99Micros) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+    }
+
+    /**
+     * @return number of calls
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return overall time spent in those calls, in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    /**
+     * @return mean latency, in microseconds
+     */
+    public long getMeanMicros() {
+        return count > 0 ? totalNanos / count / 1000 : 0L;
+    }
+
+    /**
+     * @return longest call, in microseconds
+     */
+    public long getMaxMicros() {
+        return maxNanos / 1000;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP90Micros() {
+        return p90Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+}
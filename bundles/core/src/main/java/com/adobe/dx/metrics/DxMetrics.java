@@ -0,0 +1,85 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics;
+
+import java.util.Map;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Opt-in render time instrumentation: records call counts & latencies of DX entry points, so that slow
+ * components can be told apart. Service is only there when configured, callers should reference it optionally,
+ * and surround instrumented code with
+ * <pre>
+ * long start = metrics != null ? metrics.start() : 0L;
+ * try {
+ *     ...
+ * } finally {
+ *     if (start != 0L) {
+ *         metrics.record(NAME, qualifier, start);
+ *     }
+ * }
+ * </pre>
+ */
+public interface DxMetrics {
+
+    /**
+     * @return start time of a call, in nanoseconds, to be recorded later on
+     */
+    long start();
+
+    /**
+     * Records a call started at given time
+     *
+     * @param name name of the instrumented entry point
+     * @param qualifier optional qualifier of the call (e.g. a resource type), recorded separately
+     * @param start start time, as returned by {@link #start()}
+     */
+    void record(@NotNull String name, @Nullable String qualifier, long start);
+
+    /**
+     * @return statistics of the calls recorded so far, per name and qualifier, in name order
+     */
+    @NotNull Map<String, CallStatistics> getStatistics();
+
+    /**
+     * Counts an event (e.g. a cache hit) that is not worth a latency sample
+     *
+     * @param name name of the counted event
+     * @param qualifier optional qualifier of the event (e.g. hit or miss), counted separately
+     */
+    void increment(@NotNull String name, @Nullable String qualifier);
+
+    /**
+     * Adds an amount (e.g. a byte size) to a counter
+     *
+     * @param name name of the counter
+     * @param qualifier optional qualifier of the amount, counted separately
+     * @param amount amount to add
+     */
+    void add(@NotNull String name, @Nullable String qualifier, long amount);
+
+    /**
+     * @return counts of the events recorded so far, per name and qualifier, in name order
+     */
+    @NotNull Map<String, Long> getCounters();
+
+    /**
+     * clears all recorded calls & counters
+     */
+    void reset();
+}
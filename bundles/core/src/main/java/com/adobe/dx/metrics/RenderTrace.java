@@ -0,0 +1,168 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.ServletRequest;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Per request render trace, only there when debug tracing has been asked for the current request: records
+ * how much time each DX component spent in each render phase (bindings, style, id, ...). Instrumented code
+ * should look it up once and do nothing if it is absent:
+ * <pre>
+ * RenderTrace trace = RenderTrace.fromRequest(request);
+ * long start = trace != null ? trace.start() : 0L;
+ * try {
+ *     ...
+ * } finally {
+ *     if (trace != null) {
+ *         trace.record(resource.getPath(), RenderTrace.STYLE, start);
+ *     }
+ * }
+ * </pre>
+ */
+public final class RenderTrace {
+
+    /**
+     * request attribute a trace is stored at
+     */
+    public static final String ATTRIBUTE = RenderTrace.class.getName();
+
+    public static final String BINDINGS = "bindings";
+
+    public static final String STYLE = "style";
+
+    public static final String ID = "id";
+
+    public static final String MODEL = "model";
+
+    private final String id;
+
+    private final String uri;
+
+    private final long startNanos = System.nanoTime();
+
+    private long durationNanos = -1L;
+
+    private final Map<String, Map<String, Long>> components = new LinkedHashMap<>();
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+
+    /**
+     * @param id identifier of the trace
+     * @param uri uri of the traced request
+     */
+    public RenderTrace(@NotNull String id, @Nullable String uri) {
+        this.id = id;
+        this.uri = uri;
+    }
+
+    /**
+     * @param request current request
+     * @return trace of current request, null if request is not traced
+     */
+    public static @Nullable RenderTrace fromRequest(@Nullable ServletRequest request) {
+        Object trace = request != null ? request.getAttribute(ATTRIBUTE) : null;
+        return trace instanceof RenderTrace ? (RenderTrace) trace : null;
+    }
+
+    /**
+     * @return start time of a phase, in nanoseconds, to be recorded later on
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a render phase of a component, adding up with previous ones of the same component and phase
+     *
+     * @param component path of the rendered component
+     * @param phase render phase
+     * @param start start time, as returned by {@link #start()}
+     */
+    public synchronized void record(@NotNull String component, @NotNull String phase, long start) {
+        long elapsed = System.nanoTime() - start;
+        components.computeIfAbsent(component, c -> new LinkedHashMap<>()).merge(phase, elapsed, Long::sum);
+        phases.merge(phase, elapsed, Long::sum);
+    }
+
+    /**
+     * Sets the current value of a per request counter, e.g. bindings built versus reused so far
+     *
+     * @param name name of the counter
+     * @param value current value
+     */
+    public synchronized void count(@NotNull String name, long value) {
+        counters.put(name, value);
+    }
+
+    /**
+     * marks the traced request as done
+     */
+    public synchronized void finish() {
+        if (durationNanos < 0) {
+            durationNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    public @NotNull String getId() {
+        return id;
+    }
+
+    public @Nullable String getUri() {
+        return uri;
+    }
+
+    /**
+     * @return duration of the traced request in nanoseconds, or so far if not finished
+     */
+    public synchronized long getDurationNanos() {
+        return durationNanos >= 0 ? durationNanos : System.nanoTime() - startNanos;
+    }
+
+    /**
+     * @return copy of time spent in nanoseconds per phase, for all components
+     */
+    public synchronized @NotNull Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+    }
+
+    /**
+     * @return copy of time spent in nanoseconds per phase, per component path, in order of first record
+     */
+    public synchronized @NotNull Map<String, Map<String, Long>> getComponents() {
+        Map<String, Map<String, Long>> copy = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Long>> entry : components.entrySet()) {
+            copy.put(entry.getKey(), Collections.unmodifiableMap(new LinkedHashMap<>(entry.getValue())));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    /**
+     * @return copy of per request counters, in order of first count
+     */
+    public synchronized @NotNull Map<String, Long> getCounters() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(counters));
+    }
+}
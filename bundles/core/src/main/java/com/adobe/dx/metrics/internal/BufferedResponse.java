@@ -0,0 +1,144 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Response holding back whatever is written in it, so that headers can still be set once rendering is done.
+ * Only used for traced requests, as it keeps the whole body in memory. Flushing is held back as well, so the
+ * response is only reported as committed once it really is: when released, or when an error or a redirect has
+ * been sent, held back body being discarded.
+ */
+class BufferedResponse extends HttpServletResponseWrapper {
+
+    private ByteArrayOutputStream bytes;
+
+    private ServletOutputStream outputStream;
+
+    private CharArrayWriter chars;
+
+    private PrintWriter writer;
+
+    BufferedResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("writer has already been obtained");
+        }
+        if (outputStream == null) {
+            bytes = new ByteArrayOutputStream();
+            outputStream = new ServletOutputStream() {
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void write(int b) {
+                    bytes.write(b);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) {
+                    bytes.write(b, off, len);
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (outputStream != null) {
+            throw new IllegalStateException("output stream has already been obtained");
+        }
+        if (writer == null) {
+            chars = new CharArrayWriter();
+            writer = new PrintWriter(chars);
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() {
+        //held back until release
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        resetBuffer();
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        resetBuffer();
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        resetBuffer();
+        super.sendRedirect(location);
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (bytes != null) {
+            bytes.reset();
+        }
+        if (chars != null) {
+            writer.flush();
+            chars.reset();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetBuffer();
+    }
+
+    /**
+     * writes held back body to the wrapped response
+     */
+    void release() throws IOException {
+        if (bytes != null) {
+            bytes.writeTo(getResponse().getOutputStream());
+        } else if (chars != null) {
+            writer.flush();
+            chars.writeTo(getResponse().getWriter());
+        }
+        getResponse().flushBuffer();
+    }
+}
@@ -0,0 +1,139 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import com.adobe.dx.metrics.CallStatistics;
+import com.adobe.dx.metrics.DxMetrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * In memory metrics, one histogram per name & qualifier. Once the configured number of histograms is reached,
+ * new qualifiers of a name are recorded together as "other".
+ */
+@Component(service = DxMetrics.class, configurationPolicy = ConfigurationPolicy.REQUIRE)
+@Designate(ocd = DxMetricsImpl.Configuration.class)
+public class DxMetricsImpl implements DxMetrics {
+
+    static final String QUALIFIER_SEPARATOR = ":";
+
+    static final String OTHER = "other";
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    int maxNames = 500;
+
+    @Activate
+    @Modified
+    public void activate(Configuration configuration) {
+        maxNames = configuration.maxNames();
+    }
+
+    @Override
+    public long start() {
+        long now = System.nanoTime();
+        //0 is reserved to calls that are not recorded
+        return now != 0L ? now : 1L;
+    }
+
+    @Override
+    public void record(@NotNull String name, @Nullable String qualifier, long start) {
+        if (start != 0L) {
+            long elapsed = System.nanoTime() - start;
+            getHistogram(name, qualifier).record(elapsed);
+        }
+    }
+
+    private LatencyHistogram getHistogram(@NotNull String name, @Nullable String qualifier) {
+        String key = qualifier != null ? name + QUALIFIER_SEPARATOR + qualifier : name;
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            if (histograms.size() >= maxNames) {
+                key = name + QUALIFIER_SEPARATOR + OTHER;
+            }
+            histogram = histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        return histogram;
+    }
+
+    @Override
+    public void increment(@NotNull String name, @Nullable String qualifier) {
+        add(name, qualifier, 1L);
+    }
+
+    @Override
+    public void add(@NotNull String name, @Nullable String qualifier, long amount) {
+        String key = qualifier != null ? name + QUALIFIER_SEPARATOR + qualifier : name;
+        AtomicLong counter = counters.get(key);
+        if (counter == null) {
+            if (counters.size() >= maxNames) {
+                key = name + QUALIFIER_SEPARATOR + OTHER;
+            }
+            counter = counters.computeIfAbsent(key, k -> new AtomicLong());
+        }
+        counter.addAndGet(amount);
+    }
+
+    @Override
+    public @NotNull Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Map.Entry<String, AtomicLong> entry : counters.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().get());
+        }
+        return values;
+    }
+
+    @Override
+    public @NotNull Map<String, CallStatistics> getStatistics() {
+        Map<String, CallStatistics> statistics = new TreeMap<>();
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            statistics.put(entry.getKey(), entry.getValue().snapshot());
+        }
+        return statistics;
+    }
+
+    @Override
+    public void reset() {
+        histograms.clear();
+        counters.clear();
+    }
+
+    @ObjectClassDefinition(name = "Adobe DX Metrics")
+    public @interface Configuration {
+
+        @AttributeDefinition(
+            name = "Max names",
+            description = "maximum number of distinct names & qualifiers recorded, further qualifiers being "
+                + "recorded as 'other'"
+        )
+        int maxNames() default 500;
+    }
+}
@@ -0,0 +1,114 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import com.adobe.dx.metrics.CallStatistics;
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.granite.jmx.annotation.AnnotatedStandardMBean;
+
+import java.util.Map;
+
+import javax.management.DynamicMBean;
+import javax.management.NotCompliantMBeanException;
+import javax.management.openmbean.CompositeDataSupport;
+import javax.management.openmbean.CompositeType;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.OpenType;
+import javax.management.openmbean.SimpleType;
+import javax.management.openmbean.TabularData;
+import javax.management.openmbean.TabularDataSupport;
+import javax.management.openmbean.TabularType;
+
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+@Component(service = DynamicMBean.class, property = {
+    "jmx.objectname=com.adobe.dx:type=Metrics"
+})
+/**
+ * exposes DX metrics through JMX, when they are configured
+ */
+public class DxMetricsMBeanImpl extends AnnotatedStandardMBean implements DxMetricsMBean {
+
+    static final String NAME = "name";
+
+    static final String[] ITEMS = { NAME, "count", "meanMicros", "p50Micros", "p90Micros", "p99Micros",
+        "maxMicros", "totalMillis" };
+
+    static final String[] COUNTER_ITEMS = { NAME, "count" };
+
+    @Reference
+    DxMetrics metrics;
+
+    public DxMetricsMBeanImpl() throws NotCompliantMBeanException {
+        super(DxMetricsMBean.class);
+    }
+
+    static TabularType getType() throws OpenDataException {
+        OpenType<?>[] types = new OpenType<?>[ITEMS.length];
+        types[0] = SimpleType.STRING;
+        for (int i = 1; i < types.length; i++) {
+            types[i] = SimpleType.LONG;
+        }
+        CompositeType row = new CompositeType("callStatistics", "statistics of an entry point", ITEMS, ITEMS,
+            types);
+        return new TabularType("statistics", "statistics per entry point", row, new String[] { NAME });
+    }
+
+    static TabularType getCounterType() throws OpenDataException {
+        CompositeType row = new CompositeType("counter", "count of an event", COUNTER_ITEMS, COUNTER_ITEMS,
+            new OpenType<?>[] { SimpleType.STRING, SimpleType.LONG });
+        return new TabularType("counters", "count per event", row, new String[] { NAME });
+    }
+
+    @Override
+    public TabularData getStatistics() throws OpenDataException {
+        TabularType type = getType();
+        TabularDataSupport data = new TabularDataSupport(type);
+        for (Map.Entry<String, CallStatistics> entry : metrics.getStatistics().entrySet()) {
+            CallStatistics statistics = entry.getValue();
+            data.put(new CompositeDataSupport(type.getRowType(), ITEMS, new Object[] {
+                entry.getKey(),
+                statistics.getCount(),
+                statistics.getMeanMicros(),
+                statistics.getP50Micros(),
+                statistics.getP90Micros(),
+                statistics.getP99Micros(),
+                statistics.getMaxMicros(),
+                statistics.getTotalNanos() / 1000000L
+            }));
+        }
+        return data;
+    }
+
+    @Override
+    public TabularData getCounters() throws OpenDataException {
+        TabularType type = getCounterType();
+        TabularDataSupport data = new TabularDataSupport(type);
+        for (Map.Entry<String, Long> entry : metrics.getCounters().entrySet()) {
+            data.put(new CompositeDataSupport(type.getRowType(), COUNTER_ITEMS, new Object[] {
+                entry.getKey(),
+                entry.getValue()
+            }));
+        }
+        return data;
+    }
+
+    @Override
+    public void reset() {
+        metrics.reset();
+    }
+}
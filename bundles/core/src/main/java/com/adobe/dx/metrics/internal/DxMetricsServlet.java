@@ -0,0 +1,120 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import static org.apache.sling.api.servlets.HttpConstants.METHOD_GET;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_EXTENSIONS;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_METHODS;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_PATHS;
+
+import com.adobe.dx.metrics.CallStatistics;
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.utils.UserUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Serves DX metrics as JSON, when they are configured, to users of the allowed groups only. Path should not be
+ * reachable from publish dispatcher.
+ */
+@Component(
+    service = Servlet.class,
+    property = {
+        SLING_SERVLET_PATHS + "=" + DxMetricsServlet.PATH,
+        SLING_SERVLET_EXTENSIONS + "=json",
+        SLING_SERVLET_METHODS + "=" + METHOD_GET})
+@Designate(ocd = DxMetricsServlet.Configuration.class)
+public class DxMetricsServlet extends SlingSafeMethodsServlet {
+
+    static final String PATH = "/bin/dx/metrics";
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    private static final String UTF8_ENCODING_NAME = "UTF-8";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Reference
+    private transient DxMetrics metrics;
+
+    String[] allowedGroups = {"administrators"};
+
+    @Activate
+    @Modified
+    public void activate(Configuration configuration) {
+        allowedGroups = configuration.allowedGroups();
+    }
+
+    @Override
+    protected void doGet(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response)
+        throws IOException {
+        if (!UserUtil.isMemberOf(request.getResourceResolver(), allowedGroups)) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding(UTF8_ENCODING_NAME);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(response.getWriter())) {
+            json.writeStartObject();
+            for (Map.Entry<String, CallStatistics> entry : metrics.getStatistics().entrySet()) {
+                CallStatistics statistics = entry.getValue();
+                json.writeObjectFieldStart(entry.getKey());
+                json.writeNumberField("count", statistics.getCount());
+                json.writeNumberField("meanMicros", statistics.getMeanMicros());
+                json.writeNumberField("p50Micros", statistics.getP50Micros());
+                json.writeNumberField("p90Micros", statistics.getP90Micros());
+                json.writeNumberField("p99Micros", statistics.getP99Micros());
+                json.writeNumberField("maxMicros", statistics.getMaxMicros());
+                json.writeNumberField("totalMillis", statistics.getTotalNanos() / 1000000L);
+                json.writeEndObject();
+            }
+            for (Map.Entry<String, Long> entry : metrics.getCounters().entrySet()) {
+                json.writeObjectFieldStart(entry.getKey());
+                json.writeNumberField("count", entry.getValue());
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+        }
+    }
+
+    @ObjectClassDefinition(name = "Adobe DX Metrics Servlet")
+    public @interface Configuration {
+
+        @AttributeDefinition(
+            name = "Allowed groups",
+            description = "groups whose authenticated members can read DX metrics, admin always can"
+        )
+        String[] allowedGroups() default {"administrators"};
+    }
+}
@@ -0,0 +1,92 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import com.adobe.dx.metrics.CallStatistics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free latency histogram, with ranges growing as powers of 2 microseconds: first one is under one
+ * microsecond, i-th one is up to 2^i microseconds, last one being unbounded.
+ */
+final class LatencyHistogram {
+
+    static final int BUCKETS = 32;
+
+    private static final long NANOS_PER_MICRO = 1000L;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long duration = Math.max(0L, nanos);
+        buckets.incrementAndGet(bucket(duration));
+        total.addAndGet(duration);
+        max.accumulateAndGet(duration, Math::max);
+    }
+
+    static int bucket(long nanos) {
+        long micros = nanos / NANOS_PER_MICRO;
+        return micros == 0 ? 0 : Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * @return upper bound, in microseconds, of given bucket
+     */
+    static long upperBound(int bucket) {
+        return 1L << bucket;
+    }
+
+    /**
+     * @param counts count of each bucket
+     * @param total overall count
+     * @param percentile percentile to compute, between 0 & 100
+     * @return upper bound of the bucket that percentile falls in, 0 if there is nothing
+     */
+    static long percentile(long[] counts, long total, int percentile) {
+        if (total == 0) {
+            return 0L;
+        }
+        long target = Math.max(1L, (total * percentile + 99) / 100);
+        long cumulated = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulated += counts[i];
+            if (cumulated >= target) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(counts.length - 1);
+    }
+
+    /**
+     * @return current statistics, calls being recorded meanwhile possibly being partially accounted
+     */
+    CallStatistics snapshot() {
+        long[] counts = new long[BUCKETS];
+        long sum = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            sum += counts[i];
+        }
+        return new CallStatistics(sum, total.get(), max.get(), percentile(counts, sum, 50),
+            percentile(counts, sum, 90), percentile(counts, sum, 99));
+    }
+}
@@ -0,0 +1,231 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import com.adobe.dx.metrics.RenderTrace;
+import com.adobe.dx.utils.UserUtil;
+
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.Constants;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Modified;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+
+/**
+ * Debug mode tracing DX render phases of requests sent with the configured header, by users of the allowed groups:
+ * response body is held back until rendering is done so that the trace can be sent as a
+ * <code>Server-Timing</code> header, along with the random id of its full JSON version, kept in memory for
+ * {@link RenderTraceServlet}. Components only show up in the header by rank, their paths are only in the JSON.
+ */
+@Component(service = { Filter.class, RenderTraceFilter.class },
+    property = {
+        "sling.filter.scope=REQUEST",
+        Constants.SERVICE_RANKING + ":Integer=-2500"
+    },
+    configurationPolicy = ConfigurationPolicy.REQUIRE)
+@Designate(ocd = RenderTraceFilter.Configuration.class)
+public class RenderTraceFilter implements Filter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    static final String TRACE_ID_HEADER = "X-DX-Trace-Id";
+
+    static final String METRIC_PREFIX = "dx-";
+
+    private Map<String, RenderTrace> traces = new LinkedHashMap<>();
+
+    boolean enabled;
+
+    String header = "X-DX-Trace";
+
+    int maxComponents = 5;
+
+    String[] allowedGroups = {"administrators"};
+
+    @Activate
+    @Modified
+    public void activate(Configuration configuration) {
+        enabled = configuration.enabled();
+        header = configuration.header();
+        maxComponents = configuration.maxComponents();
+        allowedGroups = configuration.allowedGroups();
+        int keptTraces = configuration.keptTraces();
+        synchronized (this) {
+            traces = new LinkedHashMap<String, RenderTrace>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, RenderTrace> eldest) {
+                    return size() > keptTraces;
+                }
+            };
+        }
+    }
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        //nothing to do
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+        throws IOException, ServletException {
+        if (!enabled || !(request instanceof SlingHttpServletRequest) || !(response instanceof HttpServletResponse)
+            || StringUtils.isBlank(((HttpServletRequest) request).getHeader(header))
+            || !isAllowed((SlingHttpServletRequest) request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletResponse httpResponse = (HttpServletResponse) response;
+        RenderTrace trace = new RenderTrace(UUID.randomUUID().toString(),
+            ((HttpServletRequest) request).getRequestURI());
+        BufferedResponse buffered = new BufferedResponse(httpResponse);
+        request.setAttribute(RenderTrace.ATTRIBUTE, trace);
+        try {
+            chain.doFilter(request, buffered);
+        } finally {
+            request.removeAttribute(RenderTrace.ATTRIBUTE);
+            trace.finish();
+            keep(trace);
+            if (!httpResponse.isCommitted()) {
+                httpResponse.setHeader(SERVER_TIMING, toServerTiming(trace, maxComponents));
+                httpResponse.setHeader(TRACE_ID_HEADER, trace.getId());
+            }
+            buffered.release();
+        }
+    }
+
+    /**
+     * @return true if tracing is enabled, and current user is allowed to trace requests & read traces
+     */
+    public boolean isAllowed(@NotNull SlingHttpServletRequest request) {
+        return enabled && UserUtil.isMemberOf(request.getResourceResolver(), allowedGroups);
+    }
+
+    private synchronized void keep(RenderTrace trace) {
+        traces.put(trace.getId(), trace);
+    }
+
+    /**
+     * @param id id of a trace
+     * @return kept trace with that id, null if there is none
+     */
+    public synchronized @Nullable RenderTrace getTrace(@NotNull String id) {
+        return traces.get(id);
+    }
+
+    /**
+     * @return kept traces, most recent last
+     */
+    public synchronized @NotNull Collection<RenderTrace> getTraces() {
+        return new ArrayList<>(traces.values());
+    }
+
+    /**
+     * @return Server-Timing value with total time per phase, then the slowest components, only named by rank
+     */
+    static @NotNull String toServerTiming(@NotNull RenderTrace trace, int maxComponents) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Long> phase : trace.getPhases().entrySet()) {
+            appendMetric(builder, METRIC_PREFIX + phase.getKey(), phase.getValue());
+        }
+        List<Map.Entry<String, Long>> totals = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Long>> component : trace.getComponents().entrySet()) {
+            long total = 0L;
+            for (long nanos : component.getValue().values()) {
+                total += nanos;
+            }
+            totals.add(new AbstractMap.SimpleEntry<>(component.getKey(), total));
+        }
+        totals.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        for (int i = 0; i < Math.min(maxComponents, totals.size()); i++) {
+            appendMetric(builder, METRIC_PREFIX + "c" + (i + 1), totals.get(i).getValue());
+        }
+        appendMetric(builder, METRIC_PREFIX + "total", trace.getDurationNanos());
+        return builder.toString();
+    }
+
+    private static void appendMetric(StringBuilder builder, String name, long nanos) {
+        if (builder.length() > 0) {
+            builder.append(", ");
+        }
+        builder.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1000000d));
+    }
+
+    @Override
+    public void destroy() {
+        //nothing to do
+    }
+
+    @ObjectClassDefinition(name = "Adobe DX Render Trace")
+    public @interface Configuration {
+
+        @AttributeDefinition(
+            name = "Enabled",
+            description = "if checked, requests sent with the trace header by allowed users get a Server-Timing "
+                + "header with DX render phases. Should not be enabled on publish instances exposed to the public"
+        )
+        boolean enabled() default false;
+
+        @AttributeDefinition(
+            name = "Allowed groups",
+            description = "groups whose authenticated members can trace requests and read traces, admin always can"
+        )
+        String[] allowedGroups() default {"administrators"};
+
+        @AttributeDefinition(
+            name = "Header",
+            description = "request header turning tracing on, with any non blank value"
+        )
+        String header() default "X-DX-Trace";
+
+        @AttributeDefinition(
+            name = "Slowest components",
+            description = "number of slowest components listed in Server-Timing header"
+        )
+        int maxComponents() default 5;
+
+        @AttributeDefinition(
+            name = "Kept traces",
+            description = "number of most recent traces kept in memory to be served as JSON"
+        )
+        int keptTraces() default 20;
+    }
+}
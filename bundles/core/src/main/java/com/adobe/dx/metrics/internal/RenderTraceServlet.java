@@ -0,0 +1,129 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import static org.apache.sling.api.servlets.HttpConstants.METHOD_GET;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_EXTENSIONS;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_METHODS;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_PATHS;
+
+import com.adobe.dx.metrics.RenderTrace;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.servlet.Servlet;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+
+/**
+ * Serves render traces kept by {@link RenderTraceFilter} as JSON, all of them or the one whose id is given as
+ * <code>id</code> parameter, to users allowed by that filter only. Path should not be reachable from publish
+ * dispatcher.
+ */
+@Component(
+    service = Servlet.class,
+    property = {
+        SLING_SERVLET_PATHS + "=" + RenderTraceServlet.PATH,
+        SLING_SERVLET_EXTENSIONS + "=json",
+        SLING_SERVLET_METHODS + "=" + METHOD_GET})
+public class RenderTraceServlet extends SlingSafeMethodsServlet {
+
+    static final String PATH = "/bin/dx/trace";
+
+    static final String PN_ID = "id";
+
+    private static final String CONTENT_TYPE = "application/json";
+
+    private static final String UTF8_ENCODING_NAME = "UTF-8";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final double NANOS_PER_MILLI = 1000000d;
+
+    @Reference
+    private transient RenderTraceFilter filter;
+
+    @Override
+    protected void doGet(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response)
+        throws IOException {
+        if (!filter.isAllowed(request)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        String id = request.getParameter(PN_ID);
+        Collection<RenderTrace> traces;
+        if (StringUtils.isNotBlank(id)) {
+            RenderTrace trace = filter.getTrace(id);
+            if (trace == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+            traces = Collections.singletonList(trace);
+        } else {
+            traces = filter.getTraces();
+        }
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding(UTF8_ENCODING_NAME);
+        try (JsonGenerator json = JSON_FACTORY.createGenerator(response.getWriter())) {
+            json.writeStartArray();
+            for (RenderTrace trace : traces) {
+                writeTrace(json, trace);
+            }
+            json.writeEndArray();
+        }
+    }
+
+    private void writeTrace(JsonGenerator json, RenderTrace trace) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("id", trace.getId());
+        json.writeStringField("uri", trace.getUri());
+        json.writeNumberField("totalMillis", trace.getDurationNanos() / NANOS_PER_MILLI);
+        json.writeObjectFieldStart("phases");
+        writeMillis(json, trace.getPhases());
+        json.writeEndObject();
+        json.writeObjectFieldStart("components");
+        for (Map.Entry<String, Map<String, Long>> component : trace.getComponents().entrySet()) {
+            json.writeObjectFieldStart(component.getKey());
+            writeMillis(json, component.getValue());
+            json.writeEndObject();
+        }
+        json.writeEndObject();
+        json.writeObjectFieldStart("counters");
+        for (Map.Entry<String, Long> counter : trace.getCounters().entrySet()) {
+            json.writeNumberField(counter.getKey(), counter.getValue());
+        }
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private void writeMillis(JsonGenerator json, Map<String, Long> nanos) throws IOException {
+        for (Map.Entry<String, Long> entry : nanos.entrySet()) {
+            json.writeNumberField(entry.getKey() + "Millis", entry.getValue() / NANOS_PER_MILLI);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.responsive.internal;
+
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.responsive.ResponsiveConfiguration;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.apache.sling.caconfig.ConfigurationBuilder;
+import org.apache.sling.caconfig.resource.ConfigurationResourceResolver;
+import org.jetbrains.annotations.NotNull;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches resolved breakpoints per context aware configuration context path, so that components sharing
+ * the same context don't resolve the same configuration again and again.
+ *
+ * Returned arrays are shared between all callers, in configured order, that is the order breakpoints CSS is
+ * cascaded in, and must <b>not</b> be modified. Any change under configuration roots flushes the cache.
+ */
+@Component(service = { BreakpointCache.class, ResourceChangeListener.class },
+    property = {
+        ResourceChangeListener.PATHS + "=/conf",
+        ResourceChangeListener.PATHS + "=/apps/conf",
+        ResourceChangeListener.PATHS + "=/libs/conf"
+    })
+public class BreakpointCache implements ResourceChangeListener {
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    /**
+     * key used for resources that don't have any context path (global configuration)
+     */
+    static final String NO_CONTEXT = "/";
+
+    static final Breakpoint[] NO_BREAKPOINTS = new Breakpoint[0];
+
+    static final String METRIC_CACHE = "breakpoints.cache";
+
+    static final String HIT = "hit";
+
+    static final String MISS = "miss";
+
+    private final Map<String, Breakpoint[]> cache = new ConcurrentHashMap<>();
+
+    @Reference
+    ConfigurationResourceResolver configurationResolver;
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    volatile DxMetrics metrics;
+
+    /**
+     * @param resource resource for which we want breakpoints
+     * @return shared array of breakpoints configured for that resource's context
+     */
+    public @NotNull Breakpoint[] getBreakpoints(@NotNull Resource resource) {
+        String contextPath = configurationResolver.getContextPath(resource);
+        String key = contextPath != null ? contextPath : NO_CONTEXT;
+        Breakpoint[] breakpoints = cache.get(key);
+        DxMetrics dxMetrics = metrics;
+        if (breakpoints != null) {
+            if (dxMetrics != null) {
+                dxMetrics.increment(METRIC_CACHE, HIT);
+            }
+            return breakpoints;
+        }
+        if (dxMetrics != null) {
+            dxMetrics.increment(METRIC_CACHE, MISS);
+        }
+        breakpoints = resolveBreakpoints(resource);
+        Breakpoint[] existing = cache.putIfAbsent(key, breakpoints);
+        return existing != null ? existing : breakpoints;
+    }
+
+    /**
+     * Resolves breakpoints through context aware configuration, without any caching
+     *
+     * @param resource resource for which we want breakpoints
+     * @return new array of breakpoints, in configured order
+     */
+    public static @NotNull Breakpoint[] resolveBreakpoints(@NotNull Resource resource) {
+        ConfigurationBuilder builder = resource.adaptTo(ConfigurationBuilder.class);
+        Breakpoint[] breakpoints = builder != null ? builder.as(ResponsiveConfiguration.class).breakpoints() : null;
+        if (breakpoints == null || breakpoints.length == 0) {
+            return NO_BREAKPOINTS;
+        }
+        return Arrays.copyOf(breakpoints, breakpoints.length);
+    }
+
+    @Override
+    public void onChange(@NotNull List<ResourceChange> changes) {
+        logger.debug("{} configuration changes, flushing {} cached breakpoint sets", changes.size(), cache.size());
+        cache.clear();
+    }
+}
@@ -0,0 +1,125 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.responsive.internal;
+
+import com.adobe.dx.responsive.Breakpoint;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+import org.apache.commons.lang.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Precomputed breakpoint keys & suffixes of a breakpoint set, together with interned responsive property
+ * names per base key. Instances are shared per breakpoint array (which, when coming from
+ * {@link BreakpointCache}, is itself shared between requests) through a small lock free identity cache,
+ * each array taking one slot picked by its identity hash; a colliding array simply replaces the previous
+ * instance, that will be built again on its next use.
+ */
+final class ResponsiveKeys {
+
+    /**
+     * above that number of base keys, responsive names are computed without being interned
+     */
+    static final int MAX_INTERNED = 1024;
+
+    /**
+     * number of slots of the identity cache, must be a power of 2
+     */
+    static final int SLOTS = 64;
+
+    private static final AtomicReferenceArray<ResponsiveKeys> INSTANCES = new AtomicReferenceArray<>(SLOTS);
+
+    private final Breakpoint[] breakpoints;
+
+    final String[] keys;
+
+    final String[] suffixes;
+
+    /**
+     * indexes of breakpoints having a non empty suffix, longest suffix first, so that a property name is
+     * matched against the most specific suffix
+     */
+    final int[] matchOrder;
+
+    private final Map<String, String[]> names = new ConcurrentHashMap<>();
+
+    private ResponsiveKeys(Breakpoint[] breakpoints) {
+        this.breakpoints = breakpoints;
+        keys = new String[breakpoints.length];
+        suffixes = new String[breakpoints.length];
+        for (int i = 0; i < breakpoints.length; i++) {
+            keys[i] = breakpoints[i].key();
+            suffixes[i] = breakpoints[i].propertySuffix();
+        }
+        matchOrder = IntStream.range(0, suffixes.length)
+            .filter(i -> StringUtils.isNotEmpty(suffixes[i]))
+            .boxed()
+            .sorted(Comparator.comparingInt((Integer i) -> suffixes[i].length()).reversed())
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    /**
+     * @param breakpoints breakpoint set
+     * @return shared keys for that breakpoint set
+     */
+    static @NotNull ResponsiveKeys of(@NotNull Breakpoint[] breakpoints) {
+        int slot = System.identityHashCode(breakpoints) & (SLOTS - 1);
+        ResponsiveKeys instance = INSTANCES.get(slot);
+        if (instance == null || instance.breakpoints != breakpoints) {
+            instance = new ResponsiveKeys(breakpoints);
+            INSTANCES.set(slot, instance);
+        }
+        return instance;
+    }
+
+    /**
+     * @param base base property name
+     * @return responsive property names for that base, one per breakpoint, in breakpoint order
+     */
+    @NotNull String[] names(@NotNull String base) {
+        String[] respNames = names.get(base);
+        if (respNames == null) {
+            respNames = new String[suffixes.length];
+            for (int i = 0; i < suffixes.length; i++) {
+                respNames[i] = base + suffixes[i];
+            }
+            if (names.size() < MAX_INTERNED) {
+                names.putIfAbsent(base, respNames);
+            }
+        }
+        return respNames;
+    }
+
+    /**
+     * @param key breakpoint key
+     * @return index of that key, -1 if not found
+     */
+    int indexOf(Object key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (Objects.equals(keys[i], key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
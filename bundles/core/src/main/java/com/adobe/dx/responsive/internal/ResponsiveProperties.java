@@ -20,9 +20,12 @@ import com.adobe.dx.responsive.Breakpoint;
 import com.adobe.dx.responsive.ResponsiveConfiguration;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.sling.api.resource.ValueMap;
@@ -31,58 +34,155 @@ import org.jetbrains.annotations.Nullable;
 
 /**
  * simply check for get operation the required property with and ordered list of
- * suffix. Allowing several properties
+ * suffix. Allowing several properties.
+ *
+ * Results are {@link BreakpointValues}, computed once per key and per instance. Any bulk read operation
+ * (size, iteration, ...) triggers one single scan of the underlying properties, finding base keys by breakpoint
+ * suffix into a snapshot that serves all subsequent bulk reads, while {@link #get(Object)} always looks up the
+ * given key, so that it answers the same before and after a bulk read. Instances can be read from several
+ * threads, as long as underlying properties can.
  */
 public class ResponsiveProperties implements Map<String, Object> {
 
-    private final Breakpoint[] breakpoints;
+    /**
+     * marker of a key already looked up with no value
+     */
+    private static final Object NO_VALUE = new Object();
+
+    private final ResponsiveKeys keys;
     private ValueMap properties;
+    private final Map<String, Object> cache = new ConcurrentHashMap<>();
+    private volatile Map<String, Object> snapshot;
+    private volatile Map<String, Map<String, String>> table;
 
     public ResponsiveProperties(final ResponsiveConfiguration configuration, ValueMap properties) {
-        breakpoints = configuration.breakpoints();
-        this.properties = properties;
+        this(configuration.breakpoints(), properties);
     }
 
-    private String computeResponsiveResourceName(String name, Breakpoint breakpoint) {
-        return name + breakpoint.propertySuffix();
+    /**
+     * @param breakpoints breakpoints to consider, in order (array is not modified)
+     * @param properties properties to read responsive values from
+     */
+    public ResponsiveProperties(final Breakpoint[] breakpoints, ValueMap properties) {
+        this.keys = ResponsiveKeys.of(breakpoints);
+        this.properties = properties;
     }
 
     @Override
     public Object get(Object key) {
         if (key != null) {
-            boolean empty = true;
-            LinkedHashMap<String,String> breakpointValues = new LinkedHashMap<>();
-            for (Breakpoint breakpoint : breakpoints) {
-                String respKey = computeResponsiveResourceName(key.toString(), breakpoint);
-                String value = properties.get(respKey, String.class);
-                empty &= StringUtils.isBlank(value);
-                breakpointValues.put(breakpoint.key(), value);
+            Object result = cache.computeIfAbsent(key.toString(), this::computeValues);
+            return result != NO_VALUE ? result : null;
+        }
+        return null;
+    }
+
+    private Object computeValues(String base) {
+        String[] names = keys.names(base);
+        String[] values = null;
+        for (int i = 0; i < names.length; i++) {
+            String value = properties.get(names[i], String.class);
+            if (value != null) {
+                if (values == null) {
+                    values = new String[names.length];
+                }
+                values[i] = value;
             }
-            if (!empty) {
-                return breakpointValues;
+        }
+        return toBreakpointValues(values);
+    }
+
+    private Object toBreakpointValues(String[] values) {
+        if (values != null) {
+            for (String value : values) {
+                if (StringUtils.isNotBlank(value)) {
+                    return new BreakpointValues(keys, values);
+                }
             }
         }
-        return null;
+        return NO_VALUE;
+    }
+
+    /**
+     * scans once all underlying properties, and finds their base key. Each property is matched against
+     * the longest breakpoint suffix it ends with: with both <code>Landscape</code> & <code>MobileLandscape</code>
+     * suffixes, <code>widthMobileLandscape</code> gives a <code>width</code> key, and not a
+     * <code>widthMobile</code> one as well. Breakpoints with an empty suffix don't match any property. Values of
+     * those base keys are then the ones {@link #get(Object)} looks up.
+     *
+     * @return read only map of base key to its breakpoint values, for keys having at least one value
+     */
+    Map<String, Object> getSnapshot() {
+        Map<String, Object> current = snapshot;
+        if (current == null) {
+            Set<String> bases = new LinkedHashSet<>();
+            for (String name : properties.keySet()) {
+                for (int i : keys.matchOrder) {
+                    String suffix = keys.suffixes[i];
+                    if (name.length() > suffix.length() && name.endsWith(suffix)) {
+                        bases.add(name.substring(0, name.length() - suffix.length()));
+                        break;
+                    }
+                }
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (String base : bases) {
+                Object values = get(base);
+                if (values != null) {
+                    map.put(base, values);
+                }
+            }
+            current = Collections.unmodifiableMap(map);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * Exports all responsive values, per breakpoint
+     *
+     * @return read only map of breakpoint key to a map of base key to its value for that breakpoint, only
+     * containing non null values, in breakpoint order
+     */
+    public @NotNull Map<String, Map<String, String>> toBreakpointTable() {
+        Map<String, Map<String, String>> current = table;
+        if (current == null) {
+            Map<String, Map<String, String>> map = new LinkedHashMap<>();
+            for (String key : keys.keys) {
+                map.put(key, new LinkedHashMap<>());
+            }
+            for (Map.Entry<String, Object> entry : getSnapshot().entrySet()) {
+                for (Map.Entry<String, String> value : ((BreakpointValues) entry.getValue()).entrySet()) {
+                    if (value.getValue() != null) {
+                        map.get(value.getKey()).put(entry.getKey(), value.getValue());
+                    }
+                }
+            }
+            map.replaceAll((key, values) -> Collections.unmodifiableMap(values));
+            current = Collections.unmodifiableMap(map);
+            table = current;
+        }
+        return current;
     }
 
     @Override
     public int size() {
-        throw new UnsupportedOperationException();
+        return getSnapshot().size();
     }
 
     @Override
     public boolean isEmpty() {
-        throw new UnsupportedOperationException();
+        return getSnapshot().isEmpty();
     }
 
     @Override
     public boolean containsKey(Object key) {
-        throw new UnsupportedOperationException();
+        return get(key) != null;
     }
 
     @Override
     public boolean containsValue(Object value) {
-        throw new UnsupportedOperationException();
+        return getSnapshot().containsValue(value);
     }
 
     @Nullable
@@ -109,18 +209,28 @@ public class ResponsiveProperties implements Map<String, Object> {
     @NotNull
     @Override
     public Set<String> keySet() {
-        throw new UnsupportedOperationException();
+        return getSnapshot().keySet();
     }
 
     @NotNull
     @Override
     public Collection<Object> values() {
-        throw new UnsupportedOperationException();
+        return getSnapshot().values();
     }
 
     @NotNull
     @Override
     public Set<Entry<String, Object>> entrySet() {
-        throw new UnsupportedOperationException();
+        return getSnapshot().entrySet();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Map && getSnapshot().equals(o);
+    }
+
+    @Override
+    public int hashCode() {
+        return getSnapshot().hashCode();
     }
 }
@@ -29,4 +29,50 @@ public interface StyleService {
      * @return declaration set, or local rule
      */
     String getLocalStyle(@Nullable String id, SlingHttpServletRequest request);
+
+    /**
+     * Collects rules of the given request's component in the page style, instead of returning them, if page style
+     * aggregation is enabled and the component is rendered as part of its whole page.
+     *
+     * @param id ID to encapsulate declarations with, style can't be collected without
+     * @param request current request
+     * @return true if style has been taken care of, in which case caller should not write it inline
+     */
+    default boolean collectLocalStyle(@Nullable String id, SlingHttpServletRequest request) {
+        return false;
+    }
+
+    /**
+     * Starts collecting rules of the components rendered afterwards in that request instead of having them written
+     * inline, if page style aggregation is enabled. To be called from the page head of a full page render, collected
+     * style being written at its end with {@link #getPageStyle(SlingHttpServletRequest)}.
+     *
+     * @param request current page request
+     * @return true if components rules are collected
+     */
+    default boolean startPageStyle(SlingHttpServletRequest request) {
+        return false;
+    }
+
+    /**
+     * Aggregated style collected so far in that request, to be written at the end of the page. Collection stops
+     * there: components rendered afterwards write their style inline again.
+     *
+     * @param request current page request
+     * @return rules of the page components, grouped by media query, null if none
+     */
+    default @Nullable String getPageStyle(SlingHttpServletRequest request) {
+        return null;
+    }
+
+    /**
+     * Path of the external stylesheet of the current page revision, to be linked from its head: components rendered
+     * afterwards in that request don't write their style inline anymore.
+     *
+     * @param request current page request
+     * @return path of the external stylesheet of the current page revision, null if page style should be inline
+     */
+    default @Nullable String getPageStyleSheet(SlingHttpServletRequest request) {
+        return null;
+    }
 }
@@ -0,0 +1,252 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style;
+
+import static com.adobe.dx.style.Constants.DECLARATION_DELIMITER;
+
+import com.adobe.dx.responsive.Breakpoint;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reusable CSS buffer style workers directly write their declarations in, split in sections (one for
+ * declarations common to all breakpoints, and one per breakpoint).
+ *
+ * A section is only written out if at least one declaration has been written in it, and declarations of
+ * a section are delimited with ';'. A declaration is started with {@link #declaration()}, and can then be
+ * written piece by piece with the <code>append</code> methods, or in one go with
+ * {@link #declaration(CharSequence)}.
+ */
+public final class StyleSink implements Appendable {
+
+    private static final int DEFAULT_CAPACITY = 256;
+
+    /**
+     * max capacity kept by a sink when reset, so that a reused sink does not hold huge buffers
+     */
+    private static final int MAX_RETAINED_CAPACITY = 16384;
+
+    private static final String ID_OPEN = "#";
+
+    private static final String RULE_OPEN = " {";
+
+    private static final String RULE_CLOSE = "}";
+
+    private static final String BP_OPEN = "\n";
+
+    private static final String BP_RULE_OPEN = " {\n";
+
+    private static final String BP_CLOSE = "\n}";
+
+    private StringBuilder buffer;
+
+    private String id;
+
+    private String mediaQuery;
+
+    private boolean sectionOpened;
+
+    private int declarations;
+
+    private int captureLength = -1;
+
+    private int captureStart = -1;
+
+    private boolean captureOpened;
+
+    private int captureDeclarations;
+
+    public StyleSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StyleSink(int capacity) {
+        buffer = new StringBuilder(capacity);
+    }
+
+    /**
+     * Starts a new section, closing previous one if needed. Nothing is written until a declaration is.
+     *
+     * @param id optional ID to encapsulate section's declarations with
+     * @param mediaQuery media query of the section, null for declarations common to all breakpoints
+     */
+    public void startSection(@Nullable String id, @Nullable String mediaQuery) {
+        endSection();
+        this.id = StringUtils.isNotBlank(id) ? id : null;
+        this.mediaQuery = mediaQuery;
+    }
+
+    /**
+     * closes current section, if anything has been written in it
+     */
+    public void endSection() {
+        if (sectionOpened) {
+            if (id != null) {
+                buffer.append(RULE_CLOSE);
+            }
+            if (mediaQuery != null) {
+                buffer.append(BP_CLOSE);
+            }
+        }
+        sectionOpened = false;
+        declarations = 0;
+    }
+
+    private void openSection() {
+        if (!sectionOpened) {
+            if (mediaQuery != null) {
+                buffer.append(BP_OPEN).append(mediaQuery).append(BP_RULE_OPEN);
+            }
+            if (id != null) {
+                buffer.append(ID_OPEN).append(id).append(RULE_OPEN);
+            }
+            sectionOpened = true;
+        }
+    }
+
+    /**
+     * starts a new declaration in the current section, that can then be written with <code>append</code> methods
+     *
+     * @return this sink
+     */
+    public @NotNull StyleSink declaration() {
+        openSection();
+        if (declarations++ > 0) {
+            buffer.append(DECLARATION_DELIMITER);
+        }
+        if (captureLength >= 0 && captureStart < 0) {
+            captureStart = buffer.length();
+        }
+        return this;
+    }
+
+    /**
+     * starts capturing declarations written from now on, so that they can be read and dropped
+     */
+    public void capture() {
+        captureLength = buffer.length();
+        captureStart = -1;
+        captureOpened = sectionOpened;
+        captureDeclarations = declarations;
+    }
+
+    /**
+     * @return declarations written since last {@link #capture()}, without section opening nor leading delimiter,
+     * null if none
+     */
+    public @Nullable String captured() {
+        return captureLength >= 0 && captureStart >= 0 && buffer.length() > captureStart
+            ? buffer.substring(captureStart) : null;
+    }
+
+    /**
+     * removes whatever has been written since last {@link #capture()}, including a section opening
+     */
+    public void dropCaptured() {
+        if (captureLength >= 0) {
+            buffer.setLength(captureLength);
+            sectionOpened = captureOpened;
+            declarations = captureDeclarations;
+        }
+        captureLength = -1;
+    }
+
+    /**
+     * writes a whole declaration in current section, if not blank
+     *
+     * @param declaration single or several declarations split by ';'
+     * @return this sink
+     */
+    public @NotNull StyleSink declaration(@Nullable CharSequence declaration) {
+        if (StringUtils.isNotBlank(declaration)) {
+            declaration().buffer.append(declaration);
+        }
+        return this;
+    }
+
+    @Override
+    public @NotNull StyleSink append(@Nullable CharSequence csq) {
+        buffer.append(csq);
+        return this;
+    }
+
+    @Override
+    public @NotNull StyleSink append(@Nullable CharSequence csq, int start, int end) {
+        buffer.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    public @NotNull StyleSink append(char c) {
+        buffer.append(c);
+        return this;
+    }
+
+    public @NotNull StyleSink append(long l) {
+        buffer.append(l);
+        return this;
+    }
+
+    /**
+     * @return number of characters written so far
+     */
+    public int length() {
+        return buffer.length();
+    }
+
+    /**
+     * clears that sink so it can be reused
+     */
+    public void reset() {
+        if (buffer.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(DEFAULT_CAPACITY);
+        } else {
+            buffer.setLength(0);
+        }
+        id = null;
+        mediaQuery = null;
+        sectionOpened = false;
+        declarations = 0;
+        captureLength = -1;
+    }
+
+    /**
+     * @return all that has been written, closing current section
+     */
+    @Override
+    public @NotNull String toString() {
+        endSection();
+        return buffer.toString();
+    }
+
+    /**
+     * Adapts a streaming worker to {@link StyleWorker#getDeclaration(Breakpoint, SlingHttpServletRequest)}
+     *
+     * @param worker worker writing its declarations in a sink
+     * @param breakpoint breakpoint if declaration should be specific to one, null otherwise
+     * @param request current request
+     * @return written declarations, null if none
+     */
+    public static @Nullable String toDeclaration(@NotNull StyleWorker worker, @Nullable Breakpoint breakpoint,
+                                                 SlingHttpServletRequest request) {
+        StyleSink sink = new StyleSink(DEFAULT_CAPACITY / 2);
+        worker.writeDeclaration(breakpoint, request, sink);
+        return sink.length() > 0 ? sink.toString() : null;
+    }
+}
@@ -18,6 +18,7 @@ package com.adobe.dx.style;
 import com.adobe.dx.responsive.Breakpoint;
 
 import org.apache.sling.api.SlingHttpServletRequest;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 /**
@@ -39,4 +40,32 @@ public interface StyleWorker {
      */
     @Nullable String getDeclaration(@Nullable Breakpoint breakpoint, SlingHttpServletRequest request);
 
+    /**
+     * Tells if that worker can be called concurrently, for different breakpoints of the same request, when the
+     * style service runs in parallel mode. For breakpoints, such a worker gets a read only snapshot of the request,
+     * taken on the request thread beforehand: it must only read DX bindings (see
+     * {@link com.adobe.dx.utils.RequestUtil}) and resource properties, and must not use the request's resource
+     * resolver, content policy, nor any other non thread safe request state.
+     *
+     * @return true if thread safe, false by default
+     */
+    default boolean isThreadSafe() {
+        return false;
+    }
+
+    /**
+     * Writes declarations specific to that generator straight in the given sink, which is what the style
+     * service calls. Default implementation adapts {@link #getDeclaration(Breakpoint, SlingHttpServletRequest)},
+     * workers overriding this one can implement the latter with
+     * {@link StyleSink#toDeclaration(StyleWorker, Breakpoint, SlingHttpServletRequest)}.
+     *
+     * @param breakpoint breakpoint if declaration should be specific to one, null otherwise
+     * @param request current request
+     * @param sink sink to write declarations in, opened on the right section
+     */
+    default void writeDeclaration(@Nullable Breakpoint breakpoint, SlingHttpServletRequest request,
+                                  @NotNull StyleSink sink) {
+        sink.declaration(getDeclaration(breakpoint, request));
+    }
+
 }
@@ -20,14 +20,11 @@ import static com.adobe.dx.style.Constants.DEL_SPACE;
 import static com.adobe.dx.style.Constants.PX;
 import static com.adobe.dx.style.Constants.PX_SPACE;
 import static com.adobe.dx.style.Constants.SPACE;
-import static com.adobe.dx.utils.RequestUtil.getPolicy;
 
 import com.adobe.dx.responsive.Breakpoint;
 import com.adobe.dx.style.StyleWorker;
 
-import java.util.ArrayList;
-import java.util.List;
-
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.ValueMap;
@@ -63,106 +60,122 @@ public class Border implements StyleWorker {
     private static final String PN_RADIUS_BOTTOMLEFT = PREFIX + RADIUS + BOTTOM + LEFT;
     private static final String PN_RADIUS_BOTTOMRIGHT = PREFIX + RADIUS + BOTTOM + RIGHT;
     private static final String PN_SIDES = PREFIX + "Sides";
+    private static final Side ALL_SIDES = new Side(ALL_CAP, DECL_PREFIX);
+    private static final Side[] EACH_SIDE = new Side[] {
+        new Side(TOP, DECL_TOP),
+        new Side(RIGHT, DECL_RIGHT),
+        new Side(BOTTOM, DECL_BOTTOM),
+        new Side(LEFT, DECL_LEFT)
+    };
+
+    private static final String[] PROPERTIES = properties();
+
+    private final PolicyDeclarations declarations = new PolicyDeclarations(Border::compile, PROPERTIES);
 
     @Override
     public String getKey() {
         return KEY;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public @Nullable String getDeclaration(Breakpoint breakpoint, SlingHttpServletRequest request) {
-        if (breakpoint == null) {
-            //we only do border for all
-            ValueMap dxPolicy = getPolicy(request);
-            String border = buildBorder(dxPolicy);
-            String radius = buildRadius(dxPolicy);
-            if (border != null) {
-                if (radius != null) {
-                    return border + DEL_SPACE + radius;
-                } else {
-                    return border;
-                }
-            } else if (radius != null) {
-                return radius;
-            }
-        }
-        return null;
+        return declarations.get(request, breakpoint);
     }
 
-    private String buildBorder(ValueMap policy) {
-        String borderSides = policy.get(PN_SIDES, String.class);
+    /**
+     * @return border & radius declarations of the given properties, null if none
+     */
+    static @Nullable String compile(ValueMap properties) {
+        StringBuilder builder = new StringBuilder();
+        String borderSides = properties.get(PN_SIDES, String.class);
         if (StringUtils.equals(ALL, borderSides)) {
-            return getAllBorders(policy);
+            appendBorderStyle(properties, ALL_SIDES, builder);
         } else if (StringUtils.equals(EACH, borderSides)) {
-            return getEachBorder(policy);
+            for (Side side : EACH_SIDE) {
+                appendBorderStyle(properties, side, builder);
+            }
         }
-        return null;
+        appendRadius(properties, builder);
+        return builder.length() > 0 ? builder.toString() : null;
     }
 
-    private String getAllBorders(ValueMap policy) {
-        return getBorderStyle(policy, ALL_CAP, DECL_PREFIX);
+    /**
+     * @return names of all properties border and radius declarations are compiled from
+     */
+    private static String[] properties() {
+        String[] properties = new String[3 * (1 + EACH_SIDE.length) + 7];
+        int index = 0;
+        properties[index++] = PN_SIDES;
+        for (Side side : ArrayUtils.add(EACH_SIDE, 0, ALL_SIDES)) {
+            properties[index++] = side.style;
+            properties[index++] = side.width;
+            properties[index++] = side.color;
+        }
+        properties[index++] = PN_BORDERRADIUS;
+        properties[index++] = PN_ALLRADIUS;
+        properties[index++] = PN_RADIUS_TOPLEFT;
+        properties[index++] = PN_RADIUS_TOPRIGHT;
+        properties[index++] = PN_RADIUS_BOTTOMLEFT;
+        properties[index++] = PN_RADIUS_BOTTOMRIGHT;
+        return properties;
     }
 
-    private String getEachBorder(ValueMap policy) {
-        List<String> borders = new ArrayList<>();
-        final String topBorder = getBorderStyle(policy, TOP, DECL_TOP);
-        final String rightBorder = getBorderStyle(policy, RIGHT, DECL_RIGHT);
-        final String bottomBorder = getBorderStyle(policy, BOTTOM, DECL_BOTTOM);
-        final String leftBorder = getBorderStyle(policy, LEFT, DECL_LEFT);
-        if (topBorder != null) {
-            borders.add(topBorder);
-        }
-        if (rightBorder != null) {
-            borders.add(rightBorder);
-        }
-        if (bottomBorder != null) {
-            borders.add(bottomBorder);
-        }
-        if (leftBorder != null) {
-            borders.add(leftBorder);
-        }
-        return borders.isEmpty() ? null : String.join(DEL_SPACE, borders);
+    /**
+     * continues current declarations if something has already been written
+     */
+    private static StringBuilder next(StringBuilder builder) {
+        return builder.length() > 0 ? builder.append(DEL_SPACE) : builder;
     }
 
-    private String getBorderStyle(ValueMap policy, String side, String propertyName) {
-        String borderStyle = policy.get(PREFIX + side + STYLE_SUFFIX, String.class);
-        long borderThickness = policy.get(PREFIX + side + WIDTH_SUFFIX, 0L);
-        String borderColor = policy.get(PREFIX + side + COLOR_SUFFIX, String.class);
+    private static void appendBorderStyle(ValueMap properties, Side side, StringBuilder builder) {
+        String borderStyle = properties.get(side.style, String.class);
+        long borderThickness = properties.get(side.width, 0L);
+        String borderColor = properties.get(side.color, String.class);
         if (borderStyle != null && borderThickness > 0 && borderColor != null) {
-            return propertyName + DECLARATION + borderStyle + SPACE + borderThickness + PX_SPACE + borderColor;
+            next(builder).append(side.declaration).append(DECLARATION).append(borderStyle).append(SPACE)
+                .append(borderThickness).append(PX_SPACE).append(borderColor);
         }
-        return null;
     }
 
-    private String buildRadius(ValueMap policy) {
-        String borderRadius = policy.get(PN_BORDERRADIUS, String.class);
+    private static void appendRadius(ValueMap properties, StringBuilder builder) {
+        String borderRadius = properties.get(PN_BORDERRADIUS, String.class);
         if (StringUtils.equals(ALL, borderRadius)) {
-            return getAllBorderRadius(policy);
+            long radius = properties.get(PN_ALLRADIUS, 0L);
+            if (radius > 0) {
+                next(builder).append(DECL_RADIUS).append(radius).append(PX);
+            }
         } else if (StringUtils.equals(EACH, borderRadius)) {
-            return getEachBorderRadius(policy);
-        }
-        return null;
-    }
-
-    private String getAllBorderRadius(ValueMap policy) {
-        long borderRadius = policy.get(PN_ALLRADIUS, 0L);
-        if (borderRadius > 0) {
-            return DECL_RADIUS + borderRadius + PX;
+            long radiusTopLeft = properties.get(PN_RADIUS_TOPLEFT, 0L);
+            long radiusTopRight = properties.get(PN_RADIUS_TOPRIGHT, 0L);
+            long radiusBottomRight = properties.get(PN_RADIUS_BOTTOMRIGHT, 0L);
+            long radiusBottomLeft = properties.get(PN_RADIUS_BOTTOMLEFT, 0L);
+            if (radiusTopLeft > 0 || radiusTopRight > 0 || radiusBottomLeft > 0 || radiusBottomRight > 0) {
+                next(builder).append(DECL_RADIUS)
+                    .append(radiusTopLeft).append(PX_SPACE).append(radiusTopRight).append(PX_SPACE)
+                    .append(radiusBottomRight).append(PX_SPACE).append(radiusBottomLeft).append(PX);
+            }
         }
-        return null;
     }
 
-    private String getEachBorderRadius(ValueMap policy) {
-        long radiusTopLeft = policy.get(PN_RADIUS_TOPLEFT, 0L);
-        long radiusTopRight = policy.get(PN_RADIUS_TOPRIGHT, 0L);
-        long radiusBottomRight = policy.get(PN_RADIUS_BOTTOMRIGHT, 0L);
-        long radiusBottomLeft = policy.get(PN_RADIUS_BOTTOMLEFT, 0L);
+    /**
+     * property & declaration names of one side, computed once
+     */
+    private static final class Side {
+        final String style;
+        final String width;
+        final String color;
+        final String declaration;
 
-        if (radiusTopLeft > 0 || radiusTopRight > 0 || radiusBottomLeft > 0 || radiusBottomRight > 0) {
-            return DECL_RADIUS
-                + radiusTopLeft + PX_SPACE + radiusTopRight + PX_SPACE
-                + radiusBottomRight + PX_SPACE + radiusBottomLeft + PX;
+        Side(String side, String declaration) {
+            style = PREFIX + side + STYLE_SUFFIX;
+            width = PREFIX + side + WIDTH_SUFFIX;
+            color = PREFIX + side + COLOR_SUFFIX;
+            this.declaration = declaration;
         }
-        return null;
     }
 }
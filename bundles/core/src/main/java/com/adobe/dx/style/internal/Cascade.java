@@ -0,0 +1,130 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.style.StyleSink;
+import com.adobe.dx.style.StyleWorker;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Keeps track, for one style generation, of the declarations each worker has in effect, so that a breakpoint
+ * declaration identical to the one cascaded from a smaller breakpoint (or common to all) is not written again.
+ *
+ * This only holds with open ended (mobile first) media queries, sorted by ascending width, so deduplication is
+ * disabled unless every breakpoint's media query is a single <code>min-width</code> feature (optionally for
+ * <code>screen</code> or <code>all</code>), all with the same unit, in ascending order. Any other feature
+ * (orientation, hover, heights, range syntax...) or media type could leave a smaller breakpoint out, and with
+ * it the declaration supposedly cascaded.
+ */
+final class Cascade {
+
+    private static final Pattern MIN_WIDTH_ONLY = Pattern.compile(
+        "\\s*(?:@media\\s+)?(?:(?:only\\s+)?(?:screen|all)\\s+and\\s+)?"
+            + "\\(\\s*min-width\\s*:\\s*(\\d+(?:\\.\\d+)?)([a-z]+)\\s*\\)\\s*",
+        Pattern.CASE_INSENSITIVE);
+
+    private final String[] effective;
+
+    private final boolean enabled;
+
+    /**
+     * @param workers number of workers of the chain
+     * @param breakpoints breakpoints rendered
+     * @param deduplicate whether deduplication is wanted
+     */
+    Cascade(int workers, @Nullable Breakpoint[] breakpoints, boolean deduplicate) {
+        effective = new String[workers];
+        enabled = deduplicate && isOpenEnded(breakpoints);
+    }
+
+    /**
+     * @return true if each breakpoint's media query, when there is one, is a single min-width feature, widths
+     * being in the same unit and ascending
+     */
+    static boolean isOpenEnded(@Nullable Breakpoint[] breakpoints) {
+        if (breakpoints != null) {
+            String unit = null;
+            double width = 0;
+            for (Breakpoint breakpoint : breakpoints) {
+                if (breakpoint.mediaQuery() == null) {
+                    continue;
+                }
+                Matcher matcher = MIN_WIDTH_ONLY.matcher(breakpoint.mediaQuery());
+                if (!matcher.matches()) {
+                    return false;
+                }
+                double minWidth = Double.parseDouble(matcher.group(1));
+                if (unit != null && (!unit.equalsIgnoreCase(matcher.group(2)) || minWidth < width)) {
+                    return false;
+                }
+                unit = matcher.group(2);
+                width = minWidth;
+            }
+        }
+        return true;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * lets worker at given index write its declarations, dropping them if they are already in effect
+     */
+    void write(int index, @NotNull StyleWorker worker, @Nullable Breakpoint breakpoint,
+               SlingHttpServletRequest request, @NotNull StyleSink sink) {
+        if (!enabled) {
+            worker.writeDeclaration(breakpoint, request, sink);
+            return;
+        }
+        sink.capture();
+        worker.writeDeclaration(breakpoint, request, sink);
+        keepOrDrop(index, breakpoint, sink.captured(), sink);
+    }
+
+    /**
+     * writes already rendered declarations of worker at given index, unless they are already in effect
+     */
+    void write(int index, @Nullable String declarations, @Nullable Breakpoint breakpoint, @NotNull StyleSink sink) {
+        if (StringUtils.isNotBlank(declarations)) {
+            if (enabled) {
+                sink.capture();
+            }
+            sink.declaration(declarations);
+            if (enabled) {
+                keepOrDrop(index, breakpoint, declarations, sink);
+            }
+        }
+    }
+
+    private void keepOrDrop(int index, @Nullable Breakpoint breakpoint, @Nullable String written, StyleSink sink) {
+        if (written != null) {
+            if (breakpoint != null && written.equals(effective[index])) {
+                sink.dropCaptured();
+            } else {
+                effective[index] = written;
+            }
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Post processing of generated style sheets: removes comments & unneeded whitespace, merges adjacent rules with
+ * identical selectors, drops empty rules & media blocks, and collapses adjacent media blocks with the same media
+ * query. Rules are never moved, so that the cascade stays the same.
+ *
+ * Only plain rules and <code>@media</code> blocks are handled, anything else (declarations without selector,
+ * other at-rules, unbalanced blocks) leaves the style sheet untouched.
+ */
+final class CssMinifier {
+
+    private static final String MEDIA = "@media";
+
+    private static final char AT = '@';
+
+    private static final char BLOCK_OPEN = '{';
+
+    private static final char BLOCK_CLOSE = '}';
+
+    private static final char DECLARATION_DELIMITER = ';';
+
+    private static final char NONE = 0;
+
+    private static final String PRELUDE_STOPS = "{};";
+
+    private static final String DECLARATION_STOPS = ";{}";
+
+    /**
+     * characters around which whitespace is not needed, per context
+     */
+    private static final String SELECTOR_TIGHT = ">+~,";
+
+    private static final String MEDIA_TIGHT = ":";
+
+    private static final String DECLARATION_TIGHT = ":,";
+
+    private final String css;
+
+    private final List<Group> groups = new ArrayList<>();
+
+    private int pos;
+
+    /**
+     * stop character the last read ended on, {@link #NONE} at end of input
+     */
+    private char stop;
+
+    private CssMinifier(String css) {
+        this.css = css;
+    }
+
+    /**
+     * @param css style sheet to minify
+     * @return minified style sheet, or given one if it can't be minified
+     */
+    static @Nullable String minify(@Nullable String css) {
+        if (StringUtils.isBlank(css)) {
+            return css;
+        }
+        CssMinifier minifier = new CssMinifier(css);
+        return minifier.parse() ? minifier.write() : css;
+    }
+
+    private boolean parse() {
+        for (;;) {
+            String prelude = read(PRELUDE_STOPS);
+            if (prelude == null || stop == NONE) {
+                return prelude != null && StringUtils.isBlank(prelude);
+            }
+            if (stop != BLOCK_OPEN) {
+                return false;
+            }
+            pos++;
+            String selector = compact(prelude, SELECTOR_TIGHT);
+            if (selector.startsWith(MEDIA)) {
+                if (!parseMedia(compact(prelude, MEDIA_TIGHT))) {
+                    return false;
+                }
+            } else if (selector.isEmpty() || selector.charAt(0) == AT || !parseRule(null, selector)) {
+                return false;
+            }
+        }
+    }
+
+    private boolean parseMedia(String mediaQuery) {
+        for (;;) {
+            String prelude = read(PRELUDE_STOPS);
+            if (prelude == null) {
+                return false;
+            }
+            if (stop == BLOCK_CLOSE && StringUtils.isBlank(prelude)) {
+                pos++;
+                group(mediaQuery);
+                return true;
+            }
+            if (stop != BLOCK_OPEN) {
+                return false;
+            }
+            pos++;
+            String selector = compact(prelude, SELECTOR_TIGHT);
+            if (selector.isEmpty() || selector.charAt(0) == AT || !parseRule(mediaQuery, selector)) {
+                return false;
+            }
+        }
+    }
+
+    private boolean parseRule(@Nullable String mediaQuery, String selector) {
+        List<String> declarations = new ArrayList<>();
+        do {
+            String declaration = read(DECLARATION_STOPS);
+            if (declaration == null || stop == NONE || stop == BLOCK_OPEN) {
+                return false;
+            }
+            declaration = compact(declaration, DECLARATION_TIGHT);
+            if (!declaration.isEmpty()) {
+                declarations.add(declaration);
+            }
+            pos++;
+        } while (stop != BLOCK_CLOSE);
+        group(mediaQuery).add(selector, declarations);
+        return true;
+    }
+
+    /**
+     * @return group rules of that media query should be added to, previous one if it has the same media query
+     */
+    private Group group(@Nullable String mediaQuery) {
+        Group last = groups.isEmpty() ? null : groups.get(groups.size() - 1);
+        if (last != null && last.isEmpty() && !Objects.equals(last.mediaQuery, mediaQuery)) {
+            groups.remove(groups.size() - 1);
+            last = groups.isEmpty() ? null : groups.get(groups.size() - 1);
+        }
+        if (last == null || !Objects.equals(last.mediaQuery, mediaQuery)) {
+            last = new Group(mediaQuery);
+            groups.add(last);
+        }
+        return last;
+    }
+
+    /**
+     * reads from current position up to one of the stop characters met outside of strings & parentheses, comments
+     * being replaced with a space
+     *
+     * @return read text, null if a comment is not closed
+     */
+    private @Nullable String read(String stops) {
+        StringBuilder text = new StringBuilder();
+        int depth = 0;
+        char quote = NONE;
+        stop = NONE;
+        while (pos < css.length()) {
+            char c = css.charAt(pos);
+            if (quote != NONE) {
+                if (c == '\\' && pos + 1 < css.length()) {
+                    text.append(c);
+                    c = css.charAt(++pos);
+                } else if (c == quote) {
+                    quote = NONE;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '/' && pos + 1 < css.length() && css.charAt(pos + 1) == '*') {
+                int end = css.indexOf("*/", pos + 2);
+                if (end < 0) {
+                    return null;
+                }
+                pos = end + 2;
+                text.append(' ');
+                continue;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth <= 0 && stops.indexOf(c) >= 0) {
+                stop = c;
+                return text.toString();
+            }
+            text.append(c);
+            pos++;
+        }
+        return text.toString();
+    }
+
+    /**
+     * @param tight characters around which whitespace can be removed
+     * @return given text, with whitespace outside of strings collapsed, and removed where not needed
+     */
+    static @NotNull String compact(@NotNull String text, @NotNull String tight) {
+        StringBuilder compacted = new StringBuilder(text.length());
+        char quote = NONE;
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (quote != NONE) {
+                compacted.append(c);
+                if (c == '\\' && i + 1 < text.length()) {
+                    compacted.append(text.charAt(++i));
+                } else if (c == quote) {
+                    quote = NONE;
+                }
+            } else if (Character.isWhitespace(c)) {
+                space = true;
+            } else {
+                if (space && compacted.length() > 0 && tight.indexOf(c) < 0
+                    && tight.indexOf(compacted.charAt(compacted.length() - 1)) < 0) {
+                    compacted.append(' ');
+                }
+                space = false;
+                if (c == '"' || c == '\'') {
+                    quote = c;
+                }
+                compacted.append(c);
+            }
+        }
+        return compacted.toString();
+    }
+
+    private String write() {
+        StringBuilder minified = new StringBuilder(css.length());
+        for (Group group : groups) {
+            if (!group.isEmpty()) {
+                if (group.mediaQuery != null) {
+                    minified.append(group.mediaQuery).append(BLOCK_OPEN);
+                }
+                for (Rule rule : group.rules) {
+                    if (!rule.declarations.isEmpty()) {
+                        minified.append(rule.selector).append(BLOCK_OPEN);
+                        boolean first = true;
+                        for (String declaration : distinct(rule.declarations)) {
+                            if (!first) {
+                                minified.append(DECLARATION_DELIMITER);
+                            }
+                            minified.append(declaration);
+                            first = false;
+                        }
+                        minified.append(BLOCK_CLOSE);
+                    }
+                }
+                if (group.mediaQuery != null) {
+                    minified.append(BLOCK_CLOSE);
+                }
+            }
+        }
+        return minified.toString();
+    }
+
+    /**
+     * @return declarations, only keeping last occurrence of identical ones
+     */
+    private static Collection<String> distinct(List<String> declarations) {
+        if (declarations.size() < 2) {
+            return declarations;
+        }
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        for (String declaration : declarations) {
+            distinct.remove(declaration);
+            distinct.add(declaration);
+        }
+        return distinct;
+    }
+
+    /**
+     * rules of consecutive blocks sharing the same media query, null for rules common to all
+     */
+    private static final class Group {
+        final String mediaQuery;
+        final List<Rule> rules = new ArrayList<>();
+
+        Group(@Nullable String mediaQuery) {
+            this.mediaQuery = mediaQuery;
+        }
+
+        /**
+         * appends a rule, merged with the previous one if it has the same selector or is empty
+         */
+        void add(String selector, List<String> declarations) {
+            Rule last = rules.isEmpty() ? null : rules.get(rules.size() - 1);
+            if (last != null && last.declarations.isEmpty() && !last.selector.equals(selector)) {
+                rules.remove(rules.size() - 1);
+                last = rules.isEmpty() ? null : rules.get(rules.size() - 1);
+            }
+            if (last == null || !last.selector.equals(selector)) {
+                last = new Rule(selector);
+                rules.add(last);
+            }
+            last.declarations.addAll(declarations);
+        }
+
+        boolean isEmpty() {
+            for (Rule rule : rules) {
+                if (!rule.declarations.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Rule {
+        final String selector;
+        final List<String> declarations = new ArrayList<>();
+
+        Rule(String selector) {
+            this.selector = selector;
+        }
+    }
+}
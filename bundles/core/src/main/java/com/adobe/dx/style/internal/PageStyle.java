@@ -0,0 +1,146 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import com.adobe.dx.responsive.Breakpoint;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.ServletRequest;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Request scoped aggregate of components rules, grouped by media query so that each of those is only
+ * written once. Rules common to all breakpoints come first, then breakpoints ones in breakpoint order.
+ *
+ * A page style is attached to a request either to collect components rules, from the page head of a full page
+ * render until the page end writes them, or once the page head has linked the page stylesheet, to tell that
+ * components don't need their style inline anymore. Components rendered in a request without page style (e.g.
+ * refreshed alone by the editor, or included through AJAX) keep writing their style inline.
+ */
+final class PageStyle {
+
+    static final String ATTRIBUTE = PageStyle.class.getName();
+
+    private static final String DEFAULT_SECTION = "";
+
+    private static final String RULE_DELIMITER = "\n";
+
+    private static final String BP_OPEN = " {\n";
+
+    private static final String BP_CLOSE = "\n}";
+
+    private final Map<String, StringBuilder> sections = new LinkedHashMap<>();
+
+    private final Set<String> ids = new HashSet<>();
+
+    private final boolean collecting;
+
+    private PageStyle(boolean collecting) {
+        this.collecting = collecting;
+        sections.put(DEFAULT_SECTION, new StringBuilder());
+    }
+
+    /**
+     * @param request current request
+     * @return page style attached to that request, null if none
+     */
+    static @Nullable PageStyle fromRequest(@NotNull ServletRequest request) {
+        Object pageStyle = request.getAttribute(ATTRIBUTE);
+        return pageStyle instanceof PageStyle ? (PageStyle) pageStyle : null;
+    }
+
+    /**
+     * attaches a new page style to that request, collecting components rules
+     */
+    static @NotNull PageStyle startCollecting(@NotNull ServletRequest request) {
+        PageStyle pageStyle = new PageStyle(true);
+        request.setAttribute(ATTRIBUTE, pageStyle);
+        return pageStyle;
+    }
+
+    /**
+     * attaches a page style to that request, telling that the style of all components is served by the page
+     * stylesheet
+     */
+    static void serve(@NotNull ServletRequest request) {
+        request.setAttribute(ATTRIBUTE, new PageStyle(false));
+    }
+
+    /**
+     * @return true if that page style collects components rules, false if they are served by the page stylesheet
+     */
+    boolean isCollecting() {
+        return collecting;
+    }
+
+    /**
+     * @return true if that id was not collected yet
+     */
+    boolean add(@NotNull String id) {
+        return ids.add(id);
+    }
+
+    /**
+     * reserves sections in breakpoints order
+     */
+    void prepare(@Nullable Breakpoint[] breakpoints) {
+        if (breakpoints != null) {
+            for (Breakpoint breakpoint : breakpoints) {
+                if (breakpoint.mediaQuery() != null) {
+                    sections.computeIfAbsent(breakpoint.mediaQuery(), k -> new StringBuilder());
+                }
+            }
+        }
+    }
+
+    /**
+     * @param mediaQuery media query of the rule, null for rules common to all breakpoints
+     * @param rule rule to append
+     */
+    void append(@Nullable String mediaQuery, @NotNull CharSequence rule) {
+        StringBuilder section = sections.computeIfAbsent(mediaQuery != null ? mediaQuery : DEFAULT_SECTION,
+            k -> new StringBuilder());
+        if (section.length() > 0) {
+            section.append(RULE_DELIMITER);
+        }
+        section.append(rule);
+    }
+
+    /**
+     * @return aggregated style, null if nothing has been collected
+     */
+    @Nullable String getStyle() {
+        StringBuilder style = new StringBuilder();
+        for (Map.Entry<String, StringBuilder> section : sections.entrySet()) {
+            StringBuilder rules = section.getValue();
+            if (rules.length() > 0) {
+                if (DEFAULT_SECTION.equals(section.getKey())) {
+                    style.append(rules);
+                } else {
+                    style.append(RULE_DELIMITER).append(section.getKey()).append(BP_OPEN)
+                        .append(rules).append(BP_CLOSE);
+                }
+            }
+        }
+        return style.length() > 0 ? style.toString() : null;
+    }
+}
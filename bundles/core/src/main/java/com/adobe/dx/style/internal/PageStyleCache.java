@@ -0,0 +1,174 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.sling.api.resource.ResourceUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Bounded cache of page style hashes, keyed by page path.
+ *
+ * As with {@link StyleCache}, lookups don't take any lock, writes are serialized and eviction gives recently used
+ * entries a second chance. Entries are indexed by the paths of the content their hash covers (page content,
+ * included fragments & template structure), so that a change only invalidates the pages it can affect.
+ */
+final class PageStyleCache {
+
+    private final int maxSize;
+
+    private final Map<String, Entry> pages = new ConcurrentHashMap<>();
+
+    /**
+     * insertion order of entries, used for eviction, possibly containing entries removed since then, only
+     * accessed with {@link #roots} lock
+     */
+    private final ArrayDeque<Entry> order = new ArrayDeque<>();
+
+    /**
+     * page paths per covered content path, guarding all writes
+     */
+    private final NavigableMap<String, Set<String>> roots = new TreeMap<>();
+
+    PageStyleCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    @Nullable Entry get(@NotNull String pagePath) {
+        Entry entry = pages.get(pagePath);
+        if (entry != null) {
+            entry.referenced = true;
+        }
+        return entry;
+    }
+
+    /**
+     * @param pagePath path of the page
+     * @param hash content hash of its styled components
+     * @param paths paths of the content that hash covers
+     * @return new entry
+     */
+    @NotNull Entry put(@NotNull String pagePath, @NotNull String hash, @NotNull Set<String> paths) {
+        Entry entry = new Entry(pagePath, hash, paths);
+        synchronized (roots) {
+            remove(pagePath);
+            pages.put(pagePath, entry);
+            for (String path : paths) {
+                roots.computeIfAbsent(path, p -> new HashSet<>()).add(pagePath);
+            }
+            order.add(entry);
+            evict();
+        }
+        return entry;
+    }
+
+    private void remove(String pagePath) {
+        Entry entry = pages.remove(pagePath);
+        if (entry != null) {
+            for (String path : entry.paths) {
+                Set<String> pagePaths = roots.get(path);
+                if (pagePaths != null && pagePaths.remove(pagePath) && pagePaths.isEmpty()) {
+                    roots.remove(path);
+                }
+            }
+        }
+    }
+
+    /**
+     * removes entries beyond max size, oldest first unless used since last visit, and drops entries removed
+     * otherwise from insertion order once they make up half of it
+     */
+    private void evict() {
+        while (pages.size() > maxSize || order.size() > 2 * maxSize) {
+            Entry entry = order.poll();
+            if (entry == null) {
+                return;
+            }
+            if (pages.get(entry.pagePath) != entry) {
+                //already removed or replaced
+                continue;
+            }
+            if (pages.size() > maxSize && !entry.referenced) {
+                remove(entry.pagePath);
+            } else {
+                entry.referenced = false;
+                order.add(entry);
+            }
+        }
+    }
+
+    void clear() {
+        synchronized (roots) {
+            pages.clear();
+            roots.clear();
+            order.clear();
+        }
+    }
+
+    /**
+     * removes any page whose hash covers content that is, or is an ancestor or a descendant of, given path
+     */
+    void invalidate(@NotNull String path) {
+        synchronized (roots) {
+            Set<String> related = new HashSet<>();
+            for (Map.Entry<String, Set<String>> entry : roots.tailMap(path, true).entrySet()) {
+                if (!entry.getKey().startsWith(path)) {
+                    break;
+                }
+                if (StyleCache.isSameOrAncestor(path, entry.getKey())) {
+                    related.addAll(entry.getValue());
+                }
+            }
+            for (String parent = ResourceUtil.getParent(path); parent != null; parent = ResourceUtil.getParent(parent)) {
+                Set<String> pagePaths = roots.get(parent);
+                if (pagePaths != null) {
+                    related.addAll(pagePaths);
+                }
+            }
+            for (String pagePath : related) {
+                remove(pagePath);
+            }
+        }
+    }
+
+    int size() {
+        return pages.size();
+    }
+
+    /**
+     * page hash, and the content paths it covers
+     */
+    static final class Entry {
+        final String pagePath;
+        final String hash;
+        final Set<String> paths;
+        volatile boolean referenced;
+
+        Entry(String pagePath, String hash, Set<String> paths) {
+            this.pagePath = pagePath;
+            this.hash = hash;
+            this.paths = paths;
+        }
+    }
+}
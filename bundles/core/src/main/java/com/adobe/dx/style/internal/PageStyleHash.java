@@ -0,0 +1,192 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.style.StyleWorker;
+import com.day.cq.commons.jcr.JcrConstants;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayDeque;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Content hash of the styled components of a page: path, type, worker chain, properties & policy of each
+ * component having style workers, and breakpoints. Content rendered within the page is covered as well: its
+ * template structure, and the experience or content fragments its components include. Two pages with the same
+ * hash generate the same stylesheet.
+ */
+final class PageStyleHash {
+
+    static final int HASH_SIZE = 16;
+
+    private static final char SEPARATOR = '\n';
+
+    private static final char EQUALS = '=';
+
+    private static final String PN_TEMPLATE = "cq:template";
+
+    private static final String TEMPLATE_STRUCTURE = "/structure/" + JcrConstants.JCR_CONTENT;
+
+    /**
+     * properties holding the path of content a component includes
+     */
+    private static final String[] REFERENCE_PROPERTIES = {"fragmentVariationPath", "fragmentPath"};
+
+    /**
+     * max number of content trees covered by one hash
+     */
+    private static final int MAX_PATHS = 32;
+
+    private final MessageDigest digest = DigestUtils.getSha256Digest();
+
+    private final Function<Resource, StyleWorker[]> workers;
+
+    private final ContentPolicyManager policyManager;
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    private final Set<String> paths = new LinkedHashSet<>();
+
+    PageStyleHash(@NotNull Function<Resource, StyleWorker[]> workers, @Nullable ContentPolicyManager policyManager) {
+        this.workers = workers;
+        this.policyManager = policyManager;
+    }
+
+    /**
+     * @param content page content resource
+     * @param breakpoints breakpoints used to generate the style
+     * @return hex hash of the styled components of that page
+     */
+    @NotNull String compute(@NotNull Resource content, @Nullable Breakpoint[] breakpoints) {
+        update(Integer.toString(StyleCache.hash(breakpoints)));
+        Deque<Resource> stack = new ArrayDeque<>();
+        include(content.getPath(), content, stack);
+        include(getTemplateStructure(content), content, stack);
+        while (!stack.isEmpty()) {
+            Resource resource = stack.pop();
+            StyleWorker[] chain = workers.apply(resource);
+            if (chain.length > 0) {
+                addComponent(resource, chain);
+            }
+            ValueMap properties = resource.getValueMap();
+            for (String name : REFERENCE_PROPERTIES) {
+                include(properties.get(name, String.class), resource, stack);
+            }
+            for (Resource child : resource.getChildren()) {
+                stack.push(child);
+            }
+        }
+        return Hex.encodeHexString(digest.digest()).substring(0, HASH_SIZE);
+    }
+
+    /**
+     * @return paths of the content trees covered by the last computed hash, including unresolved ones
+     */
+    @NotNull Set<String> getPaths() {
+        return Collections.unmodifiableSet(paths);
+    }
+
+    private static @Nullable String getTemplateStructure(Resource content) {
+        String template = content.getValueMap().get(PN_TEMPLATE, String.class);
+        return StringUtils.isNotBlank(template) ? template + TEMPLATE_STRUCTURE : null;
+    }
+
+    /**
+     * adds content rendered within the page to the hash, once, pages being covered through their content
+     */
+    private void include(@Nullable String path, Resource from, Deque<Resource> stack) {
+        if (StringUtils.isBlank(path) || paths.size() >= MAX_PATHS || !paths.add(path)) {
+            return;
+        }
+        update(path);
+        Resource resource = from.getResourceResolver().getResource(path);
+        Resource content = resource != null ? resource.getChild(JcrConstants.JCR_CONTENT) : null;
+        if (content != null) {
+            paths.add(content.getPath());
+            resource = content;
+        }
+        if (resource != null) {
+            stack.push(resource);
+        }
+    }
+
+    private void addComponent(Resource resource, StyleWorker[] chain) {
+        update(resource.getPath());
+        update(resource.getResourceType());
+        for (StyleWorker worker : chain) {
+            update(worker.getKey());
+        }
+        addProperties(resource.getValueMap());
+        ContentPolicy policy = policyManager != null ? policyManager.getPolicy(resource) : null;
+        if (policy != null) {
+            update(policy.getPath());
+            addProperties(policy.getProperties());
+        }
+    }
+
+    private void addProperties(Map<String, Object> properties) {
+        for (Map.Entry<String, Object> entry : new TreeMap<>(properties).entrySet()) {
+            buffer.append(entry.getKey()).append(EQUALS);
+            appendValue(entry.getValue());
+            update(buffer);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * appends a stable representation of the value, binaries & other objects only being represented by their type
+     */
+    private void appendValue(Object value) {
+        if (value instanceof Calendar) {
+            buffer.append(((Calendar) value).getTimeInMillis());
+        } else if (value instanceof Object[]) {
+            for (Object item : (Object[]) value) {
+                appendValue(item);
+                buffer.append(SEPARATOR);
+            }
+        } else if (value instanceof CharSequence || value instanceof Number || value instanceof Boolean) {
+            buffer.append(value);
+        } else if (value != null) {
+            buffer.append(value.getClass().getName());
+        }
+    }
+
+    private void update(@Nullable CharSequence value) {
+        if (value != null) {
+            digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        digest.update((byte) SEPARATOR);
+    }
+}
@@ -0,0 +1,181 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import static javax.servlet.http.HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
+import static javax.servlet.http.HttpServletResponse.SC_NOT_MODIFIED;
+import static org.apache.sling.api.servlets.HttpConstants.METHOD_GET;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_EXTENSIONS;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_METHODS;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_RESOURCE_TYPES;
+import static org.apache.sling.api.servlets.ServletResolverConstants.SLING_SERVLET_SELECTORS;
+
+import com.adobe.dx.style.StyleService;
+import com.day.cq.commons.jcr.JcrConstants;
+
+import java.io.IOException;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.servlets.SlingSafeMethodsServlet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Serves aggregated style of a page as an external stylesheet, collected by the style service while the page is
+ * rendered in that request with its markup discarded. Content hash of the page styled components is part of the
+ * URL, so that stylesheet can be cached as immutable by dispatcher, CDN & browsers, and is also used as ETag to
+ * answer conditional requests without rendering anything. A page that fails to render gets an error, not cached.
+ */
+@Component(
+    service = Servlet.class,
+    property = {
+        SLING_SERVLET_RESOURCE_TYPES + "=cq/Page",
+        SLING_SERVLET_SELECTORS + "=" + PageStyleServlet.SELECTOR,
+        SLING_SERVLET_EXTENSIONS + "=" + PageStyleServlet.EXTENSION,
+        SLING_SERVLET_METHODS + "=" + METHOD_GET})
+public class PageStyleServlet extends SlingSafeMethodsServlet {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PageStyleServlet.class);
+
+    static final String SELECTOR = "dxstyle";
+
+    static final String EXTENSION = "css";
+
+    private static final String DOT = ".";
+
+    private static final String HTML_EXTENSION = ".html";
+
+    private static final String CONTENT_TYPE = "text/css";
+
+    private static final String UTF8_ENCODING_NAME = "UTF-8";
+
+    private static final String HEADER_ETAG = "ETag";
+
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+
+    private static final String CACHE_IMMUTABLE = "public, max-age=31536000, immutable";
+
+    private static final String CACHE_NONE = "no-cache";
+
+    private static final String QUOTE = "\"";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private static final String ANY_TAG = "*";
+
+    private static final String TAG_SEPARATOR = ",";
+
+    @Reference
+    private transient StyleService styleService;
+
+    /**
+     * @param hash content hash of the page styled components
+     * @return selectors & extension to append to a page path to get its stylesheet
+     */
+    static String getSuffix(String hash) {
+        return DOT + SELECTOR + DOT + hash + DOT + EXTENSION;
+    }
+
+    /**
+     * @return true if one of the given If-None-Match header entity tags matches the given one
+     */
+    static boolean matches(@Nullable String ifNoneMatch, @NotNull String etag) {
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(TAG_SEPARATOR)) {
+                String trimmed = StringUtils.removeStart(tag.trim(), WEAK_PREFIX);
+                if (ANY_TAG.equals(trimmed) || etag.equals(trimmed)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doGet(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response)
+        throws ServletException, IOException {
+        Resource content = request.getResource().getChild(JcrConstants.JCR_CONTENT);
+        String styleSheet = content != null ? styleService.getPageStyleSheet(request) : null;
+        if (styleSheet == null) {
+            response.sendError(SC_NOT_FOUND);
+            return;
+        }
+        String hash = StringUtils.substringBetween(styleSheet, DOT + SELECTOR + DOT, DOT + EXTENSION);
+        String etag = QUOTE + hash + QUOTE;
+        String[] selectors = request.getRequestPathInfo().getSelectors();
+        boolean current = selectors.length > 1 && hash.equals(selectors[1]);
+        if (matches(request.getHeader(HEADER_IF_NONE_MATCH), etag)) {
+            setCacheHeaders(response, etag, current);
+            response.setStatus(SC_NOT_MODIFIED);
+            return;
+        }
+        String style;
+        try {
+            style = collectStyle(request, response, content);
+        } catch (ServletException | IOException | RuntimeException e) {
+            LOG.error("unable to render {} for its style", content.getPath(), e);
+            response.sendError(SC_INTERNAL_SERVER_ERROR);
+            return;
+        }
+        LOG.debug("serving {} characters of style for {}", style != null ? style.length() : 0,
+            request.getResource().getPath());
+        setCacheHeaders(response, etag, current);
+        response.setContentType(CONTENT_TYPE);
+        response.setCharacterEncoding(UTF8_ENCODING_NAME);
+        if (style != null) {
+            response.getWriter().write(style);
+        }
+    }
+
+    private void setCacheHeaders(SlingHttpServletResponse response, String etag, boolean current) {
+        response.setHeader(HEADER_ETAG, etag);
+        //an outdated URL is still served, with current style, but must not be kept
+        response.setHeader(HEADER_CACHE_CONTROL, current ? CACHE_IMMUTABLE : CACHE_NONE);
+    }
+
+    /**
+     * renders given page content for its style only, all written markup being discarded
+     */
+    private @Nullable String collectStyle(SlingHttpServletRequest request, SlingHttpServletResponse response,
+                                          Resource content) throws ServletException, IOException {
+        RequestDispatcher dispatcher = request.getRequestDispatcher(content.getPath() + HTML_EXTENSION);
+        if (dispatcher == null || !styleService.startPageStyle(request)) {
+            throw new ServletException("page style of " + content.getPath() + " can't be collected");
+        }
+        try {
+            dispatcher.include(request, new DiscardingResponse(response));
+        } catch (ServletException | IOException | RuntimeException e) {
+            //stops collection
+            styleService.getPageStyle(request);
+            throw e;
+        }
+        return styleService.getPageStyle(request);
+    }
+}
@@ -0,0 +1,182 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.utils.RequestUtil;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Declarations compiled once per content policy & policy revision, for workers whose properties are usually set
+ * on the policy. Policies without modification date are compiled once per path, and compiled again whenever one
+ * of the worker properties changes. Components overriding any of the worker properties, or rendered without
+ * policy, are compiled on each call.
+ *
+ * Breakpoint declarations are compiled out of the responsive values of the compiled properties, each of them
+ * cascading from the closest smaller breakpoint defining it, or from the common value.
+ */
+final class PolicyDeclarations {
+
+    private final Function<ValueMap, String> compiler;
+
+    private final String[] properties;
+
+    private final Map<String, Compiled> compiled = new ConcurrentHashMap<>();
+
+    /**
+     * @param compiler builds declarations out of properties, null if none
+     * @param properties names of all the properties the compiler reads, any of them can be responsive
+     */
+    PolicyDeclarations(@NotNull Function<ValueMap, String> compiler, String... properties) {
+        this.compiler = compiler;
+        this.properties = properties;
+    }
+
+    /**
+     * @return declarations for the current request's component
+     */
+    @Nullable String get(@NotNull SlingHttpServletRequest request) {
+        ContentPolicy policy = RequestUtil.getContentPolicy(request);
+        if (policy == null || overrides(request.getResource())) {
+            return compiler.apply(RequestUtil.getPolicy(request));
+        }
+        ValueMap policyProperties = policy.getProperties();
+        long revision = StyleCache.getLastModified(policyProperties);
+        //without revision, compiled values tell if the policy changed
+        Object[] values = revision == 0L ? values(policyProperties) : null;
+        Compiled entry = compiled.get(policy.getPath());
+        if (entry == null || entry.revision != revision || !Arrays.deepEquals(entry.values, values)) {
+            entry = new Compiled(revision, values, compiler.apply(policyProperties));
+            compiled.put(policy.getPath(), entry);
+        }
+        return entry.declarations;
+    }
+
+    /**
+     * @param breakpoint breakpoint to compile declarations for, common declarations if null
+     * @return declarations for the current request's component and that breakpoint, null if no responsive
+     * property is set up to that breakpoint
+     */
+    @Nullable String get(@NotNull SlingHttpServletRequest request, @Nullable Breakpoint breakpoint) {
+        if (breakpoint == null) {
+            return get(request);
+        }
+        Map<String, Object> responsiveProperties = RequestUtil.getResponsiveProperties(request);
+        Breakpoint[] breakpoints = RequestUtil.getBreakpoints(request);
+        if (responsiveProperties == null || breakpoints == null) {
+            return null;
+        }
+        Map<String, Object> values = null;
+        for (String name : properties) {
+            String value = cascade(responsiveProperties.get(name), breakpoints, breakpoint);
+            if (value != null) {
+                if (values == null) {
+                    values = new HashMap<>();
+                }
+                values.put(name, value);
+            }
+        }
+        if (values == null) {
+            return null;
+        }
+        ValueMap policy = RequestUtil.getPolicy(request);
+        if (policy != null) {
+            for (String name : properties) {
+                if (!values.containsKey(name) && policy.containsKey(name)) {
+                    values.put(name, policy.get(name));
+                }
+            }
+        }
+        return compiler.apply(new ValueMapDecorator(values));
+    }
+
+    /**
+     * @return value of the closest breakpoint, up to given one, having a non blank value, null if none
+     */
+    private static @Nullable String cascade(@Nullable Object responsiveValues, Breakpoint[] breakpoints,
+                                            Breakpoint breakpoint) {
+        String value = null;
+        if (responsiveValues instanceof Map) {
+            Map<?, ?> values = (Map<?, ?>) responsiveValues;
+            for (Breakpoint candidate : breakpoints) {
+                Object candidateValue = values.get(candidate.key());
+                if (candidateValue != null && StringUtils.isNotBlank(candidateValue.toString())) {
+                    value = candidateValue.toString();
+                }
+                if (StringUtils.equals(candidate.key(), breakpoint.key())) {
+                    break;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * @return values of the compiled properties
+     */
+    private Object[] values(ValueMap properties) {
+        Object[] values = new Object[this.properties.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = properties.get(this.properties[i]);
+        }
+        return values;
+    }
+
+    /**
+     * @return true if the resource defines one of the compiled properties itself
+     */
+    private boolean overrides(@Nullable Resource resource) {
+        if (resource != null) {
+            ValueMap resourceProperties = resource.getValueMap();
+            for (String name : properties) {
+                if (resourceProperties.containsKey(name)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    int size() {
+        return compiled.size();
+    }
+
+    private static final class Compiled {
+        final long revision;
+        final Object[] values;
+        final String declarations;
+
+        Compiled(long revision, Object[] values, String declarations) {
+            this.revision = revision;
+            this.values = values;
+            this.declarations = declarations;
+        }
+    }
+}
@@ -16,7 +16,6 @@
 package com.adobe.dx.style.internal;
 
 import static com.adobe.dx.style.Constants.PX_SPACE;
-import static com.adobe.dx.utils.RequestUtil.getPolicy;
 
 import com.adobe.dx.responsive.Breakpoint;
 import com.adobe.dx.style.StyleWorker;
@@ -41,30 +40,41 @@ public class Shadow implements StyleWorker {
     private static final String PN_SPREAD = PREFIX + "Spread";
     private static final String PN_INSET = PREFIX + "Inset";
 
+    private final PolicyDeclarations declarations = new PolicyDeclarations(Shadow::compile,
+        PN_COLOR, PN_OFFSETX, PN_OFFSETY, PN_BLUR, PN_SPREAD, PN_INSET);
+
     @Override
     public String getKey() {
         return KEY;
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public @Nullable String getDeclaration(Breakpoint breakpoint, SlingHttpServletRequest request) {
-        if (breakpoint == null) {
-            //we only do border for all
-            ValueMap dxPolicy = getPolicy(request);
-            String color = dxPolicy.get(PN_COLOR, String.class);
-            if (color != null) {
-                StringBuilder sb = new StringBuilder();
-                sb.append(RULE)
-                    .append(dxPolicy.get(PN_OFFSETX, 0L)).append(PX_SPACE)
-                    .append(dxPolicy.get(PN_OFFSETY, 0L)).append(PX_SPACE)
-                    .append(dxPolicy.get(PN_BLUR, 0L)).append(PX_SPACE)
-                    .append(dxPolicy.get(PN_SPREAD, 0L)).append(PX_SPACE)
-                    .append(color);
-                if (dxPolicy.containsKey(PN_INSET)) {
-                    sb.append(INSET_SUFFIX);
-                }
-                return sb.toString();
+        return declarations.get(request, breakpoint);
+    }
+
+    /**
+     * @return box shadow declaration of the given properties, null if none
+     */
+    static @Nullable String compile(ValueMap properties) {
+        String color = properties.get(PN_COLOR, String.class);
+        if (color != null) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(RULE)
+                .append(properties.get(PN_OFFSETX, 0L)).append(PX_SPACE)
+                .append(properties.get(PN_OFFSETY, 0L)).append(PX_SPACE)
+                .append(properties.get(PN_BLUR, 0L)).append(PX_SPACE)
+                .append(properties.get(PN_SPREAD, 0L)).append(PX_SPACE)
+                .append(color);
+            if (properties.containsKey(PN_INSET)) {
+                sb.append(INSET_SUFFIX);
             }
+            return sb.toString();
         }
         return null;
     }
@@ -0,0 +1,82 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import com.adobe.dx.bindings.internal.DxBindingsValueProvider;
+import com.adobe.dx.utils.RequestUtil;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceWrapper;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.scripting.SlingBindings;
+import org.apache.sling.api.wrappers.SlingHttpServletRequestWrapper;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Read only view of a component request handed to thread safe workers rendering breakpoints in parallel. Resource
+ * properties & DX bindings are copied in immutable maps on the request thread, so that pool threads never load
+ * anything through the request's session, which is not thread safe.
+ */
+final class SnapshotRequest extends SlingHttpServletRequestWrapper {
+
+    private static final String BINDINGS = SlingBindings.class.getName();
+
+    private final Resource resource;
+
+    private final SlingBindings bindings = new SlingBindings();
+
+    SnapshotRequest(@NotNull SlingHttpServletRequest request) {
+        super(request);
+        ValueMap properties = snapshot(request.getResource().getValueMap());
+        resource = new ResourceWrapper(request.getResource()) {
+            @Override
+            public @NotNull ValueMap getValueMap() {
+                return properties;
+            }
+
+            @Override
+            public <A> A adaptTo(@NotNull Class<A> type) {
+                return type == ValueMap.class ? type.cast(properties) : super.adaptTo(type);
+            }
+        };
+        bindings.put(DxBindingsValueProvider.POLICY_KEY, snapshot(RequestUtil.getPolicy(request)));
+        bindings.put(DxBindingsValueProvider.BP_KEY, RequestUtil.getBreakpoints(request));
+        Map<String, Object> responsiveProperties = RequestUtil.getResponsiveProperties(request);
+        bindings.put(DxBindingsValueProvider.RESP_PROPS_KEY, responsiveProperties != null
+            ? Collections.unmodifiableMap(new HashMap<>(responsiveProperties)) : null);
+    }
+
+    private static @Nullable ValueMap snapshot(@Nullable Map<String, Object> properties) {
+        return properties != null ? new ValueMapDecorator(Collections.unmodifiableMap(new HashMap<>(properties))) : null;
+    }
+
+    @Override
+    public @NotNull Resource getResource() {
+        return resource;
+    }
+
+    @Override
+    public Object getAttribute(String name) {
+        return BINDINGS.equals(name) ? bindings : super.getAttribute(name);
+    }
+}
@@ -0,0 +1,88 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import javax.servlet.ServletRequest;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Request scoped byte size of the style written in the page, before & after post processing. Styles served
+ * from cache count for the sizes recorded when they were generated.
+ */
+final class StyleBytes {
+
+    static final String ATTRIBUTE = StyleBytes.class.getName();
+
+    private long raw;
+
+    private long written;
+
+    /**
+     * @param request current request
+     * @return style bytes attached to that request, created if needed
+     */
+    static @NotNull StyleBytes fromRequest(@NotNull ServletRequest request) {
+        Object bytes = request.getAttribute(ATTRIBUTE);
+        if (bytes instanceof StyleBytes) {
+            return (StyleBytes) bytes;
+        }
+        StyleBytes newBytes = new StyleBytes();
+        request.setAttribute(ATTRIBUTE, newBytes);
+        return newBytes;
+    }
+
+    void add(long rawBytes, long writtenBytes) {
+        raw += rawBytes;
+        written += writtenBytes;
+    }
+
+    /**
+     * @return bytes of style generated during that request
+     */
+    long getRaw() {
+        return raw;
+    }
+
+    /**
+     * @return bytes of style written during that request
+     */
+    long getWritten() {
+        return written;
+    }
+
+    /**
+     * @return UTF-8 encoded length of given text, without encoding it
+     */
+    static long utf8Length(@NotNull CharSequence text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,286 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import static com.day.cq.commons.jcr.JcrConstants.JCR_LASTMODIFIED;
+import static com.day.cq.wcm.api.NameConstants.PN_PAGE_LAST_MOD;
+
+import com.adobe.dx.responsive.Breakpoint;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+
+import java.util.ArrayDeque;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.ValueMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Bounded cache of generated local styles, keyed by (resource path, policy path, breakpoint configuration hash,
+ * last modifications, id).
+ *
+ * Lookups don't take any lock: they only mark entries as recently used. Writes (insertion, eviction &
+ * invalidation) are serialized, eviction giving recently used entries a second chance (clock algorithm), and
+ * invalidation going through an index of entries per resource & policy path, so that only related entries are
+ * visited.
+ */
+final class StyleCache {
+
+    private static final char SLASH = '/';
+
+    private final int maxSize;
+
+    private final Map<Key, Entry> styles = new ConcurrentHashMap<>();
+
+    /**
+     * insertion order of entries, used for eviction, possibly containing entries removed since then, only
+     * accessed with {@link #paths} lock
+     */
+    private final ArrayDeque<Entry> order = new ArrayDeque<>();
+
+    /**
+     * entries per resource or policy path, guarding all writes
+     */
+    private final NavigableMap<String, Set<Key>> paths = new TreeMap<>();
+
+    StyleCache(final int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return last modification time of given properties, 0 if unknown
+     */
+    static long getLastModified(@Nullable ValueMap properties) {
+        if (properties != null) {
+            Calendar lastModified = properties.get(JCR_LASTMODIFIED, Calendar.class);
+            if (lastModified == null) {
+                lastModified = properties.get(PN_PAGE_LAST_MOD, Calendar.class);
+            }
+            if (lastModified != null) {
+                return lastModified.getTimeInMillis();
+            }
+        }
+        return 0L;
+    }
+
+    /**
+     * @return hash of breakpoint definitions relevant to style generation
+     */
+    static int hash(@Nullable Breakpoint[] breakpoints) {
+        int hash = 1;
+        if (breakpoints != null) {
+            for (Breakpoint breakpoint : breakpoints) {
+                hash = 31 * hash + Objects.hash(breakpoint.key(), breakpoint.propertySuffix(), breakpoint.mediaQuery());
+            }
+        }
+        return hash;
+    }
+
+    static Key key(@Nullable String id, @NotNull Resource resource, @Nullable ContentPolicy policy,
+                   @Nullable Breakpoint[] breakpoints) {
+        return new Key(id, resource.getPath(), policy != null ? policy.getPath() : null, hash(breakpoints),
+            getLastModified(resource.getValueMap()), policy != null ? getLastModified(policy.getProperties()) : 0L);
+    }
+
+    @Nullable Entry get(@NotNull Key key) {
+        Entry entry = styles.get(key);
+        if (entry != null) {
+            entry.referenced = true;
+        }
+        return entry;
+    }
+
+    /**
+     * @param key cache key
+     * @param style generated & post processed style
+     * @param rawLength byte length of the style before post processing
+     * @param writtenLength byte length of the style
+     */
+    void put(@NotNull Key key, @NotNull String style, long rawLength, long writtenLength) {
+        Entry entry = new Entry(key, style, rawLength, writtenLength);
+        synchronized (paths) {
+            Entry previous = styles.put(key, entry);
+            if (previous == null) {
+                index(key.resourcePath, key);
+                index(key.policyPath, key);
+            }
+            order.add(entry);
+            evict();
+        }
+    }
+
+    private void index(@Nullable String path, Key key) {
+        if (path != null) {
+            paths.computeIfAbsent(path, p -> new HashSet<>()).add(key);
+        }
+    }
+
+    private void unindex(@Nullable String path, Key key) {
+        if (path != null) {
+            Set<Key> keys = paths.get(path);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                paths.remove(path);
+            }
+        }
+    }
+
+    private void remove(Key key) {
+        if (styles.remove(key) != null) {
+            unindex(key.resourcePath, key);
+            unindex(key.policyPath, key);
+        }
+    }
+
+    /**
+     * removes entries beyond max size, oldest first unless used since last visit, and drops entries removed
+     * otherwise from insertion order once they make up half of it
+     */
+    private void evict() {
+        while (styles.size() > maxSize || order.size() > 2 * maxSize) {
+            Entry entry = order.poll();
+            if (entry == null) {
+                return;
+            }
+            if (styles.get(entry.key) != entry) {
+                //already removed or replaced
+                continue;
+            }
+            if (styles.size() > maxSize && !entry.referenced) {
+                remove(entry.key);
+            } else {
+                entry.referenced = false;
+                order.add(entry);
+            }
+        }
+    }
+
+    void clear() {
+        synchronized (paths) {
+            styles.clear();
+            paths.clear();
+            order.clear();
+        }
+    }
+
+    /**
+     * removes any entry whose resource or policy is, or is an ancestor or a descendant of, given path
+     */
+    void invalidate(@NotNull String path) {
+        synchronized (paths) {
+            Set<Key> related = new HashSet<>();
+            for (Map.Entry<String, Set<Key>> entry : paths.tailMap(path, true).entrySet()) {
+                if (!entry.getKey().startsWith(path)) {
+                    break;
+                }
+                if (isSameOrAncestor(path, entry.getKey())) {
+                    related.addAll(entry.getValue());
+                }
+            }
+            for (String parent = ResourceUtil.getParent(path); parent != null; parent = ResourceUtil.getParent(parent)) {
+                Set<Key> keys = paths.get(parent);
+                if (keys != null) {
+                    related.addAll(keys);
+                }
+            }
+            for (Key key : related) {
+                remove(key);
+            }
+        }
+    }
+
+    static boolean isRelated(@NotNull String path, @Nullable String other) {
+        return other != null && (isSameOrAncestor(path, other) || isSameOrAncestor(other, path));
+    }
+
+    static boolean isSameOrAncestor(@NotNull String ancestor, @NotNull String path) {
+        return path.startsWith(ancestor) && (path.length() == ancestor.length()
+            || path.charAt(ancestor.length()) == SLASH || ancestor.length() == 1);
+    }
+
+    int size() {
+        return styles.size();
+    }
+
+    /**
+     * cached style, together with the byte lengths it accounts for
+     */
+    static final class Entry {
+        final Key key;
+        final String style;
+        final long rawLength;
+        final long writtenLength;
+        volatile boolean referenced;
+
+        Entry(Key key, String style, long rawLength, long writtenLength) {
+            this.key = key;
+            this.style = style;
+            this.rawLength = rawLength;
+            this.writtenLength = writtenLength;
+        }
+    }
+
+    static final class Key {
+        final String id;
+        final String resourcePath;
+        final String policyPath;
+        final int breakpointsHash;
+        final long resourceModified;
+        final long policyModified;
+        private final int hash;
+
+        Key(String id, String resourcePath, String policyPath, int breakpointsHash, long resourceModified,
+            long policyModified) {
+            this.id = id;
+            this.resourcePath = resourcePath;
+            this.policyPath = policyPath;
+            this.breakpointsHash = breakpointsHash;
+            this.resourceModified = resourceModified;
+            this.policyModified = policyModified;
+            hash = Objects.hash(id, resourcePath, policyPath, breakpointsHash, resourceModified, policyModified);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return breakpointsHash == key.breakpointsHash
+                && resourceModified == key.resourceModified
+                && policyModified == key.policyModified
+                && Objects.equals(id, key.id)
+                && resourcePath.equals(key.resourcePath)
+                && Objects.equals(policyPath, key.policyPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -16,45 +16,104 @@
 
 package com.adobe.dx.style.internal;
 
-import static com.adobe.dx.style.Constants.DECLARATION_DELIMITER;
 import static com.day.cq.wcm.commons.Constants.EMPTY_STRING_ARRAY;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 
-import com.adobe.dx.bindings.internal.DxBindingsValueProvider;
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.metrics.RenderTrace;
 import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.style.StyleSink;
 import com.adobe.dx.style.StyleWorker;
 import com.adobe.dx.style.StyleService;
 import com.adobe.dx.utils.RequestUtil;
+import com.day.cq.wcm.api.Page;
+import com.day.cq.wcm.api.PageManager;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.collections.MapUtils;
-import org.apache.commons.lang.StringUtils;
-import org.apache.poi.hssf.record.PageBreakRecord;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.Resource;
-import org.apache.sling.api.scripting.SlingBindings;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.ConfigurationPolicy;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-@Component(configurationPolicy = ConfigurationPolicy.REQUIRE)
-public class StyleServiceImpl implements StyleService {
+/**
+ * Style service, that also listens to resource changes, including the ones of other cluster instances, to invalidate
+ * what it caches: component definitions under <code>/apps</code> & <code>/libs</code> are always listened to, as
+ * worker chains are resolved from them, <code>/content</code> & <code>/conf</code> only when styles or page hashes
+ * are cached.
+ */
+@Component(service = StyleService.class,
+    configurationPolicy = ConfigurationPolicy.REQUIRE)
+@Designate(ocd = StyleServiceImpl.Configuration.class)
+public class StyleServiceImpl implements StyleService, ResourceChangeListener, ExternalResourceChangeListener {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
-    private static final String FORMAT_ID = "#%s {%s}";
-    private static final String FORMAT_BP = "\n%s {\n%s\n}";
     private static final String SLASH = "/";
-    private static final String TYPE_PREFIX = "/apps/";
-    private static final String STYLEWORKERS_SUFFIX = "/styleWorkers";
+    private static final String APPS_PREFIX = "/apps/";
+    private static final String LIBS_PREFIX = "/libs/";
+    private static final String CONF_PREFIX = "/conf/";
+    private static final String[] DEFINITION_PATHS = {"/apps", "/libs"};
+    private static final String[] CONTENT_PATHS = {"/apps", "/libs", "/content", "/conf"};
+    private static final String[] LISTENED_CHANGES = {"ADDED", "CHANGED", "REMOVED"};
+    private static final String PN_STYLEWORKERS = "styleWorkers";
+    private static final String PN_RESOURCE_SUPER_TYPE = "sling:resourceSuperType";
+    /**
+     * content properties that don't have any effect on generated styles: replication status & DOM tagging
+     */
+    private static final Set<String> IGNORED_PROPERTIES = new HashSet<>(Arrays.asList("cq:lastReplicated",
+        "cq:lastReplicatedBy", "cq:lastReplicationAction", "dx_id", "dx_pageId", "dx_tagMarker"));
+    static final String METRIC_LOCAL_STYLE = "style.getLocalStyle";
+    static final String METRIC_CACHE = "style.cache";
+    static final String METRIC_GENERATION = "style.generation";
+    static final String SEQUENTIAL = "sequential";
+    static final String PARALLEL = "parallel";
+    static final String METRIC_BYTES = "style.bytes";
+    static final String RAW = "raw";
+    static final String WRITTEN = "written";
+    static final String HIT = "hit";
+    static final String MISS = "miss";
+    private static final StyleWorker[] NO_WORKERS = new StyleWorker[0];
+    /**
+     * max number of super types followed when resolving a worker chain
+     */
+    private static final int MAX_SUPERTYPE_DEPTH = 20;
+    private static final int DEFAULT_PAGE_CACHE_SIZE = 1000;
+    private static final long DEFAULT_PARALLEL_TIMEOUT = 1000L;
 
     @Reference(service= StyleWorker.class,
         cardinality= ReferenceCardinality.MULTIPLE,
@@ -64,73 +123,527 @@ public class StyleServiceImpl implements StyleService {
 
     Map<String, StyleWorker> workerMap = MapUtils.EMPTY_MAP;
 
-    String getStylePerBreakpoint(String id, Breakpoint breakpoint, String[] keys, SlingHttpServletRequest request) {
-        List<String> declarations = null;
-        for (String workerKey : keys) {
-            if (workerMap.containsKey(workerKey)) {
-                logger.debug("found {} worker", workerKey);
-                String declaration = workerMap.get(workerKey).getDeclaration(breakpoint, request);
-                if (StringUtils.isNotBlank(declaration)) {
-                    logger.debug("generated {}", declaration);
-                    if (declarations == null) {
-                        declarations = new ArrayList<>();
-                    }
-                    declarations.add(declaration);
-                }
-            }
+    /**
+     * resolved worker chains, per resource type
+     */
+    final Map<String, StyleWorker[]> workerChains = new ConcurrentHashMap<>();
+
+    /**
+     * content hashes of styled components, per page path
+     */
+    volatile PageStyleCache pageCache = new PageStyleCache(DEFAULT_PAGE_CACHE_SIZE);
+
+    /**
+     * per thread sink, reused from one generation to the other
+     */
+    private final ThreadLocal<StyleSink> sinks = new ThreadLocal<>();
+
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    volatile DxMetrics metrics;
+
+    /**
+     * style cache, null if disabled
+     */
+    volatile StyleCache styleCache;
+
+    boolean aggregate;
+
+    boolean externalStyleSheet;
+
+    boolean deduplicate;
+
+    boolean minify;
+
+    /**
+     * executor breakpoints are rendered with, null if parallel mode is disabled
+     */
+    volatile StyleExecutor executor;
+
+    /**
+     * max time, in milliseconds, a request waits for its breakpoints rendered in parallel
+     */
+    long parallelTimeout = DEFAULT_PARALLEL_TIMEOUT;
+
+    /**
+     * registration of this service as resource change listener, on paths depending on the configuration
+     */
+    private ServiceRegistration<ResourceChangeListener> listenerRegistration;
+
+    @Activate
+    @Modified
+    public void activate(BundleContext bundleContext, Configuration configuration) {
+        styleCache = configuration.cacheSize() > 0 ? new StyleCache(configuration.cacheSize()) : null;
+        pageCache = new PageStyleCache(Math.max(1, configuration.pageCacheSize()));
+        aggregate = configuration.aggregate();
+        externalStyleSheet = configuration.externalStyleSheet();
+        deduplicate = configuration.deduplicate();
+        minify = configuration.minify();
+        parallelTimeout = Math.max(1L, configuration.parallelTimeout());
+        StyleExecutor previous = executor;
+        executor = configuration.parallelThreads() > 0 ? new StyleExecutor(configuration.parallelThreads()) : null;
+        if (previous != null) {
+            previous.shutdown();
         }
-        if (declarations != null && !declarations.isEmpty()) {
-            String concat = String.join(DECLARATION_DELIMITER, declarations);
-            return StringUtils.isNotBlank(id) ? String.format(FORMAT_ID, id, concat) : concat;
+        registerListener(bundleContext, styleCache != null || aggregate ? CONTENT_PATHS : DEFINITION_PATHS);
+    }
+
+    @Deactivate
+    public void deactivate() {
+        StyleExecutor previous = executor;
+        executor = null;
+        if (previous != null) {
+            previous.shutdown();
+        }
+        registerListener(null, null);
+    }
+
+    /**
+     * replaces current listener registration with one on given paths, if any
+     */
+    private synchronized void registerListener(@Nullable BundleContext bundleContext, @Nullable String[] paths) {
+        if (listenerRegistration != null) {
+            listenerRegistration.unregister();
+            listenerRegistration = null;
+        }
+        if (bundleContext != null && paths != null) {
+            Dictionary<String, Object> properties = new Hashtable<>();
+            properties.put(ResourceChangeListener.PATHS, paths);
+            properties.put(ResourceChangeListener.CHANGES, LISTENED_CHANGES);
+            listenerRegistration = bundleContext.registerService(ResourceChangeListener.class, this, properties);
         }
-        return EMPTY;
     }
 
     @Override
     public String getLocalStyle(String id, SlingHttpServletRequest request) {
-        Resource resource = request.getResource();
-        String[] keys = getWorkerKeys(resource);
-        if (keys.length > 0) {
-            StringBuilder style = new StringBuilder();
-            String defaultStyle = getStylePerBreakpoint(id, null, keys, request);
-            if (StringUtils.isNotBlank(defaultStyle)) {
-                style.append(defaultStyle);
+        DxMetrics dxMetrics = metrics;
+        long start = dxMetrics != null ? dxMetrics.start() : 0L;
+        RenderTrace trace = RenderTrace.fromRequest(request);
+        long traceStart = trace != null ? trace.start() : 0L;
+        try {
+            return computeLocalStyle(id, request);
+        } finally {
+            if (start != 0L) {
+                dxMetrics.record(METRIC_LOCAL_STYLE, request.getResource().getResourceType(), start);
             }
+            if (trace != null) {
+                trace.record(request.getResource().getPath(), RenderTrace.STYLE, traceStart);
+            }
+        }
+    }
+
+    private String computeLocalStyle(String id, SlingHttpServletRequest request) {
+        Resource resource = request.getResource();
+        StyleWorker[] chain = getWorkers(resource);
+        if (chain.length > 0) {
             Breakpoint[] breakpoints = RequestUtil.getBreakpoints(request);
+            StyleCache cache = styleCache;
+            StyleCache.Key cacheKey = null;
+            if (cache != null) {
+                cacheKey = StyleCache.key(id, resource, RequestUtil.getContentPolicy(request), breakpoints);
+                StyleCache.Entry cached = cache.get(cacheKey);
+                countCacheLookup(cached != null);
+                if (cached != null) {
+                    addBytes(request, cached.rawLength, cached.writtenLength);
+                    return cached.style;
+                }
+            }
+            String generated = generateLocalStyle(id, breakpoints, chain, request);
+            String style = minify && !generated.isEmpty() ? CssMinifier.minify(generated) : generated;
+            long rawLength = StyleBytes.utf8Length(generated);
+            long writtenLength = style == generated ? rawLength : StyleBytes.utf8Length(style);
+            addBytes(request, rawLength, writtenLength);
+            if (cacheKey != null) {
+                cache.put(cacheKey, style, rawLength, writtenLength);
+            }
+            return style;
+        }
+        return EMPTY;
+    }
+
+    String generateLocalStyle(String id, Breakpoint[] breakpoints, StyleWorker[] chain, SlingHttpServletRequest request) {
+        DxMetrics dxMetrics = metrics;
+        long start = dxMetrics != null ? dxMetrics.start() : 0L;
+        Cascade cascade = new Cascade(chain.length, breakpoints, deduplicate);
+        StyleExecutor parallel = executor;
+        if (parallel != null && breakpoints != null && breakpoints.length > 0 && isThreadSafe(chain)) {
+            String style = generateInParallel(parallel, id, breakpoints, chain, request, cascade);
+            if (style != null) {
+                if (start != 0L) {
+                    dxMetrics.record(METRIC_GENERATION, PARALLEL, start);
+                }
+                return style;
+            }
+            cascade = new Cascade(chain.length, breakpoints, deduplicate);
+        }
+        StyleSink sink = acquireSink();
+        try {
+            writeStylePerBreakpoint(id, null, chain, request, sink, cascade);
             if (breakpoints != null) {
                 for (Breakpoint breakpoint : breakpoints) {
-                    String bpStyle = getStylePerBreakpoint(id, breakpoint, keys, request);
-                    if (StringUtils.isNotBlank(bpStyle)) {
-                        style.append(String.format(FORMAT_BP, breakpoint.mediaQuery(), bpStyle));
+                    writeStylePerBreakpoint(id, breakpoint, chain, request, sink, cascade);
+                }
+            }
+            String style = sink.length() > 0 ? sink.toString() : EMPTY;
+            logger.debug("generated {}", style);
+            return style;
+        } finally {
+            releaseSink(sink);
+            if (start != 0L) {
+                dxMetrics.record(METRIC_GENERATION, SEQUENTIAL, start);
+            }
+        }
+    }
+
+    static boolean isThreadSafe(StyleWorker[] chain) {
+        for (StyleWorker worker : chain) {
+            if (!worker.isThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Renders each breakpoint's declarations in the executor, and common ones in current thread, then writes them
+     * back in breakpoint order. Pool threads only read a snapshot of the component properties & DX bindings, taken
+     * beforehand on the request thread. Remaining sections are cancelled as soon as one of them fails, or when they
+     * are not all rendered within the configured timeout.
+     *
+     * @return generated style, or null if it could not be generated that way
+     */
+    String generateInParallel(StyleExecutor parallel, String id, Breakpoint[] breakpoints, StyleWorker[] chain,
+                              SlingHttpServletRequest request, Cascade cascade) {
+        SlingHttpServletRequest snapshot = new SnapshotRequest(request);
+        List<Future<String[]>> sections = new ArrayList<>(breakpoints.length);
+        for (Breakpoint breakpoint : breakpoints) {
+            sections.add(parallel.submit(() -> renderDeclarations(breakpoint, chain, snapshot)));
+        }
+        StyleSink sink = acquireSink();
+        try {
+            writeDeclarations(id, null, renderDeclarations(null, chain, request), sink, cascade);
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(parallelTimeout);
+            for (int i = 0; i < breakpoints.length; i++) {
+                String[] declarations = sections.get(i).get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                writeDeclarations(id, breakpoints[i], declarations, sink, cascade);
+            }
+            String style = sink.length() > 0 ? sink.toString() : EMPTY;
+            logger.debug("generated {} in parallel", style);
+            return style;
+        } catch (ExecutionException e) {
+            cancel(sections);
+            logger.warn("unable to generate style in parallel, falling back to sequential generation", e.getCause());
+        } catch (TimeoutException e) {
+            cancel(sections);
+            logger.warn("{} breakpoints not rendered within {}ms, falling back to sequential generation",
+                request.getResource().getPath(), parallelTimeout);
+        } catch (InterruptedException e) {
+            cancel(sections);
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            cancel(sections);
+            throw e;
+        } finally {
+            releaseSink(sink);
+        }
+        return null;
+    }
+
+    private static void cancel(List<Future<String[]>> sections) {
+        for (Future<String[]> section : sections) {
+            section.cancel(true);
+        }
+    }
+
+    /**
+     * @return declarations of each worker of the chain, for given breakpoint
+     */
+    private String[] renderDeclarations(Breakpoint breakpoint, StyleWorker[] chain, SlingHttpServletRequest request) {
+        String[] declarations = new String[chain.length];
+        StyleSink sink = acquireSink();
+        try {
+            for (int i = 0; i < chain.length; i++) {
+                sink.capture();
+                chain[i].writeDeclaration(breakpoint, request, sink);
+                declarations[i] = sink.captured();
+                sink.reset();
+            }
+        } finally {
+            releaseSink(sink);
+        }
+        return declarations;
+    }
+
+    private void writeDeclarations(String id, Breakpoint breakpoint, String[] declarations, StyleSink sink,
+                                   Cascade cascade) {
+        sink.startSection(id, breakpoint != null ? breakpoint.mediaQuery() : null);
+        for (int i = 0; i < declarations.length; i++) {
+            cascade.write(i, declarations[i], breakpoint, sink);
+        }
+        sink.endSection();
+    }
+
+    /**
+     * minifies generated style if configured so, and counts its bytes
+     *
+     * @return style to write
+     */
+    String postProcess(@Nullable String style, SlingHttpServletRequest request) {
+        if (StringUtils.isEmpty(style)) {
+            return style;
+        }
+        String processed = minify ? CssMinifier.minify(style) : style;
+        countBytes(request, style, processed);
+        return processed;
+    }
+
+    private void countBytes(SlingHttpServletRequest request, String raw, String written) {
+        long rawLength = StyleBytes.utf8Length(raw);
+        addBytes(request, rawLength, raw == written ? rawLength : StyleBytes.utf8Length(written));
+    }
+
+    private void addBytes(SlingHttpServletRequest request, long rawLength, long writtenLength) {
+        StyleBytes.fromRequest(request).add(rawLength, writtenLength);
+        DxMetrics dxMetrics = metrics;
+        if (dxMetrics != null) {
+            dxMetrics.add(METRIC_BYTES, RAW, rawLength);
+            dxMetrics.add(METRIC_BYTES, WRITTEN, writtenLength);
+        }
+    }
+
+    private void countCacheLookup(boolean hit) {
+        DxMetrics dxMetrics = metrics;
+        if (dxMetrics != null) {
+            dxMetrics.increment(METRIC_CACHE, hit ? HIT : MISS);
+        }
+    }
+
+    /**
+     * @return this thread's sink, or a new one if it is already in use (nested call)
+     */
+    StyleSink acquireSink() {
+        StyleSink sink = sinks.get();
+        if (sink != null) {
+            sinks.set(null);
+            return sink;
+        }
+        return new StyleSink();
+    }
+
+    void releaseSink(StyleSink sink) {
+        sink.reset();
+        sinks.set(sink);
+    }
+
+    @Override
+    public boolean collectLocalStyle(String id, SlingHttpServletRequest request) {
+        if (!aggregate || StringUtils.isBlank(id)) {
+            return false;
+        }
+        RenderTrace trace = RenderTrace.fromRequest(request);
+        long traceStart = trace != null ? trace.start() : 0L;
+        try {
+            return collectPageStyle(id, request);
+        } finally {
+            if (trace != null) {
+                trace.record(request.getResource().getPath(), RenderTrace.STYLE, traceStart);
+            }
+        }
+    }
+
+    private boolean collectPageStyle(String id, SlingHttpServletRequest request) {
+        PageStyle pageStyle = PageStyle.fromRequest(request);
+        if (pageStyle == null) {
+            //rendered alone, or out of page head & end: style stays inline
+            return false;
+        }
+        if (!pageStyle.isCollecting()) {
+            //page stylesheet has been linked from the page head
+            return true;
+        }
+        StyleWorker[] chain = getWorkers(request.getResource());
+        if (chain.length > 0 && pageStyle.add(id)) {
+            Breakpoint[] breakpoints = RequestUtil.getBreakpoints(request);
+            Cascade cascade = new Cascade(chain.length, breakpoints, deduplicate);
+            pageStyle.prepare(breakpoints);
+            StyleSink sink = acquireSink();
+            try {
+                collectRules(id, null, chain, request, sink, pageStyle, cascade);
+                if (breakpoints != null) {
+                    for (Breakpoint breakpoint : breakpoints) {
+                        collectRules(id, breakpoint, chain, request, sink, pageStyle, cascade);
                     }
                 }
+            } finally {
+                releaseSink(sink);
             }
-            if (style.length() > 0) {
-                return style.toString();
+        }
+        return true;
+    }
+
+    private void collectRules(String id, Breakpoint breakpoint, StyleWorker[] chain, SlingHttpServletRequest request,
+                              StyleSink sink, PageStyle pageStyle, Cascade cascade) {
+        sink.startSection(id, null);
+        for (int i = 0; i < chain.length; i++) {
+            cascade.write(i, chain[i], breakpoint, request, sink);
+        }
+        if (sink.length() > 0) {
+            pageStyle.append(breakpoint != null ? breakpoint.mediaQuery() : null, sink.toString());
+            sink.reset();
+        }
+    }
+
+    @Override
+    public boolean startPageStyle(SlingHttpServletRequest request) {
+        PageStyle current = PageStyle.fromRequest(request);
+        if (!aggregate || current != null && current.isCollecting()) {
+            return false;
+        }
+        PageStyle.startCollecting(request);
+        return true;
+    }
+
+    @Override
+    public String getPageStyle(SlingHttpServletRequest request) {
+        PageStyle pageStyle = PageStyle.fromRequest(request);
+        if (pageStyle == null || !pageStyle.isCollecting()) {
+            return null;
+        }
+        request.removeAttribute(PageStyle.ATTRIBUTE);
+        String style = postProcess(pageStyle.getStyle(), request);
+        if (logger.isDebugEnabled() && style != null) {
+            StyleBytes bytes = StyleBytes.fromRequest(request);
+            logger.debug("{} style: {} bytes generated, {} bytes written", request.getResource().getPath(),
+                bytes.getRaw(), bytes.getWritten());
+        }
+        return style;
+    }
+
+    @Override
+    public String getPageStyleSheet(SlingHttpServletRequest request) {
+        if (aggregate && externalStyleSheet) {
+            Page page = getPage(request);
+            Resource content = page != null ? page.getContentResource() : null;
+            if (content != null) {
+                String hash = getPageEntry(page, content, request).hash;
+                if (PageStyle.fromRequest(request) == null) {
+                    //whole page style is in the stylesheet
+                    PageStyle.serve(request);
+                }
+                return page.getPath() + PageStyleServlet.getSuffix(hash);
             }
         }
-        return EMPTY;
+        return null;
+    }
+
+    private @Nullable Page getPage(SlingHttpServletRequest request) {
+        PageManager pageManager = request.getResourceResolver().adaptTo(PageManager.class);
+        return pageManager != null ? pageManager.getContainingPage(request.getResource()) : null;
+    }
+
+    /**
+     * @return cached content hash of the page styled components, computed once per page revision
+     */
+    private @NotNull PageStyleCache.Entry getPageEntry(Page page, Resource content, SlingHttpServletRequest request) {
+        PageStyleCache cache = pageCache;
+        PageStyleCache.Entry entry = cache.get(page.getPath());
+        if (entry == null) {
+            PageStyleHash pageHash = new PageStyleHash(this::getWorkers,
+                request.getResourceResolver().adaptTo(ContentPolicyManager.class));
+            String hash = pageHash.compute(content, RequestUtil.getBreakpoints(request));
+            entry = cache.put(page.getPath(), hash, pageHash.getPaths());
+        }
+        return entry;
+    }
+
+    void writeStylePerBreakpoint(String id, Breakpoint breakpoint, StyleWorker[] workers, SlingHttpServletRequest request,
+                                 StyleSink sink, Cascade cascade) {
+        sink.startSection(id, breakpoint != null ? breakpoint.mediaQuery() : null);
+        for (int i = 0; i < workers.length; i++) {
+            cascade.write(i, workers[i], breakpoint, request, sink);
+        }
+        sink.endSection();
+    }
+
+    /**
+     * returns ordered chain of bound workers for that given resource's type, resolved once per type. Chains
+     * whose components could not all be read are not kept, so that a user without read access to them doesn't
+     * leave an empty chain for everybody else.
+     */
+    @NotNull StyleWorker[] getWorkers(Resource resource) {
+        String type = resource.getResourceType();
+        StyleWorker[] chain = workerChains.get(type);
+        if (chain == null) {
+            String[] workerKeys = resolveWorkerKeys(resource);
+            List<StyleWorker> list = new ArrayList<>();
+            Map<String, StyleWorker> map = workerMap;
+            for (String workerKey : workerKeys != null ? workerKeys : EMPTY_STRING_ARRAY) {
+                StyleWorker worker = map.get(workerKey);
+                if (worker != null) {
+                    logger.debug("found {} worker", workerKey);
+                    list.add(worker);
+                } else {
+                    logger.debug("{} worker is configured for {} but not available", workerKey, type);
+                }
+            }
+            chain = list.isEmpty() ? NO_WORKERS : list.toArray(new StyleWorker[0]);
+            if (workerKeys != null) {
+                workerChains.put(type, chain);
+            }
+        }
+        return chain;
     }
 
     /**
-     * returns ordered list of workers for that given resource (or null)
+     * @return worker keys of the resource's component or its closest super type defining some, empty if none
+     * does, null if a component of the hierarchy can't be read with the resource's resolver, in which case
+     * another user may get a different result. Node types (e.g. <code>nt:unstructured</code>) are not
+     * components, and resolve to no keys.
      */
-    @NotNull String[] getWorkerKeys(Resource resource) {
+    @Nullable String[] resolveWorkerKeys(Resource resource) {
+        ResourceResolver resolver = resource.getResourceResolver();
         String type = resource.getResourceType();
-        String typePath = (type.startsWith(SLASH) ? type : TYPE_PREFIX + type) + STYLEWORKERS_SUFFIX;
-        Resource keys = resource.getResourceResolver().getResource(typePath);
-        if (keys != null) {
-            return keys.adaptTo(String[].class);
+        for (int depth = 0; type != null && depth < MAX_SUPERTYPE_DEPTH; depth++) {
+            Resource component = getComponent(resolver, type);
+            if (component == null) {
+                return type.indexOf(':') > 0 ? EMPTY_STRING_ARRAY : null;
+            }
+            String[] keys = component.getValueMap().get(PN_STYLEWORKERS, String[].class);
+            if (keys != null) {
+                return keys;
+            }
+            type = component.getResourceSuperType();
         }
         return EMPTY_STRING_ARRAY;
     }
 
+    /**
+     * @return component definition of the given type, looked up in the resolver search paths
+     */
+    Resource getComponent(ResourceResolver resolver, String type) {
+        if (type.startsWith(SLASH)) {
+            return resolver.getResource(type);
+        }
+        for (String searchPath : resolver.getSearchPath()) {
+            Resource component = resolver.getResource(searchPath + type);
+            if (component != null) {
+                return component;
+            }
+        }
+        return null;
+    }
+
     void refreshWorkers() {
         Map<String, StyleWorker> map = new HashMap<>();
         for (StyleWorker worker : workers) {
             map.put(worker.getKey(), worker);
         }
         workerMap = map;
+        workerChains.clear();
+        pageCache.clear();
+        StyleCache cache = styleCache;
+        if (cache != null) {
+            cache.clear();
+        }
     }
 
     void bindWorker(StyleWorker worker) {
@@ -142,4 +655,127 @@ public class StyleServiceImpl implements StyleService {
         workers.remove(worker);
         refreshWorkers();
     }
+
+    @Override
+    public void onChange(@NotNull List<ResourceChange> changes) {
+        StyleCache cache = styleCache;
+        for (ResourceChange change : changes) {
+            String path = change.getPath();
+            if (!isRelevant(change)) {
+                continue;
+            }
+            if (path.startsWith(APPS_PREFIX) || path.startsWith(LIBS_PREFIX)) {
+                //component definitions may have changed
+                workerChains.clear();
+                pageCache.clear();
+                if (cache != null) {
+                    cache.clear();
+                }
+                return;
+            }
+            if (path.startsWith(CONF_PREFIX)) {
+                //policies or breakpoints may have changed
+                pageCache.clear();
+            } else {
+                pageCache.invalidate(path);
+            }
+            if (cache != null) {
+                cache.invalidate(path);
+            }
+        }
+    }
+
+    /**
+     * @return false for changes that can't affect generated styles: under <code>/apps</code> & <code>/libs</code>,
+     * anything else than component nodes (files, having an extension) or their worker & super type properties,
+     * elsewhere changes of ignored properties only
+     */
+    static boolean isRelevant(ResourceChange change) {
+        String path = change.getPath();
+        Set<String> properties = getPropertyNames(change);
+        if (path.startsWith(APPS_PREFIX) || path.startsWith(LIBS_PREFIX)) {
+            if (path.indexOf('.', APPS_PREFIX.length()) >= 0) {
+                return false;
+            }
+            return change.getType() != ResourceChange.ChangeType.CHANGED || properties == null
+                || properties.contains(PN_STYLEWORKERS) || properties.contains(PN_RESOURCE_SUPER_TYPE);
+        }
+        return change.getType() != ResourceChange.ChangeType.CHANGED || properties == null
+            || !IGNORED_PROPERTIES.containsAll(properties);
+    }
+
+    /**
+     * @return names of added, changed & removed properties, null if unknown
+     */
+    static @Nullable Set<String> getPropertyNames(ResourceChange change) {
+        Set<String> names = null;
+        for (Set<String> set : Arrays.asList(change.getAddedPropertyNames(), change.getChangedPropertyNames(),
+            change.getRemovedPropertyNames())) {
+            if (set != null) {
+                if (names == null) {
+                    names = new HashSet<>();
+                }
+                names.addAll(set);
+            }
+        }
+        return names;
+    }
+
+    @ObjectClassDefinition(name = "Adobe DX Style Service")
+    public @interface Configuration {
+
+        @AttributeDefinition(
+            name = "Cache size",
+            description = "maximum number of generated component styles kept in memory, 0 disables the cache. "
+                + "Only enable it if all style workers only depend on component content, policy & breakpoints"
+        )
+        int cacheSize() default 0;
+
+        @AttributeDefinition(
+            name = "Page style aggregation",
+            description = "if checked, components styles are collected and written once per page, grouped by media query"
+        )
+        boolean aggregate() default false;
+
+        @AttributeDefinition(
+            name = "External stylesheet",
+            description = "if checked, aggregated page style is served as a stylesheet per page revision"
+        )
+        boolean externalStyleSheet() default false;
+
+        @AttributeDefinition(
+            name = "Page cache size",
+            description = "maximum number of pages whose style hash & aggregated style are kept in memory"
+        )
+        int pageCacheSize() default DEFAULT_PAGE_CACHE_SIZE;
+
+        @AttributeDefinition(
+            name = "Parallel threads",
+            description = "if greater than 0, size of the pool breakpoints are rendered with in parallel. Only used "
+                + "for components whose style workers are all thread safe"
+        )
+        int parallelThreads() default 0;
+
+        @AttributeDefinition(
+            name = "Parallel timeout",
+            description = "max time, in milliseconds, a request waits for its breakpoints rendered in parallel, "
+                + "before generating its style sequentially"
+        )
+        long parallelTimeout() default DEFAULT_PARALLEL_TIMEOUT;
+
+        @AttributeDefinition(
+            name = "Minify",
+            description = "if checked, generated styles are minified: unneeded whitespace removed, rules with the same "
+                + "selector merged, empty & adjacent identical media blocks collapsed"
+        )
+        boolean minify() default false;
+
+        @AttributeDefinition(
+            name = "Deduplicate breakpoint declarations",
+            description = "if checked, a breakpoint declaration identical to the one cascaded from a smaller breakpoint "
+                + "is not written again. Only applies when all breakpoint media queries are single min-width features "
+                + "in ascending order"
+        )
+        boolean deduplicate() default false;
+    }
 }
@@ -17,8 +17,11 @@ package com.adobe.dx.utils;
 
 import com.adobe.dx.bindings.internal.DxBindingsValueProvider;
 import com.adobe.dx.responsive.Breakpoint;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+import com.day.cq.wcm.scripting.WCMBindingsConstants;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.resource.ValueMap;
@@ -39,12 +42,26 @@ public class RequestUtil {
         return (SlingBindings)request.getAttribute(SlingBindings.class.getName());
     }
 
+    /**
+     * @param request current request
+     * @param key binding key
+     * @return binding value, resolved in case it has been lazily set
+     */
+    static Object getBinding(SlingHttpServletRequest request, String key) {
+        SlingBindings bindings = getBindings(request);
+        Object value = bindings != null ? bindings.get(key) : null;
+        if (value instanceof Supplier) {
+            return ((Supplier<?>) value).get();
+        }
+        return value;
+    }
+
     /**
      * @param request current request
      * @return current DX policy
      */
     public static final ValueMap getPolicy(SlingHttpServletRequest request) {
-        return (ValueMap)getBindings(request).get(DxBindingsValueProvider.POLICY_KEY);
+        return (ValueMap) getBinding(request, DxBindingsValueProvider.POLICY_KEY);
     }
 
     /**
@@ -52,7 +69,7 @@ public class RequestUtil {
      * @return current set of breakpoints
      */
     public static final Breakpoint[] getBreakpoints(SlingHttpServletRequest request) {
-        return (Breakpoint[]) getBindings(request).get(DxBindingsValueProvider.BP_KEY);
+        return (Breakpoint[]) getBinding(request, DxBindingsValueProvider.BP_KEY);
     }
 
     /**
@@ -60,6 +77,15 @@ public class RequestUtil {
      * @return current set of responsive properties
      */
     public static final Map<String, Object> getResponsiveProperties(SlingHttpServletRequest request) {
-        return (Map<String, Object>) getBindings(request).get(DxBindingsValueProvider.RESP_PROPS_KEY);
+        return (Map<String, Object>) getBinding(request, DxBindingsValueProvider.RESP_PROPS_KEY);
+    }
+
+    /**
+     * @param request current request
+     * @return current content policy, if any
+     */
+    public static final ContentPolicy getContentPolicy(SlingHttpServletRequest request) {
+        Object policy = getBinding(request, WCMBindingsConstants.NAME_CURRENT_CONTENT_POLICY);
+        return policy instanceof ContentPolicy ? (ContentPolicy) policy : null;
     }
 }
@@ -0,0 +1,76 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.utils;
+
+import java.util.Iterator;
+
+import javax.jcr.RepositoryException;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.jackrabbit.api.security.user.Authorizable;
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.UserManager;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility class for checking who is using a resource resolver
+ */
+public class UserUtil {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserUtil.class);
+
+    private static final String ADMIN = "admin";
+
+    private static final String ANONYMOUS = "anonymous";
+
+    private UserUtil() {
+    }
+
+    /**
+     * @param resolver resolver of the current user
+     * @param groups ids of allowed groups
+     * @return true if the user is admin, or an authenticated member of one of given groups
+     */
+    public static boolean isMemberOf(ResourceResolver resolver, String... groups) {
+        String userId = resolver.getUserID();
+        if (userId == null || ANONYMOUS.equals(userId)) {
+            return false;
+        }
+        if (ADMIN.equals(userId)) {
+            return true;
+        }
+        UserManager userManager = resolver.adaptTo(UserManager.class);
+        if (userManager == null || ArrayUtils.isEmpty(groups)) {
+            return false;
+        }
+        try {
+            Authorizable user = userManager.getAuthorizable(userId);
+            if (user != null) {
+                Iterator<Group> memberships = user.memberOf();
+                while (memberships.hasNext()) {
+                    if (ArrayUtils.contains(groups, memberships.next().getID())) {
+                        return true;
+                    }
+                }
+            }
+        } catch (RepositoryException e) {
+            LOG.error("unable to read {} memberships", userId, e);
+        }
+        return false;
+    }
+}
@@ -19,6 +19,7 @@ package com.adobe.dx.utils.service.internal;
 import static com.day.cq.commons.jcr.JcrConstants.JCR_CONTENT;
 import static org.apache.sling.api.resource.ResourceResolverFactory.SUBSERVICE;
 
+import com.adobe.dx.metrics.DxMetrics;
 import com.adobe.dx.utils.service.CloudConfigReader;
 
 import java.util.Collections;
@@ -32,6 +33,8 @@ import org.apache.sling.caconfig.resource.ConfigurationResourceResolver;
 import org.jetbrains.annotations.NotNull;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,14 +48,31 @@ public class CloudConfigReaderImpl implements CloudConfigReader {
     private static final Map<String, Object> SERVICE_USER = Collections.singletonMap(SUBSERVICE,
         "readService");
 
+    static final String METRIC_CLOUD_CONFIG = "cloudconfig.getContextAwareCloudConfigRes";
+
     @Reference
     private ConfigurationResourceResolver configurationResolver = null;
 
     @Reference
     private ResourceResolverFactory resourceResolverFactory = null;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL, policy = ReferencePolicy.DYNAMIC)
+    private volatile DxMetrics metrics;
+
     @Override
     public <T> T getContextAwareCloudConfigRes(@NotNull String resourcePath, String configName, Class<T> type) {
+        DxMetrics dxMetrics = metrics;
+        long start = dxMetrics != null ? dxMetrics.start() : 0L;
+        try {
+            return readCloudConfig(resourcePath, configName, type);
+        } finally {
+            if (start != 0L) {
+                dxMetrics.record(METRIC_CLOUD_CONFIG, configName, start);
+            }
+        }
+    }
+
+    private <T> T readCloudConfig(@NotNull String resourcePath, String configName, Class<T> type) {
         try (ResourceResolver resolver = resourceResolverFactory.getServiceResourceResolver(SERVICE_USER)) {
             Resource resource = resolver.getResource(resourcePath);
             Resource confRes = null != resource ? configurationResolver.getResource(resource, BUCKET_NAME,
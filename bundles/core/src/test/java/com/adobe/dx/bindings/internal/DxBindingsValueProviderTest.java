@@ -20,15 +20,29 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.metrics.internal.DxMetricsImpl;
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.responsive.internal.BreakpointCache;
 import com.adobe.dx.responsive.internal.ResponsivePropertiesTest;
 import com.adobe.dx.testing.AbstractTest;
+import com.adobe.dx.utils.RequestUtil;
 import com.day.cq.wcm.api.policies.ContentPolicy;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
 import javax.script.Bindings;
 import javax.script.SimpleBindings;
 
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceWrapper;
+import org.apache.sling.api.resource.SyntheticResource;
 import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.api.scripting.SlingBindings;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -94,4 +108,112 @@ class DxBindingsValueProviderTest extends AbstractTest {
         getProvider().addBindings(bindings);
         assertNull(bindings.get("dxPolicy"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void addBindingsWithCache() {
+        DxBindingsValueProvider provider = getProvider();
+        DxMetrics metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        provider.breakpointCache = context.registerInjectActivateService(new BreakpointCache());
+        Bindings bindings = new SimpleBindings();
+        mockAddResource(bindings);
+        provider.addBindings(bindings);
+        Breakpoint[] breakpoints = (Breakpoint[]) bindings.get(DxBindingsValueProvider.BP_KEY);
+        assertEquals(3, breakpoints.length);
+        Bindings otherBindings = new SimpleBindings();
+        otherBindings.put(SlingBindings.RESOURCE, bindings.get(SlingBindings.RESOURCE));
+        provider.addBindings(otherBindings);
+        assertSame(breakpoints, otherBindings.get(DxBindingsValueProvider.BP_KEY), "breakpoints should come from cache");
+        assertEquals(1L, metrics.getCounters().get("breakpoints.cache:hit"));
+    }
+
+    @Test
+    void addBindingsMemoized() {
+        DxBindingsValueProvider provider = getProvider();
+        DxMetrics metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        provider.metrics = metrics;
+        Bindings bindings = new SimpleBindings();
+        mockAddContentPolicy(bindings);
+        mockAddResource(bindings);
+        bindings.put(SlingBindings.REQUEST, context.request());
+        provider.addBindings(bindings);
+        Bindings nestedBindings = new SimpleBindings();
+        nestedBindings.put(NAME_CURRENT_CONTENT_POLICY, bindings.get(NAME_CURRENT_CONTENT_POLICY));
+        nestedBindings.put(SlingBindings.RESOURCE, bindings.get(SlingBindings.RESOURCE));
+        nestedBindings.put(SlingBindings.REQUEST, context.request());
+        provider.addBindings(nestedBindings);
+        assertSame(bindings.get(DxBindingsValueProvider.POLICY_KEY), nestedBindings.get(DxBindingsValueProvider.POLICY_KEY));
+        assertSame(bindings.get(DxBindingsValueProvider.RESP_PROPS_KEY), nestedBindings.get(DxBindingsValueProvider.RESP_PROPS_KEY));
+        assertEquals(1L, metrics.getCounters().get("bindings.memo:built"));
+        assertEquals(1L, metrics.getCounters().get("bindings.memo:reused"));
+        Bindings otherBindings = new SimpleBindings();
+        otherBindings.put(SlingBindings.RESOURCE, context.create().resource(CONTENT_ROOT + "/other"));
+        otherBindings.put(SlingBindings.REQUEST, context.request());
+        provider.addBindings(otherBindings);
+        assertNotSame(bindings.get(DxBindingsValueProvider.POLICY_KEY), otherBindings.get(DxBindingsValueProvider.POLICY_KEY));
+        assertEquals(2L, metrics.getCounters().get("bindings.memo:built"));
+        BindingsMemo memo = BindingsMemo.fromRequest(context.request());
+        assertEquals(2L, memo.getBuilt(), "per request counts should be kept on the memo");
+        assertEquals(1L, memo.getReused());
+    }
+
+    @Test
+    void addBindingsNotMemoized() {
+        DxBindingsValueProvider provider = getProvider();
+        Bindings bindings = new SimpleBindings();
+        mockAddResource(bindings);
+        bindings.put(SlingBindings.REQUEST, context.request());
+        provider.addBindings(bindings);
+        Resource resource = (Resource) bindings.get(SlingBindings.RESOURCE);
+        Bindings wrappedBindings = new SimpleBindings();
+        wrappedBindings.put(SlingBindings.RESOURCE, new ResourceWrapper(resource) {
+            @Override
+            public @NotNull ValueMap getValueMap() {
+                return new ValueMapDecorator(Collections.singletonMap("k1", "wrapped"));
+            }
+        });
+        wrappedBindings.put(SlingBindings.REQUEST, context.request());
+        provider.addBindings(wrappedBindings);
+        assertEquals("wrapped", ((ValueMap) wrappedBindings.get(DxBindingsValueProvider.POLICY_KEY)).get("k1"),
+            "wrapped resource should not reuse bindings of the resource at the same path");
+        Bindings syntheticBindings = new SimpleBindings();
+        syntheticBindings.put(SlingBindings.RESOURCE, new SyntheticResource(context.resourceResolver(),
+            resource.getPath(), "dx/synthetic"));
+        syntheticBindings.put(SlingBindings.REQUEST, context.request());
+        provider.addBindings(syntheticBindings);
+        assertNotSame(bindings.get(DxBindingsValueProvider.POLICY_KEY),
+            syntheticBindings.get(DxBindingsValueProvider.POLICY_KEY));
+        BindingsMemo memo = BindingsMemo.fromRequest(context.request());
+        assertEquals(3L, memo.getBuilt());
+        assertEquals(0L, memo.getReused());
+    }
+
+    @Test
+    void addLazyBindings() {
+        DxBindingsValueProvider provider = context.registerInjectActivateService(new DxBindingsValueProvider(),
+            "lazy", true);
+        Bindings bindings = new SimpleBindings();
+        mockAddContentPolicy(bindings);
+        mockAddResource(bindings);
+        provider.addBindings(bindings);
+        LazyValueMap policy = (LazyValueMap) bindings.get(DxBindingsValueProvider.POLICY_KEY);
+        LazyMap<?> resprops = (LazyMap<?>) bindings.get(DxBindingsValueProvider.RESP_PROPS_KEY);
+        assertFalse(policy.isResolved() || resprops.isResolved(), "nothing should be computed before first access");
+        assertEquals(3, ((Breakpoint[]) bindings.get(DxBindingsValueProvider.BP_KEY)).length,
+            "breakpoints should stay an array");
+        SlingBindings slingBindings = RequestUtil.getBindings(context.request());
+        slingBindings.putAll(bindings);
+        assertEquals("v22", RequestUtil.getPolicy(context.request()).get("k2", String.class));
+        assertTrue(policy.isResolved());
+        assertFalse(resprops.isResolved(), "responsive properties should still not be computed");
+        assertEquals(3, RequestUtil.getBreakpoints(context.request()).length);
+        assertNull(RequestUtil.getResponsiveProperties(context.request()).get("k1"));
+        assertTrue(resprops.isResolved());
+        assertThrows(UnsupportedOperationException.class, () -> policy.put("k1", "v"));
+        assertThrows(UnsupportedOperationException.class, () -> policy.remove("k1"));
+        assertThrows(UnsupportedOperationException.class, () -> policy.putAll(Collections.emptyMap()));
+        assertThrows(UnsupportedOperationException.class, () -> policy.clear());
+        Map<String, Object> copy = new HashMap<>(resprops.get());
+        assertEquals(resprops, copy);
+        assertEquals(copy, resprops, "equality should be symmetric");
+    }
+}
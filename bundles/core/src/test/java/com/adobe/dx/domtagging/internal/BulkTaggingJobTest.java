@@ -0,0 +1,197 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import static com.adobe.dx.domtagging.internal.IDTaggerImpl.PN_COMPID;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMap;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.adobe.dx.domtagging.IDTagger;
+import com.adobe.dx.testing.AbstractTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.event.jobs.Job;
+import org.apache.sling.event.jobs.JobManager;
+import org.apache.sling.event.jobs.consumer.JobExecutionContext;
+import org.apache.sling.event.jobs.consumer.JobExecutionResult;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BulkTaggingJobTest extends AbstractTest {
+
+    static final String[] COMPONENTS = {
+        CONTENT_ROOT + "/jcr:content/root",
+        CONTENT_ROOT + "/jcr:content/root/children/image",
+        CONTENT_ROOT + "/somereferredPage/jcr:content/root/children/anotherref",
+        CONTENT_ROOT + "/viewedPage/jcr:content/root/children/text"
+    };
+
+    BulkTaggingJob bulkTaggingJob;
+
+    JobExecutionContext executionContext;
+
+    JobExecutionResult succeeded = mock(JobExecutionResult.class);
+
+    JobExecutionResult failed = mock(JobExecutionResult.class);
+
+    @BeforeEach
+    void setup() {
+        context.load().json("/mocks/domtagging.internal/page-tree.json", CONTENT_ROOT);
+        context.registerInjectActivateService((IDTagger) new IDTaggerImpl(), "acceptedTypes",
+            new String[] {"some/dx/.*","some/other/.*"});
+        bulkTaggingJob = context.registerInjectActivateService(new BulkTaggingJob(), "batchSize", 1, "throttle", 0);
+        executionContext = mock(JobExecutionContext.class);
+        JobExecutionContext.ResultBuilder builder = mock(JobExecutionContext.ResultBuilder.class);
+        when(executionContext.result()).thenReturn(builder);
+        when(builder.message(anyString())).thenReturn(builder);
+        when(builder.succeeded()).thenReturn(succeeded);
+        when(builder.failed()).thenReturn(failed);
+    }
+
+    Job mockJob(String path) {
+        Job job = mock(Job.class);
+        when(job.getProperty(BulkTaggingJob.PN_PATH, String.class)).thenReturn(path);
+        when(job.getId()).thenReturn("some-job");
+        return job;
+    }
+
+    ValueMap getCheckpoint() {
+        return getVM(bulkTaggingJob.getCheckpointPath(CONTENT_ROOT));
+    }
+
+    @Test
+    void process() {
+        assertEquals(succeeded, bulkTaggingJob.process(mockJob(CONTENT_ROOT), executionContext));
+        for (String path : COMPONENTS) {
+            assertNotNull(getVM(path).get(PN_COMPID, String.class), path + " should be tagged");
+        }
+        ValueMap checkpoint = getCheckpoint();
+        assertEquals(BulkTaggingJob.STATUS_DONE, checkpoint.get(BulkTaggingJob.PN_STATUS, String.class));
+        assertEquals(3L, checkpoint.get(BulkTaggingJob.PN_PAGES, 0L));
+        assertEquals(11L, checkpoint.get(BulkTaggingJob.PN_TAGGED, 0L));
+        //second run starts over, with nothing to tag
+        assertEquals(succeeded, bulkTaggingJob.process(mockJob(CONTENT_ROOT), executionContext));
+        assertEquals(0L, getCheckpoint().get(BulkTaggingJob.PN_TAGGED, 0L));
+    }
+
+    @Test
+    void stopAndResume() {
+        when(executionContext.isStopped()).thenReturn(true);
+        assertEquals(failed, bulkTaggingJob.process(mockJob(CONTENT_ROOT), executionContext));
+        ValueMap checkpoint = getCheckpoint();
+        assertEquals(BulkTaggingJob.STATUS_RUNNING, checkpoint.get(BulkTaggingJob.PN_STATUS, String.class));
+        assertEquals(CONTENT_ROOT, checkpoint.get(BulkTaggingJob.PN_LAST_PAGE, String.class));
+        assertNull(getVM(COMPONENTS[3]).get(PN_COMPID, String.class), "second page should not be tagged yet");
+        when(executionContext.isStopped()).thenReturn(false);
+        assertEquals(succeeded, bulkTaggingJob.process(mockJob(CONTENT_ROOT), executionContext));
+        checkpoint = getCheckpoint();
+        assertEquals(BulkTaggingJob.STATUS_DONE, checkpoint.get(BulkTaggingJob.PN_STATUS, String.class));
+        assertEquals(3L, checkpoint.get(BulkTaggingJob.PN_PAGES, 0L));
+        assertEquals(11L, checkpoint.get(BulkTaggingJob.PN_TAGGED, 0L));
+        assertNotNull(getVM(COMPONENTS[3]).get(PN_COMPID, String.class));
+    }
+
+    @Test
+    void resumeFromMissingPage() throws PersistenceException {
+        context.build().resource(bulkTaggingJob.getCheckpointPath(CONTENT_ROOT),
+            BulkTaggingJob.PN_STATUS, BulkTaggingJob.STATUS_RUNNING,
+            BulkTaggingJob.PN_LAST_PAGE, CONTENT_ROOT + "/gone").commit();
+        assertEquals(succeeded, bulkTaggingJob.process(mockJob(CONTENT_ROOT), executionContext));
+        assertEquals(3L, getCheckpoint().get(BulkTaggingJob.PN_PAGES, 0L));
+    }
+
+    @Test
+    void missingRoot() {
+        JobExecutionContext.ResultBuilder builder = executionContext.result();
+        JobExecutionResult cancelled = mock(JobExecutionResult.class);
+        when(builder.cancelled()).thenReturn(cancelled);
+        assertEquals(cancelled, bulkTaggingJob.process(mockJob("/content/not/existing"), executionContext));
+    }
+
+    MockSlingHttpServletRequest request(String userId) {
+        ResourceResolver resolver = spy(context.resourceResolver());
+        doReturn(userId).when(resolver).getUserID();
+        MockSlingHttpServletRequest request = new MockSlingHttpServletRequest(resolver, context.bundleContext());
+        request.setParameterMap(Collections.singletonMap(BulkTaggingJob.PN_PATH, CONTENT_ROOT));
+        return request;
+    }
+
+    @Test
+    void servlet() throws IOException {
+        JobManager jobManager = mock(JobManager.class);
+        Job job = mockJob(CONTENT_ROOT);
+        when(jobManager.addJob(eq(BulkTaggingJob.TOPIC), anyMap())).thenReturn(job);
+        context.registerService(JobManager.class, jobManager);
+        BulkTaggingServlet servlet = context.registerInjectActivateService(new BulkTaggingServlet());
+        MockSlingHttpServletRequest request = request("admin");
+        servlet.doPost(request, context.response());
+        JsonNode json = new ObjectMapper().readTree(context.response().getOutputAsString());
+        assertEquals("some-job", json.get(BulkTaggingServlet.PN_JOB).asText());
+        bulkTaggingJob.process(job, executionContext);
+        context.response().resetBuffer();
+        servlet.doGet(request, context.response());
+        json = new ObjectMapper().readTree(context.response().getOutputAsString());
+        assertEquals(BulkTaggingJob.STATUS_DONE, json.get(BulkTaggingJob.PN_STATUS).asText());
+        assertEquals(11L, json.get(BulkTaggingJob.PN_TAGGED).asLong());
+        assertTrue(json.has(BulkTaggingJob.PN_STARTED));
+    }
+
+    @Test
+    void servletWithoutPath() throws IOException {
+        context.registerService(JobManager.class, mock(JobManager.class));
+        BulkTaggingServlet servlet = context.registerInjectActivateService(new BulkTaggingServlet());
+        MockSlingHttpServletRequest request = new MockSlingHttpServletRequest(
+            spy(context.resourceResolver()), context.bundleContext());
+        doReturn("admin").when(request.getResourceResolver()).getUserID();
+        servlet.doPost(request, context.response());
+        assertEquals(400, context.response().getStatus());
+        servlet.doGet(request, context.response());
+        assertEquals(404, context.response().getStatus());
+    }
+
+    @Test
+    void servletForbidden() throws IOException {
+        JobManager jobManager = mock(JobManager.class);
+        context.registerService(JobManager.class, jobManager);
+        BulkTaggingServlet servlet = context.registerInjectActivateService(new BulkTaggingServlet());
+        bulkTaggingJob.process(mockJob(CONTENT_ROOT), executionContext);
+        MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        servlet.doPost(request("anonymous"), response);
+        assertEquals(403, response.getStatus());
+        verify(jobManager, never()).addJob(anyString(), anyMap());
+        response = new MockSlingHttpServletResponse();
+        servlet.doGet(request("anonymous"), response);
+        assertEquals(403, response.getStatus());
+    }
+}
@@ -22,19 +22,27 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.adobe.dx.domtagging.IDTagger;
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.metrics.internal.DxMetricsImpl;
 import com.adobe.dx.testing.AbstractTest;
 import com.day.cq.replication.ReplicationAction;
 import com.day.cq.replication.ReplicationActionType;
+import com.day.cq.wcm.api.NameConstants;
+import com.day.cq.wcm.api.Page;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Calendar;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections.IteratorUtils;
+import org.apache.sling.api.resource.ModifiableValueMap;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ValueMap;
 import org.apache.sling.servlets.post.Modification;
@@ -118,6 +126,49 @@ class IDTaggerImplTest extends AbstractTest {
         assertEquals(expected, result, "Configured resource types (and only them) should have been grabbed");
     }
 
+    @Test
+    public void testFilter() {
+        Resource image = context.resourceResolver().getResource(IMAGE_PATH);
+        Resource unwanted = context.resourceResolver().getResource(CONTENT_ROOT + REL_ROOT + "/children/unwanted");
+        Resource children = context.resourceResolver().getResource(CONTENT_ROOT + REL_ROOT + "/children");
+        assertTrue(tagger.resourceFilter.apply(image));
+        assertTrue(tagger.resourceFilter.apply(image), "memoized result should be the same");
+        assertFalse(tagger.resourceFilter.apply(unwanted));
+        assertFalse(tagger.resourceFilter.apply(children), "resource without type should not be accepted");
+        assertFalse(tagger.getFilter(Collections.emptyList()).apply(image));
+        //modified configuration should not reuse previous results
+        context.registerInjectActivateService((IDTagger)tagger, "acceptedTypes", new String[] {"some/foo/.*"});
+        assertFalse(tagger.resourceFilter.apply(image));
+        assertTrue(tagger.resourceFilter.apply(unwanted));
+    }
+
+    @Test
+    public void testPrunedComponentIterator() {
+        Pattern dx = Pattern.compile("some/dx/.*");
+        Pattern other = Pattern.compile("some/other/.*");
+        Pattern container = Pattern.compile("some/foo/bar/container");
+        IDTaggerImpl.ComponentIterator iterator = new IDTaggerImpl.ComponentIterator(tagger.getFilter(Arrays.asList(dx, other)),
+            tagger.getFilter(Collections.singletonList(container)),
+            context.resourceResolver().getResource(CONTENT_ROOT + "/jcr:content"));
+        assertEquals(CONTENT_ROOT + REL_ROOT, iterator.next().getPath());
+        assertEquals(3, iterator.stack.size(), "only one children iterator per walked level should be held");
+        assertTrue(iterator.hasNext());
+        assertEquals(IMAGE_PATH, iterator.next().getPath());
+        assertFalse(iterator.hasNext(), "pruned container children should have been skipped");
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    public void testPrunedTagging() throws Exception {
+        context.registerInjectActivateService((IDTagger)tagger, "acceptedTypes",
+            new String[] {"some/dx/.*","some/other/.*"},
+            "prunedTypes", new String[] {"some/foo/bar/container"},
+            "tagOnPublication", true);
+        tagger.preprocess(mockActivation(CONTENT_ROOT), null);
+        assertTagged(true, IMAGE_PATH);
+        assertTagged(false, CONTENT_ROOT + REL_ROOT + "/children/unwantedContainer/image");
+    }
+
     @DisplayName("Depending on configuration, untagged resources should be tagged on activation")
     @ParameterizedTest
     @ValueSource(booleans = {true, false})
@@ -257,4 +308,171 @@ class IDTaggerImplTest extends AbstractTest {
         tagger.preprocess(mockReplication(ReplicationActionType.DELETE, "/content/not/existing/anymore"), null);
         //just checking everything ran well
     }
-}
\ No newline at end of file
+
+    @ParameterizedTest
+    @ValueSource(strings = {"sha256", "MURMUR3", "unknown"})
+    public void testIdGenerator(String generator) {
+        context.registerInjectActivateService((IDTagger)tagger, "acceptedTypes",
+            new String[] {"some/dx/.*","some/other/.*"},
+            "idGenerator", generator);
+        IdGenerator expected = "MURMUR3".equals(generator) ? IdGenerator.MURMUR3 : IdGenerator.SHA256;
+        assertEquals(expected, tagger.idGenerator);
+        assertEquals(expected.generate(IMAGE_PATH), tagger.getUniqueId(IMAGE_PATH, false));
+        assertNotEquals(tagger.getUniqueId(IMAGE_PATH, true), tagger.getUniqueId(IMAGE_PATH, true),
+            "two salted ids of the same path should differ");
+    }
+
+    void registerSkippingTagger() {
+        context.registerInjectActivateService((IDTagger)tagger, "acceptedTypes",
+            new String[] {"some/dx/.*","some/other/.*"},
+            "referenceTypes", new String[] { "some/dx/reference" },
+            "tagOnPublication", true,
+            "skipCleanPages", true);
+    }
+
+    @Test
+    public void testCleanPageIsSkipped() throws Exception {
+        registerSkippingTagger();
+        ModifiableValueMap content = context.resourceResolver().getResource(CONTENT_ROOT + "/jcr:content")
+            .adaptTo(ModifiableValueMap.class);
+        content.put(NameConstants.PN_PAGE_LAST_MOD, Calendar.getInstance());
+        context.resourceResolver().commit();
+        tagger.preprocess(mockActivation(CONTENT_ROOT), null);
+        assertTagged(true, IMAGE_PATH);
+        assertNotNull(getVM(CONTENT_ROOT + "/jcr:content").get(IDTaggerImpl.PN_TAG_MARKER, String.class));
+        //removing a tag without modifying the page: page is considered as clean
+        context.resourceResolver().getResource(IMAGE_PATH).adaptTo(ModifiableValueMap.class).remove(PN_COMPID);
+        context.resourceResolver().commit();
+        tagger.preprocess(mockActivation(CONTENT_ROOT), null);
+        assertNull(getVM(IMAGE_PATH).get(PN_COMPID, String.class), "clean page should not have been walked");
+        //a page modification makes it unclean
+        Calendar modified = Calendar.getInstance();
+        modified.add(Calendar.MINUTE, 1);
+        content.put(NameConstants.PN_PAGE_LAST_MOD, modified);
+        context.resourceResolver().commit();
+        tagger.preprocess(mockActivation(CONTENT_ROOT), null);
+        assertNotNull(getVM(IMAGE_PATH).get(PN_COMPID, String.class));
+    }
+
+    @Test
+    public void testStructuralChangeMakesPageUnclean() throws Exception {
+        registerSkippingTagger();
+        ModifiableValueMap content = context.resourceResolver().getResource(CONTENT_ROOT + "/jcr:content")
+            .adaptTo(ModifiableValueMap.class);
+        content.put(NameConstants.PN_PAGE_LAST_MOD, Calendar.getInstance());
+        context.resourceResolver().commit();
+        tagger.preprocess(mockActivation(CONTENT_ROOT), null);
+        //component added without modifying the page, e.g. through JCR API or MSM
+        String added = CONTENT_ROOT + REL_ROOT + "/added";
+        context.build().resource(added, "sling:resourceType", "some/dx/text").commit();
+        tagger.preprocess(mockActivation(CONTENT_ROOT), null);
+        assertTagged(true, added);
+    }
+
+    @Test
+    public void testCleanPagesAreNotSkippedByDefault() {
+        Page page = context.pageManager().getPage(CONTENT_ROOT);
+        context.resourceResolver().getResource(CONTENT_ROOT + "/jcr:content").adaptTo(ModifiableValueMap.class)
+            .put(NameConstants.PN_PAGE_LAST_MOD, Calendar.getInstance());
+        assertNull(tagger.getTagMarker(page, tagger.getUniqueId(CONTENT_ROOT, false)));
+    }
+
+    @Test
+    public void testMarkerDependsOnConfiguration() {
+        registerSkippingTagger();
+        Calendar modified = Calendar.getInstance();
+        Page page = context.pageManager().getPage(CONTENT_ROOT);
+        String pageHash = tagger.getUniqueId(CONTENT_ROOT, false);
+        assertNull(tagger.getTagMarker(page, pageHash), "page without modification date should not be marked");
+        context.resourceResolver().getResource(CONTENT_ROOT + "/jcr:content").adaptTo(ModifiableValueMap.class)
+            .put(NameConstants.PN_PAGE_LAST_MOD, modified);
+        page = context.pageManager().getPage(CONTENT_ROOT);
+        String marker = tagger.getTagMarker(page, pageHash);
+        assertTrue(marker.startsWith(pageHash + "-"));
+        context.registerInjectActivateService((IDTagger)tagger, "acceptedTypes", new String[] {"some/dx/.*"},
+            "skipCleanPages", true);
+        assertNotEquals(marker, tagger.getTagMarker(page, pageHash));
+    }
+
+    @Test
+    public void testDeferredTagging() throws Exception {
+        context.registerInjectActivateService((IDTagger)tagger, "acceptedTypes",
+            new String[] {"some/dx/.*","some/other/.*"},
+            "tagOnPublication", true,
+            "strictTagging", false);
+        assertNotNull(tagger.queue);
+        List<Runnable> tasks = new ArrayList<>();
+        tagger.queue = new TaggingQueue(tagger::tagPages, 10, tasks::add);
+        tagger.preprocess(mockActivation(CONTENT_ROOT), null);
+        tagger.preprocess(mockActivation(CONTENT_ROOT + "/viewedPage"), null);
+        assertTagged(false, IMAGE_PATH);
+        assertEquals(1, tasks.size());
+        tasks.get(0).run();
+        assertTagged(true, IMAGE_PATH);
+        assertTagged(true, CONTENT_ROOT + "/viewedPage/jcr:content/root/children/text");
+        tagger.deactivate();
+        assertNull(tagger.queue);
+    }
+
+    @Test
+    public void testQueuedPagesAreKeptOnModification() throws Exception {
+        context.registerInjectActivateService((IDTagger)tagger, "acceptedTypes",
+            new String[] {"some/dx/.*","some/other/.*"},
+            "tagOnPublication", true,
+            "strictTagging", false);
+        List<Runnable> tasks = new ArrayList<>();
+        tagger.queue = new TaggingQueue(tagger::tagPages, 10, tasks::add);
+        tagger.preprocess(mockActivation(CONTENT_ROOT), null);
+        assertTagged(false, IMAGE_PATH);
+        context.registerInjectActivateService((IDTagger)tagger, "acceptedTypes",
+            new String[] {"some/dx/.*","some/other/.*"},
+            "tagOnPublication", true,
+            "strictTagging", true);
+        assertTagged(true, IMAGE_PATH);
+        assertNull(tagger.queue);
+    }
+
+    @Test
+    public void testPageIdIsComputedOncePerRequest() {
+        registerTagger(false, false, false);
+        DxMetrics metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        tagger.metrics = metrics;
+        String children = CONTENT_ROOT + "/viewedPage/jcr:content/root/children/";
+        for (String name : new String[] {"ref1", "text", "ref2", "text"}) {
+            context.request().setResource(context.resourceResolver().getResource(children + name));
+            assertNotNull(tagger.computeComponentId(context.request(), null));
+        }
+        assertEquals(1L, metrics.getCounters().get("idtagger.pageId:computed"));
+        assertEquals(3L, metrics.getCounters().get("idtagger.pageId:reused"));
+    }
+
+    @Test
+    public void testCollidingIds() {
+        context.registerInjectActivateService((IDTagger)tagger, "acceptedTypes",
+            new String[] {"some/dx/.*","some/other/.*"},
+            "referenceTypes", new String[] { "some/dx/reference" },
+            "uniqueIds", true);
+        tagger.metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        String children = CONTENT_ROOT + "/viewedPage/jcr:content/root/children/";
+        context.build().resource(children + "text", PN_COMPID, "same")
+            .resource(children + "ref2", PN_COMPID, "same").commit();
+        context.request().setResource(context.resourceResolver().getResource(children + "text"));
+        assertEquals("same", tagger.computeComponentId(context.request(), null));
+        context.request().setResource(context.resourceResolver().getResource(children + "ref2"));
+        assertEquals("same-2", tagger.computeComponentId(context.request(), null));
+        assertEquals("same-2", tagger.computeComponentId(context.request(), null));
+        assertEquals(1L, tagger.metrics.getCounters().get("idtagger.collision:some/dx/reference"));
+    }
+
+    @Test
+    public void testCollidingIdsAreKeptByDefault() {
+        registerTagger(false, false, false);
+        String children = CONTENT_ROOT + "/viewedPage/jcr:content/root/children/";
+        context.build().resource(children + "text", PN_COMPID, "same")
+            .resource(children + "ref2", PN_COMPID, "same").commit();
+        context.request().setResource(context.resourceResolver().getResource(children + "text"));
+        assertEquals("same", tagger.computeComponentId(context.request(), null));
+        context.request().setResource(context.resourceResolver().getResource(children + "ref2"));
+        assertEquals("same", tagger.computeComponentId(context.request(), null));
+    }
+}
@@ -0,0 +1,66 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class IdGeneratorTest {
+
+    static final String PATH = "/content/foo/jcr:content/root/children/image";
+
+    @Test
+    void sha256() {
+        assertEquals(DigestUtils.sha256Hex(PATH).substring(0, 8), IdGenerator.SHA256.generate(PATH));
+        assertEquals(DigestUtils.sha256Hex("/content/été").substring(0, 8), IdGenerator.SHA256.generate("/content/été"));
+    }
+
+    @Test
+    void toHex() {
+        assertEquals("00000000", IdGenerator.toHex(0));
+        assertEquals("ffffffff", IdGenerator.toHex(-1));
+        assertEquals("0a0b0c0d", IdGenerator.toHex(0x0a0b0c0d));
+    }
+
+    @ParameterizedTest
+    @EnumSource(IdGenerator.class)
+    void generate(IdGenerator generator) {
+        String id = generator.generate(PATH);
+        assertTrue(id.matches("[0-9a-f]{8}"), id);
+        assertEquals(id, generator.generate(PATH), "unsalted id should be stable");
+        assertNotEquals(id, generator.generate(PATH + "2"));
+        assertNotEquals(generator.generate(PATH, 1L), generator.generate(PATH, 2L));
+        assertNotEquals(generator.generate("/a"), generator.generate("/a/"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(IdGenerator.class)
+    void collisions(IdGenerator generator) {
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < 20000; i++) {
+            ids.add(generator.generate("/content/site/page/jcr:content/root/container_" + i));
+        }
+        //birthday bound for 20000 ids on 32 bits is ~0.05 collision
+        assertTrue(ids.size() >= 19999, "too many collisions: " + (20000 - ids.size()));
+    }
+}
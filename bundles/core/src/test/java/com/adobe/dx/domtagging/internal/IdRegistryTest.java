@@ -0,0 +1,38 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.adobe.dx.testing.AbstractTest;
+
+import org.junit.jupiter.api.Test;
+
+class IdRegistryTest extends AbstractTest {
+
+    @Test
+    void register() {
+        IdRegistry registry = IdRegistry.fromRequest(context.request());
+        assertSame(registry, IdRegistry.fromRequest(context.request()));
+        assertEquals("abcd1234", registry.register("abcd1234", "/content/a", "-"));
+        assertEquals("abcd1234", registry.register("abcd1234", "/content/a", "-"), "same component should keep its id");
+        assertEquals("abcd1234-2", registry.register("abcd1234", "/content/b", "-"));
+        assertEquals("abcd1234-3", registry.register("abcd1234", "/content/c", "-"));
+        assertEquals("abcd1234-2", registry.register("abcd1234", "/content/b", "-"), "suffix should be stable");
+        assertEquals("other", registry.register("other", "/content/b", "-"));
+        assertEquals(2, registry.getCollisions());
+    }
+}
@@ -0,0 +1,53 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.adobe.dx.testing.AbstractTest;
+
+import org.junit.jupiter.api.Test;
+
+class PageIdMemoTest extends AbstractTest {
+
+    @Test
+    void key() {
+        assertEquals("/content/foo", PageIdMemo.key("/content/foo/jcr:content/root/image"));
+        assertEquals("/content/foo", PageIdMemo.key("/content/foo/jcr:content"));
+        assertEquals("/content/foo/jcr:contentish/bar", PageIdMemo.key("/content/foo/jcr:contentish/bar"));
+        assertEquals("/content/foo/jcr:contentish", PageIdMemo.key("/content/foo/jcr:contentish/jcr:content/root"));
+        assertEquals("/content/foo", PageIdMemo.key("/content/foo"));
+    }
+
+    @Test
+    void memo() {
+        PageIdMemo memo = PageIdMemo.fromRequest(context.request());
+        assertSame(memo, PageIdMemo.fromRequest(context.request()));
+        assertNull(memo.get("/content/foo/jcr:content/root"));
+        memo.put("/content/foo/jcr:content/root", "abcdef12");
+        assertEquals("abcdef12", memo.get("/content/foo/jcr:content/root/image"));
+        assertNull(memo.get("/content/bar/jcr:content/root"));
+    }
+
+    @Test
+    void referencePrefix() {
+        PageIdMemo memo = new PageIdMemo();
+        String prefix = memo.getReferencePrefix("ref1", "-");
+        assertEquals("ref1-", prefix);
+        assertSame(prefix, memo.getReferencePrefix("ref1", "-"));
+        assertEquals("ref2-", memo.getReferencePrefix("ref2", "-"));
+    }
+}
@@ -0,0 +1,120 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.domtagging.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class TaggingQueueTest {
+
+    List<List<String>> batches = new ArrayList<>();
+
+    List<Runnable> tasks = new ArrayList<>();
+
+    void runTasks() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    @Test
+    void coalesceAndBatch() {
+        TaggingQueue queue = new TaggingQueue(batches::add, 2, tasks::add);
+        queue.enqueue("/content/a");
+        queue.enqueue("/content/b");
+        queue.enqueue("/content/a");
+        queue.enqueue("/content/c");
+        assertEquals(1, tasks.size(), "only one drain should be scheduled at once");
+        assertEquals(3, queue.size());
+        runTasks();
+        assertEquals(Arrays.asList(Arrays.asList("/content/a", "/content/b"), Arrays.asList("/content/c")), batches);
+        assertEquals(0, queue.size());
+        queue.enqueue("/content/a");
+        assertEquals(1, tasks.size(), "a new drain should be scheduled once previous one is done");
+        runTasks();
+        assertEquals(Arrays.asList("/content/a"), batches.get(2));
+    }
+
+    @Test
+    void writerFailure() {
+        TaggingQueue queue = new TaggingQueue(batch -> {
+            batches.add(batch);
+            throw new IllegalStateException("failing writer");
+        }, 1, tasks::add);
+        queue.enqueue("/content/a");
+        queue.enqueue("/content/b");
+        runTasks();
+        assertEquals(2, batches.size(), "a failing batch should not prevent next ones");
+    }
+
+    @Test
+    void rejected() {
+        TaggingQueue[] queue = new TaggingQueue[1];
+        queue[0] = new TaggingQueue(batches::add, 1, task -> {
+            // path enqueued concurrently, that does not schedule its own drain
+            queue[0].enqueue("/content/b");
+            throw new RejectedExecutionException();
+        });
+        queue[0].enqueue("/content/a");
+        assertEquals(0, queue[0].size(), "no path should be stuck without a drain");
+    }
+
+    @Test
+    void shutdownAwaitsCurrentBatch() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean written = new AtomicBoolean();
+        TaggingQueue queue = new TaggingQueue(batch -> {
+            started.countDown();
+            try {
+                Thread.sleep(200L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            written.set(true);
+            batches.add(batch);
+        }, 1);
+        queue.enqueue("/content/a");
+        queue.enqueue("/content/b");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        queue.enqueue("/content/c");
+        assertEquals(Arrays.asList("/content/b", "/content/c"), queue.shutdown());
+        assertTrue(written.get(), "current batch should be written before paths are handed over");
+        assertEquals(1, batches.size(), "stopped queue should not write next batches");
+    }
+
+    @Test
+    void shutdown() {
+        TaggingQueue queue = new TaggingQueue(batches::add, 1, tasks::add);
+        queue.enqueue("/content/a");
+        queue.enqueue("/content/b");
+        assertEquals(Arrays.asList("/content/a", "/content/b"), queue.shutdown());
+        assertEquals(0, queue.size());
+        runTasks();
+        assertTrue(batches.isEmpty(), "handed back paths should not be tagged by the stopped queue");
+        queue.enqueue("/content/c");
+        assertTrue(tasks.isEmpty(), "stopped queue should not schedule any drain");
+        assertEquals(Arrays.asList("/content/c"), queue.shutdown());
+    }
+}
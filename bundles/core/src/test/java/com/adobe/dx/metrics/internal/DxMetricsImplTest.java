@@ -0,0 +1,85 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.adobe.dx.metrics.CallStatistics;
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.testing.AbstractTest;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DxMetricsImplTest extends AbstractTest {
+
+    DxMetrics metrics;
+
+    @BeforeEach
+    void setup() {
+        metrics = context.registerInjectActivateService(new DxMetricsImpl(), "maxNames", 3);
+    }
+
+    @Test
+    void record() {
+        metrics.record("style", "foo/bar", metrics.start());
+        metrics.record("style", "foo/bar", metrics.start());
+        metrics.record("style", "foo/other", metrics.start());
+        metrics.record("ids", null, metrics.start());
+        metrics.record("ids", null, 0L);
+        Map<String, CallStatistics> statistics = metrics.getStatistics();
+        assertEquals("[ids, style:foo/bar, style:foo/other]", new ArrayList<>(statistics.keySet()).toString(),
+            "names should be sorted");
+        assertEquals(2, statistics.get("style:foo/bar").getCount());
+        assertEquals(1, statistics.get("ids").getCount(), "calls not started should not be recorded");
+        assertTrue(statistics.get("style:foo/bar").getTotalNanos() > 0);
+    }
+
+    @Test
+    void maxNames() {
+        for (int i = 0; i < 5; i++) {
+            metrics.record("style", "type" + i, metrics.start());
+        }
+        Map<String, CallStatistics> statistics = metrics.getStatistics();
+        assertEquals(4, statistics.size());
+        assertEquals(2, statistics.get("style:other").getCount());
+        metrics.reset();
+        assertTrue(metrics.getStatistics().isEmpty());
+    }
+
+    @Test
+    void increment() {
+        metrics.increment("cache", "hit");
+        metrics.increment("cache", "hit");
+        metrics.increment("cache", "miss");
+        metrics.increment("flush", null);
+        metrics.add("flush", null, 4L);
+        for (int i = 0; i < 3; i++) {
+            metrics.increment("other", "type" + i);
+        }
+        Map<String, Long> counters = metrics.getCounters();
+        assertEquals("[cache:hit, cache:miss, flush, other:other]", new ArrayList<>(counters.keySet()).toString());
+        assertEquals(2L, counters.get("cache:hit"));
+        assertEquals(5L, counters.get("flush"), "amounts should be added to the counter");
+        assertEquals(3L, counters.get("other:other"));
+        assertTrue(metrics.getStatistics().isEmpty(), "counters should not be recorded as calls");
+        metrics.reset();
+        assertTrue(metrics.getCounters().isEmpty());
+    }
+}
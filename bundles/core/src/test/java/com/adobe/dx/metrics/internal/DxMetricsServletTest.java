@@ -0,0 +1,91 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.spy;
+
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.testing.AbstractTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+import javax.management.NotCompliantMBeanException;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.OpenDataException;
+import javax.management.openmbean.TabularData;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DxMetricsServletTest extends AbstractTest {
+
+    DxMetrics metrics;
+
+    @BeforeEach
+    void setup() {
+        metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        metrics.record("style.getLocalStyle", "foo/bar", metrics.start());
+        metrics.record("bindings.addBindings", null, metrics.start());
+        metrics.increment("breakpoints.cache", "hit");
+    }
+
+    MockSlingHttpServletRequest request(String userId) {
+        ResourceResolver resolver = spy(context.resourceResolver());
+        doReturn(userId).when(resolver).getUserID();
+        return new MockSlingHttpServletRequest(resolver, context.bundleContext());
+    }
+
+    @Test
+    void doGet() throws IOException {
+        DxMetricsServlet servlet = context.registerInjectActivateService(new DxMetricsServlet());
+        servlet.doGet(request("admin"), context.response());
+        assertEquals("application/json", context.response().getContentType().split(";")[0]);
+        JsonNode json = new ObjectMapper().readTree(context.response().getOutputAsString());
+        assertEquals(3, json.size());
+        assertEquals(1, json.get("style.getLocalStyle:foo/bar").get("count").asLong());
+        assertTrue(json.get("bindings.addBindings").has("p99Micros"));
+        assertEquals(1, json.get("breakpoints.cache:hit").get("count").asLong());
+    }
+
+    @Test
+    void forbidden() throws IOException {
+        DxMetricsServlet servlet = context.registerInjectActivateService(new DxMetricsServlet());
+        servlet.doGet(request("anonymous"), context.response());
+        assertEquals(HttpServletResponse.SC_FORBIDDEN, context.response().getStatus());
+        assertEquals("", context.response().getOutputAsString());
+    }
+
+    @Test
+    void mbean() throws OpenDataException, NotCompliantMBeanException {
+        DxMetricsMBeanImpl mbean = context.registerInjectActivateService(new DxMetricsMBeanImpl());
+        TabularData statistics = mbean.getStatistics();
+        assertEquals(2, statistics.size());
+        CompositeData row = statistics.get(new Object[] { "style.getLocalStyle:foo/bar" });
+        assertEquals(1L, row.get("count"));
+        assertEquals(1L, mbean.getCounters().get(new Object[] { "breakpoints.cache:hit" }).get("count"));
+        mbean.reset();
+        assertEquals(0, mbean.getStatistics().size());
+        assertEquals(0, mbean.getCounters().size());
+    }
+}
@@ -0,0 +1,54 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.adobe.dx.metrics.CallStatistics;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucket() {
+        assertEquals(0, LatencyHistogram.bucket(999));
+        assertEquals(1, LatencyHistogram.bucket(1000));
+        assertEquals(2, LatencyHistogram.bucket(3999));
+        assertEquals(11, LatencyHistogram.bucket(1500000));
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+    }
+
+    @Test
+    void snapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 98; i++) {
+            histogram.record(1500L);
+        }
+        histogram.record(300000L);
+        histogram.record(-5L);
+        CallStatistics statistics = histogram.snapshot();
+        assertEquals(100, statistics.getCount());
+        assertEquals(2, statistics.getP50Micros());
+        assertEquals(2, statistics.getP90Micros());
+        assertEquals(2, statistics.getP99Micros());
+        assertEquals(300, statistics.getMaxMicros());
+        assertEquals(4, statistics.getMeanMicros());
+        histogram.record(300000L);
+        assertEquals(512, histogram.snapshot().getP99Micros());
+        assertEquals(0, new LatencyHistogram().snapshot().getP50Micros());
+    }
+}
@@ -0,0 +1,203 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.metrics.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.adobe.dx.metrics.RenderTrace;
+import com.adobe.dx.testing.AbstractTest;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import javax.jcr.RepositoryException;
+
+import org.apache.jackrabbit.api.security.user.Authorizable;
+import org.apache.jackrabbit.api.security.user.Group;
+import org.apache.jackrabbit.api.security.user.UserManager;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletRequest;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RenderTraceFilterTest extends AbstractTest {
+
+    static final String COMPONENT = "/content/foo/jcr:content/root/flex";
+
+    RenderTraceFilter filter;
+
+    FilterChain chain = (request, response) -> {
+        RenderTrace trace = RenderTrace.fromRequest(request);
+        if (trace != null) {
+            trace.record(COMPONENT, RenderTrace.STYLE, trace.start());
+            trace.record(COMPONENT, RenderTrace.BINDINGS, trace.start());
+            trace.count("bindings.memo:built", 1L);
+        }
+        response.getWriter().write("<html></html>");
+        response.flushBuffer();
+    };
+
+    MockSlingHttpServletRequest request;
+
+    @BeforeEach
+    void setup() {
+        filter = context.registerInjectActivateService(new RenderTraceFilter(), "enabled", true);
+        request = request("admin");
+    }
+
+    /**
+     * @return request of given user, member of given groups
+     */
+    MockSlingHttpServletRequest request(String userId, String... groups) {
+        ResourceResolver resolver = mock(ResourceResolver.class);
+        when(resolver.getUserID()).thenReturn(userId);
+        try {
+            UserManager userManager = mock(UserManager.class);
+            Authorizable user = mock(Authorizable.class);
+            when(resolver.adaptTo(UserManager.class)).thenReturn(userManager);
+            when(userManager.getAuthorizable(userId)).thenReturn(user);
+            Group[] memberships = new Group[groups.length];
+            for (int i = 0; i < groups.length; i++) {
+                memberships[i] = mock(Group.class);
+                when(memberships[i].getID()).thenReturn(groups[i]);
+            }
+            Iterator<Group> iterator = Arrays.asList(memberships).iterator();
+            when(user.memberOf()).thenReturn(iterator);
+        } catch (RepositoryException e) {
+            fail(e);
+        }
+        return new MockSlingHttpServletRequest(resolver, context.bundleContext());
+    }
+
+    @Test
+    void untraced() throws IOException, ServletException {
+        filter.doFilter(request, context.response(), chain);
+        assertNull(context.response().getHeader(RenderTraceFilter.SERVER_TIMING));
+        assertEquals("<html></html>", context.response().getOutputAsString());
+        assertTrue(filter.getTraces().isEmpty());
+    }
+
+    @Test
+    void traced() throws IOException, ServletException {
+        request.setHeader("X-DX-Trace", "1");
+        filter.doFilter(request, context.response(), chain);
+        assertNull(request.getAttribute(RenderTrace.ATTRIBUTE));
+        assertEquals("<html></html>", context.response().getOutputAsString());
+        String timing = context.response().getHeader(RenderTraceFilter.SERVER_TIMING);
+        assertTrue(timing.startsWith("dx-style;dur="), timing);
+        assertTrue(timing.contains(", dx-bindings;dur="), timing);
+        assertTrue(timing.contains(", dx-c1;dur="), timing);
+        assertFalse(timing.contains(COMPONENT), "repository paths should not be exposed");
+        assertTrue(timing.contains(", dx-total;dur="), timing);
+        String id = context.response().getHeader(RenderTraceFilter.TRACE_ID_HEADER);
+        assertTrue(id.matches("[0-9a-f-]{36}"), "trace id should be random");
+        assertNotNull(filter.getTrace(id));
+        assertTrue(context.response().isCommitted(), "response should be committed once released");
+    }
+
+    @Test
+    void allowedGroups() throws IOException, ServletException {
+        for (MockSlingHttpServletRequest denied : Arrays.asList(request(null), request("anonymous"),
+            request("john", "contributors"))) {
+            denied.setHeader("X-DX-Trace", "1");
+            filter.doFilter(denied, new MockSlingHttpServletResponse(), chain);
+        }
+        assertTrue(filter.getTraces().isEmpty(), "only admin & administrators should be traced by default");
+        request = request("jane", "contributors", "administrators");
+        request.setHeader("X-DX-Trace", "1");
+        filter.doFilter(request, context.response(), chain);
+        assertEquals(1, filter.getTraces().size());
+    }
+
+    @Test
+    void sendError() throws IOException, ServletException {
+        request.setHeader("X-DX-Trace", "1");
+        filter.doFilter(request, context.response(), (req, resp) -> {
+            resp.getWriter().write("partial");
+            resp.flushBuffer();
+            assertFalse(resp.isCommitted(), "flush should be held back");
+            ((HttpServletResponse) resp).sendError(500);
+        });
+        assertEquals(500, context.response().getStatus());
+        assertFalse(context.response().getOutputAsString().contains("partial"));
+    }
+
+    @Test
+    void disabled() throws IOException, ServletException {
+        filter = context.registerInjectActivateService(new RenderTraceFilter(), "enabled", false);
+        request.setHeader("X-DX-Trace", "1");
+        filter.doFilter(request, context.response(), chain);
+        assertNull(context.response().getHeader(RenderTraceFilter.SERVER_TIMING));
+    }
+
+    @Test
+    void serverTiming() {
+        RenderTrace trace = new RenderTrace("1", "/content/foo.html");
+        for (int i = 0; i < 3; i++) {
+            trace.record("/c" + i + "\"", RenderTrace.ID, trace.start() - i * 1000000L);
+        }
+        String timing = RenderTraceFilter.toServerTiming(trace, 2);
+        assertTrue(timing.startsWith("dx-id;dur="), timing);
+        assertTrue(timing.contains(", dx-c1;dur=2."), timing);
+        assertTrue(timing.contains(", dx-c2;dur=1."), timing);
+        assertFalse(timing.contains("dx-c3"), timing);
+    }
+
+    @Test
+    void keptTraces() throws IOException, ServletException {
+        filter = context.registerInjectActivateService(new RenderTraceFilter(), "enabled", true, "keptTraces", 2);
+        request.setHeader("X-DX-Trace", "1");
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(request, new MockSlingHttpServletResponse(), chain);
+        }
+        assertEquals(2, filter.getTraces().size());
+    }
+
+    @Test
+    void servlet() throws IOException, ServletException {
+        request.setHeader("X-DX-Trace", "1");
+        filter.doFilter(request, context.response(), chain);
+        String id = context.response().getHeader(RenderTraceFilter.TRACE_ID_HEADER);
+        RenderTraceServlet servlet = context.registerInjectActivateService(new RenderTraceServlet());
+        MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+        servlet.doGet(request("john", "contributors"), response);
+        assertEquals(404, response.getStatus(), "traces should only be served to allowed users");
+        request = request("admin");
+        request.setParameterMap(Collections.singletonMap(RenderTraceServlet.PN_ID, id));
+        response = new MockSlingHttpServletResponse();
+        servlet.doGet(request, response);
+        JsonNode json = new ObjectMapper().readTree(response.getOutputAsString());
+        assertEquals(1, json.size());
+        assertEquals(id, json.get(0).get("id").asText());
+        assertTrue(json.get(0).get("components").get(COMPONENT).has("styleMillis"));
+        assertEquals(1L, json.get(0).get("counters").get("bindings.memo:built").asLong());
+        request.setParameterMap(Collections.singletonMap(RenderTraceServlet.PN_ID, "unknown"));
+        response = new MockSlingHttpServletResponse();
+        servlet.doGet(request, response);
+        assertEquals(404, response.getStatus());
+    }
+}
@@ -0,0 +1,81 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.responsive.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.metrics.internal.DxMetricsImpl;
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.testing.AbstractTest;
+
+import java.util.Collections;
+
+import org.apache.sling.api.resource.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BreakpointCacheTest extends AbstractTest {
+
+    BreakpointCache cache;
+
+    DxMetrics metrics;
+
+    @BeforeEach
+    void setup() {
+        ResponsivePropertiesTest.initResponsiveConfiguration(context);
+        context.build().resource(CONTENT_ROOT + "/page1/comp1")
+            .resource(CONTENT_ROOT + "/page2/comp2");
+        metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        cache = context.registerInjectActivateService(new BreakpointCache());
+    }
+
+    Resource getResource(String relPath) {
+        return context.resourceResolver().getResource(CONTENT_ROOT + "/" + relPath);
+    }
+
+    @Test
+    void getBreakpoints() {
+        Breakpoint[] first = cache.getBreakpoints(getResource("page1/comp1"));
+        assertEquals(3, first.length);
+        assertArrayEquals(new String[] {"mobile", "tablet", "desktop"},
+            new String[] {first[0].key(), first[1].key(), first[2].key()}, "order should be kept");
+        assertNull(metrics.getCounters().get("breakpoints.cache:hit"));
+        assertEquals(1L, metrics.getCounters().get("breakpoints.cache:miss"));
+        Breakpoint[] second = cache.getBreakpoints(getResource("page2/comp2"));
+        assertSame(first, second, "same context should share the same breakpoints");
+        assertEquals(1L, metrics.getCounters().get("breakpoints.cache:hit"));
+        assertEquals(1L, metrics.getCounters().get("breakpoints.cache:miss"));
+    }
+
+    @Test
+    void flush() {
+        Breakpoint[] first = cache.getBreakpoints(getResource("page1/comp1"));
+        cache.onChange(Collections.emptyList());
+        Breakpoint[] second = cache.getBreakpoints(getResource("page1/comp1"));
+        assertNotSame(first, second, "configuration should have been resolved again");
+        assertEquals(2L, metrics.getCounters().get("breakpoints.cache:miss"));
+    }
+
+    @Test
+    void configuredOrder() {
+        context.build().resource(CONF_ROOT + "/sling:configs/com.adobe.dx.responsive.ResponsiveConfiguration/breakpoints/1",
+            "propertySuffix", "Mobile", "key", "mobile", "start", 1200);
+        Breakpoint[] breakpoints = BreakpointCache.resolveBreakpoints(getResource("page1/comp1"));
+        assertEquals("mobile", breakpoints[0].key(),
+            "breakpoints should keep their configured order, that overlapping media queries cascade in");
+    }
+}
@@ -16,14 +16,20 @@
 package com.adobe.dx.responsive.internal;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import com.adobe.dx.responsive.Breakpoint;
 import com.adobe.dx.responsive.ResponsiveConfiguration;
 import com.adobe.dx.testing.AbstractTest;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.apache.commons.lang.StringUtils;
@@ -62,20 +68,21 @@ public class ResponsivePropertiesTest extends AbstractTest {
         configuration = initResponsiveConfiguration(context);
     }
 
-    LinkedHashMap<String,String> getProperty(final ResponsiveConfiguration rConfig, String key, Object...entries) {
+    Map<String,String> getProperty(final ResponsiveConfiguration rConfig, String key, Object...entries) {
         String path = "/content/" + StringUtils.join(Arrays.asList(entries), "/");
         context.build().resource(path, entries).commit();
         Resource resource = context.resourceResolver().getResource(path);
         ResponsiveProperties responsiveProperties = new ResponsiveProperties(rConfig, resource.getValueMap());
-        return (LinkedHashMap<String,String>)responsiveProperties.get(key);
+        return (Map<String,String>)responsiveProperties.get(key);
     }
 
-    void assertLinkedHashMapEqual(String message, LinkedHashMap<String,String> result, String... properties) {
+    void assertLinkedHashMapEqual(String message, Map<String,String> result, String... properties) {
         LinkedHashMap<String,String> expected = new LinkedHashMap<>();
         for (int i = 0; i < properties.length; i += 2) {
             expected.put(properties[i], properties[i+1]);
         }
         assertEquals(expected, result, message);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(result.keySet()), "order should be kept");
     }
 
     @Test
@@ -99,6 +106,38 @@ public class ResponsivePropertiesTest extends AbstractTest {
         assertNull(new ResponsiveProperties(configuration, ValueMap.EMPTY).get(null));
     }
 
+    @Test
+    void cachedLookups() {
+        String path = CONTENT_ROOT + "/cached";
+        context.build().resource(path, "widthTablet", 34, "widthDesktop", 43).commit();
+        Breakpoint[] breakpoints = configuration.breakpoints();
+        ResponsiveProperties props = new ResponsiveProperties(breakpoints, getVM(path));
+        Map<String, String> width = (Map<String, String>) props.get("width");
+        assertSame(width, props.get("width"), "result should be cached per instance");
+        assertEquals("34", width.get("tablet"));
+        assertEquals("34", width.get(breakpoints[1]), "values should be available by breakpoint too");
+        assertNull(width.get("unknown"));
+        assertNull(props.get("height"));
+        assertNull(props.get("height"), "absence should be cached as well");
+        assertThrows(UnsupportedOperationException.class, () -> width.put("mobile", "12"));
+        assertSame(ResponsiveKeys.of(breakpoints), ResponsiveKeys.of(breakpoints),
+            "keys should be shared per breakpoint array");
+        assertSame(ResponsiveKeys.of(breakpoints).names("width"), ResponsiveKeys.of(breakpoints).names("width"),
+            "responsive names should be interned");
+    }
+
+    @Test
+    void lookupsAfterSnapshot() {
+        String path = CONTENT_ROOT + "/snapshot";
+        context.build().resource(path, "widthTablet", 34, "heightMobile", " ").commit();
+        ResponsiveProperties props = new ResponsiveProperties(configuration.breakpoints(), getVM(path));
+        Object width = props.get("width");
+        assertEquals(1, props.size());
+        assertSame(width, props.get("width"), "snapshot should reuse already computed values");
+        assertNull(props.get("height"), "blank values should be ignored");
+        assertNull(props.get("unknown"));
+    }
+
     @Test
     void unsupported() {
         ResponsiveProperties props = new ResponsiveProperties(configuration, ValueMap.EMPTY);
@@ -106,17 +145,83 @@ public class ResponsivePropertiesTest extends AbstractTest {
             () -> {props.clear(); return 0;},
             () -> {props.putAll(ValueMap.EMPTY); return 0;},
             () -> props.put("foo", "bar"),
-            () -> props.containsKey("foo"),
-            () -> props.containsValue("bar"),
-            () -> props.size(),
-            () -> props.values(),
-            () -> props.keySet(),
-            () -> props.entrySet(),
-            () -> props.isEmpty(),
-            () -> props.remove("foo"));
+            () -> props.remove("foo"),
+            () -> props.keySet().remove("foo"),
+            () -> {props.entrySet().clear(); return 0;});
         for (Callable callable : unsupportedOperations) {
             assertThrows(UnsupportedOperationException.class, () -> callable.call());
         }
+    }
+
+    @Test
+    void readOnlyMap() {
+        String path = CONTENT_ROOT + "/snapshot";
+        context.build().resource(path, "widthTablet", 34, "widthMobile", 12, "inheritDesktop", false,
+            "heightDesktop", "", "title", "some title").commit();
+        ResponsiveProperties props = new ResponsiveProperties(configuration.breakpoints(), getVM(path));
+        Object width = props.get("width");
+        assertEquals(2, props.size(), "blank and non responsive values should be ignored");
+        assertFalse(props.isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("width", "inherit")), props.keySet());
+        assertTrue(props.containsKey("width"));
+        assertFalse(props.containsKey("height"));
+        assertFalse(props.containsKey("title"));
+        assertTrue(props.containsValue(width));
+        assertSame(width, props.entrySet().stream().filter(e -> e.getKey().equals("width")).findFirst().get().getValue(),
+            "snapshot should reuse already computed values");
+        assertEquals(2, props.values().size());
+        assertTrue(new ResponsiveProperties(configuration, ValueMap.EMPTY).isEmpty());
+    }
 
+    @Test
+    void toBreakpointTable() {
+        String path = CONTENT_ROOT + "/table";
+        context.build().resource(path, "widthTablet", 34, "widthMobile", 12, "inheritDesktop", false).commit();
+        Map<String, Map<String, String>> table = new ResponsiveProperties(configuration.breakpoints(), getVM(path))
+            .toBreakpointTable();
+        assertEquals(Arrays.asList("mobile", "tablet", "desktop"), new ArrayList<>(table.keySet()));
+        assertEquals(Collections.singletonMap("width", "12"), table.get("mobile"));
+        assertEquals(Collections.singletonMap("width", "34"), table.get("tablet"));
+        assertEquals(Collections.singletonMap("inherit", "false"), table.get("desktop"));
+    }
+
+    Breakpoint mockBreakpoint(String key, String suffix) {
+        Breakpoint breakpoint = mock(Breakpoint.class);
+        when(breakpoint.key()).thenReturn(key);
+        when(breakpoint.propertySuffix()).thenReturn(suffix);
+        return breakpoint;
+    }
+
+    @Test
+    void longestSuffixFirst() {
+        String path = CONTENT_ROOT + "/suffixes";
+        context.build().resource(path, "width", 10, "widthMobileLandscape", 12, "widthLandscape", 34).commit();
+        Breakpoint[] breakpoints = new Breakpoint[] { mockBreakpoint("default", ""),
+            mockBreakpoint("landscape", "Landscape"), mockBreakpoint("mobileLandscape", "MobileLandscape") };
+        ResponsiveProperties props = new ResponsiveProperties(breakpoints, getVM(path));
+        assertEquals(Collections.singleton("width"), props.keySet(), "widthMobile should not be a base key");
+        Map<String, Map<String, String>> table = props.toBreakpointTable();
+        assertEquals(Collections.singletonMap("width", "10"), table.get("default"),
+            "empty suffix should only give the base value");
+        assertEquals(Collections.singletonMap("width", "34"), table.get("landscape"));
+        assertEquals(Collections.singletonMap("width", "12"), table.get("mobileLandscape"));
+    }
+
+    @Test
+    void sameLookupsAfterBulkRead() {
+        String path = CONTENT_ROOT + "/bulk";
+        context.build().resource(path, "width", 10, "widthMobileLandscape", 12, "widthLandscape", 34).commit();
+        Breakpoint[] breakpoints = new Breakpoint[] { mockBreakpoint("default", ""),
+            mockBreakpoint("landscape", "Landscape"), mockBreakpoint("mobileLandscape", "MobileLandscape") };
+        ResponsiveProperties before = new ResponsiveProperties(breakpoints, getVM(path));
+        Object width = before.get("width");
+        Object widthMobile = before.get("widthMobile");
+        ResponsiveProperties after = new ResponsiveProperties(breakpoints, getVM(path));
+        assertEquals(Collections.singleton("width"), after.keySet());
+        assertEquals(width, after.get("width"));
+        assertNotNull(widthMobile, "widthMobileLandscape is a landscape value of widthMobile");
+        assertEquals(widthMobile, after.get("widthMobile"), "bulk read should not change point lookups");
+        assertEquals("12", ((Map<?, ?>) after.get("widthMobile")).get("landscape"));
+        assertEquals("10", ((Map<?, ?>) after.get("width")).get("default"), "empty suffix should give base value");
     }
-}
\ No newline at end of file
+}
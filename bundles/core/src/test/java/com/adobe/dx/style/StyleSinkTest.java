@@ -0,0 +1,103 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import com.adobe.dx.responsive.Breakpoint;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+class StyleSinkTest {
+
+    @Test
+    void sections() {
+        StyleSink sink = new StyleSink();
+        sink.startSection(null, null);
+        sink.declaration("color: blue").declaration(" ").declaration("font-size: 13px");
+        sink.startSection(null, "@media screen and (min-width: 600px)");
+        sink.startSection(null, "@media screen and (min-width: 1200px)");
+        sink.declaration().append("min-width: ").append(90).append('%');
+        assertEquals("color: blue;font-size: 13px\n"
+            + "@media screen and (min-width: 1200px) {\n"
+            + "min-width: 90%\n"
+            + "}", sink.toString(), "empty sections should not be written");
+    }
+
+    @Test
+    void sectionsWithId() {
+        StyleSink sink = new StyleSink();
+        sink.startSection("my-block", null);
+        sink.startSection("my-block", "@media screen and (min-width: 600px)");
+        sink.declaration("min-height: 200px");
+        sink.endSection();
+        assertEquals("\n@media screen and (min-width: 600px) {\n"
+            + "#my-block {min-height: 200px}\n"
+            + "}", sink.toString());
+        sink.reset();
+        assertEquals(0, sink.length());
+        sink.declaration("color: red");
+        assertEquals("color: red", sink.toString(), "sink should be reusable");
+    }
+
+    @Test
+    void toDeclaration() {
+        StyleWorker worker = new StyleWorker() {
+            @Override
+            public String getKey() {
+                return "test";
+            }
+
+            @Override
+            public @Nullable String getDeclaration(@Nullable Breakpoint breakpoint, SlingHttpServletRequest request) {
+                return StyleSink.toDeclaration(this, breakpoint, request);
+            }
+
+            @Override
+            public void writeDeclaration(@Nullable Breakpoint breakpoint, SlingHttpServletRequest request,
+                                         StyleSink sink) {
+                if (breakpoint == null) {
+                    sink.declaration("color: red").declaration("margin: 0");
+                }
+            }
+        };
+        assertEquals("color: red;margin: 0", worker.getDeclaration(null, null));
+        assertNull(worker.getDeclaration(mock(Breakpoint.class), null));
+    }
+
+    @Test
+    void capture() {
+        StyleSink sink = new StyleSink();
+        sink.startSection("my-block", "@media screen and (min-width: 600px)");
+        sink.capture();
+        sink.declaration("min-height: 200px");
+        assertEquals("min-height: 200px", sink.captured());
+        sink.dropCaptured();
+        assertEquals(0, sink.length(), "section opening should be dropped as well");
+        sink.declaration("color: red");
+        sink.capture();
+        assertNull(sink.captured());
+        sink.declaration("margin: 0");
+        assertEquals("margin: 0", sink.captured(), "delimiter should not be captured");
+        sink.dropCaptured();
+        assertEquals("\n@media screen and (min-width: 600px) {\n"
+            + "#my-block {color: red}\n"
+            + "}", sink.toString());
+    }
+}
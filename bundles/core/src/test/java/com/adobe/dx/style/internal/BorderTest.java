@@ -18,7 +18,16 @@ package com.adobe.dx.style.internal;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
+import com.adobe.dx.bindings.internal.DxBindingsValueProvider;
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.responsive.ResponsiveConfiguration;
+import com.adobe.dx.responsive.internal.ResponsiveProperties;
+import com.adobe.dx.responsive.internal.ResponsivePropertiesTest;
 import com.adobe.dx.style.StyleWorker;
+import com.adobe.dx.utils.RequestUtil;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.scripting.SlingBindings;
 
 import org.junit.jupiter.api.Test;
 
@@ -87,4 +96,25 @@ public class BorderTest extends AbstractStyleWorkerTest {
     StyleWorker getWorker() {
         return new Border();
     }
+
+    @Test
+    void getResponsiveRadius() {
+        ResponsiveConfiguration conf = ResponsivePropertiesTest.initResponsiveConfiguration(context);
+        context.build().resource(CONTENT_ROOT + "/border", "borderRadius", "all", "borderAllRadius", 3,
+            "borderAllRadiusMobile", 5,
+            "borderRadiusDesktop", "each",
+            "borderRadiusTopLeftDesktop", 8);
+        context.currentResource(CONTENT_ROOT + "/border");
+        ValueMap properties = context.currentResource().getValueMap();
+        SlingBindings bindings = RequestUtil.getBindings(context.request());
+        bindings.put(DxBindingsValueProvider.POLICY_KEY, properties);
+        bindings.put(DxBindingsValueProvider.BP_KEY, conf.breakpoints());
+        bindings.put(DxBindingsValueProvider.RESP_PROPS_KEY, new ResponsiveProperties(conf, properties));
+        Breakpoint[] breakpoints = conf.breakpoints();
+        Border border = new Border();
+        assertEquals("border-radius: 3px", border.getDeclaration(null, context.request()));
+        assertEquals("border-radius: 5px", border.getDeclaration(breakpoints[0], context.request()));
+        assertEquals("border-radius: 5px", border.getDeclaration(breakpoints[1], context.request()));
+        assertEquals("border-radius: 8px 0px 0px 0px", border.getDeclaration(breakpoints[2], context.request()));
+    }
 }
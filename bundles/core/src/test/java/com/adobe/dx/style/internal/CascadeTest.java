@@ -0,0 +1,61 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.adobe.dx.responsive.Breakpoint;
+
+import org.junit.jupiter.api.Test;
+
+class CascadeTest {
+
+    Breakpoint[] breakpoints(String... mediaQueries) {
+        Breakpoint[] breakpoints = new Breakpoint[mediaQueries.length];
+        for (int i = 0; i < mediaQueries.length; i++) {
+            breakpoints[i] = mock(Breakpoint.class);
+            when(breakpoints[i].mediaQuery()).thenReturn(mediaQueries[i]);
+        }
+        return breakpoints;
+    }
+
+    @Test
+    void isOpenEnded() {
+        assertTrue(Cascade.isOpenEnded(null));
+        assertTrue(Cascade.isOpenEnded(breakpoints(null, "@media screen and (min-width: 600px)",
+            "only screen and (min-width:1200px)", "(min-width: 1200px)")));
+        assertTrue(Cascade.isOpenEnded(breakpoints("all and (min-width: 37.5em)", "(min-width: 75em)")));
+        assertFalse(Cascade.isOpenEnded(breakpoints("screen and (max-width: 599px)")));
+        assertFalse(Cascade.isOpenEnded(breakpoints("screen and (min-width: 600px) and (orientation: landscape)")));
+        assertFalse(Cascade.isOpenEnded(breakpoints("print and (min-width: 600px)")));
+        assertFalse(Cascade.isOpenEnded(breakpoints("(hover: hover)")));
+        assertFalse(Cascade.isOpenEnded(breakpoints("(min-height: 600px)")));
+        assertFalse(Cascade.isOpenEnded(breakpoints("(width >= 600px)")));
+        assertFalse(Cascade.isOpenEnded(breakpoints("(min-width: 1200px)", "(min-width: 600px)")),
+            "breakpoints should be in ascending order");
+        assertFalse(Cascade.isOpenEnded(breakpoints("(min-width: 600px)", "(min-width: 75em)")),
+            "widths should have the same unit");
+    }
+
+    @Test
+    void disabled() {
+        assertFalse(new Cascade(1, null, false).isEnabled(), "deduplication should be opt in");
+        assertTrue(new Cascade(1, breakpoints("(min-width: 600px)"), true).isEnabled());
+        assertFalse(new Cascade(1, breakpoints("(max-width: 600px)"), true).isEnabled());
+    }
+}
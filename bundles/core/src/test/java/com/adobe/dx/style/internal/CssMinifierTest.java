@@ -0,0 +1,70 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class CssMinifierTest {
+
+    @Test
+    void whitespace() {
+        assertEquals("#a>.dx-flex-items>*:nth-child(2){width:50%;font-family:\"Adobe  Clean\",serif}",
+            CssMinifier.minify("  #a > .dx-flex-items >\n *:nth-child(2) {\n"
+                + "    width: 50%; /* half */\n"
+                + "    font-family: \"Adobe  Clean\" , serif;\n"
+                + "}\n"));
+    }
+
+    @Test
+    void merge() {
+        assertEquals("#a{margin:0;color:blue}#b{color:red}"
+                + "@media screen and (min-width:600px){#a{min-height:200px;opacity:1}}",
+            CssMinifier.minify("#a {color: blue}\n#c {}\n#a {margin: 0;color: blue}\n#b {color: red}\n"
+                + "@media screen and (min-width: 600px) {\n#a {min-height: 200px}\n}\n"
+                + "@media screen and (min-width: 1200px) {\n#b {}\n}\n"
+                + "@media  screen and (min-width:600px) {\n#a {opacity: 1}\n}"),
+            "adjacent rules with same selector should be merged, keeping last identical declaration, and media blocks separated by an empty one collapsed");
+        assertEquals("#a{color:blue}#b{color:red}#a{color:green}",
+            CssMinifier.minify("#a {color: blue}\n#b {color: red}\n#a {color: green}"),
+            "non adjacent rules should be kept in place, not to change the cascade");
+        assertEquals("@media (min-width:600px){#a{color:red}}#a{color:blue}@media (min-width:600px){#a{margin:0}}",
+            CssMinifier.minify("@media (min-width: 600px) {#a {color: red}} #a {color: blue}"
+                + "@media (min-width: 600px) {#a {margin: 0}}"), "non adjacent media blocks should be kept apart");
+    }
+
+    @Test
+    void untouched() {
+        String[] styles = new String[] {
+            "color: blue;font-size: 13px",
+            "@font-face {font-family: foo}",
+            "#a {color: blue",
+            "#a {color: blue} /* unclosed",
+            "@media (min-width: 600px) {#a {color: red}"
+        };
+        for (String style : styles) {
+            assertSame(style, CssMinifier.minify(style), style + " should not be minified");
+        }
+        assertNull(CssMinifier.minify(null));
+    }
+
+    @Test
+    void utf8Length() {
+        assertEquals(15, StyleBytes.utf8Length("content:\"é€\""));
+        assertEquals(4, StyleBytes.utf8Length("😀"));
+    }
+}
@@ -0,0 +1,70 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+
+class PageStyleCacheTest {
+
+    void put(PageStyleCache cache, String page, String... paths) {
+        cache.put(page, page.substring(page.lastIndexOf('/') + 1), new HashSet<>(Arrays.asList(paths)));
+    }
+
+    String get(PageStyleCache cache, String page) {
+        PageStyleCache.Entry entry = cache.get(page);
+        return entry != null ? entry.hash : null;
+    }
+
+    @Test
+    void evict() {
+        PageStyleCache cache = new PageStyleCache(2);
+        put(cache, "/content/a", "/content/a/jcr:content");
+        put(cache, "/content/b", "/content/b/jcr:content");
+        assertEquals("a", get(cache, "/content/a"));
+        put(cache, "/content/c", "/content/c/jcr:content");
+        assertEquals(2, cache.size());
+        assertNull(get(cache, "/content/b"), "least recently used page should have been evicted");
+        assertEquals("a", get(cache, "/content/a"));
+        assertEquals("c", get(cache, "/content/c"));
+        cache.invalidate("/content/b/jcr:content");
+        assertEquals(2, cache.size(), "evicted page should not be indexed anymore");
+    }
+
+    @Test
+    void invalidate() {
+        PageStyleCache cache = new PageStyleCache(10);
+        put(cache, "/content/page", "/content/page/jcr:content", "/content/xf/header/master/jcr:content");
+        put(cache, "/content/page/child", "/content/page/child/jcr:content");
+        put(cache, "/content/other", "/content/other/jcr:content", "/content/xf/footer/master");
+        cache.invalidate("/content/page/child/jcr:content/comp");
+        assertNull(get(cache, "/content/page/child"));
+        assertEquals("page", get(cache, "/content/page"), "child page change should not affect its parent");
+        cache.invalidate("/content/xf/header/master/jcr:content/root/comp");
+        assertNull(get(cache, "/content/page"), "change of an included fragment should invalidate the page");
+        assertEquals("other", get(cache, "/content/other"));
+        cache.invalidate("/content/xf/footer/master");
+        assertEquals(0, cache.size(), "creation of a missing fragment should invalidate the page");
+        cache.put("/content/page", "page", Collections.singleton("/content/page/jcr:content"));
+        cache.invalidate("/");
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,252 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.style.StyleWorker;
+import com.adobe.dx.testing.AbstractTest;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import javax.servlet.RequestDispatcher;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.request.RequestDispatcherOptions;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.wrappers.SlingHttpServletRequestWrapper;
+import org.apache.sling.testing.mock.sling.servlet.MockRequestDispatcherFactory;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PageStyleServletTest extends AbstractTest {
+
+    static final String PAGE = CONTENT_ROOT + "/page";
+
+    static final String COMPONENT = PAGE + "/jcr:content/comp";
+
+    StyleServiceImpl service;
+
+    PageStyleServlet servlet;
+
+    String includedPath;
+
+    @BeforeEach
+    void setup() {
+        context.create().page(PAGE);
+        context.build().resource("/apps/foo/bar", "styleWorkers", new String[] {"worker"});
+        context.build().resource(COMPONENT, "sling:resourceType", "foo/bar");
+        context.registerService(StyleWorker.class, new StyleWorker() {
+            @Override
+            public String getKey() {
+                return "worker";
+            }
+
+            @Override
+            public @Nullable String getDeclaration(@Nullable Breakpoint breakpoint, SlingHttpServletRequest request) {
+                return breakpoint == null ? "color: blue" : null;
+            }
+        });
+        service = context.registerInjectActivateService(new StyleServiceImpl(),
+            "aggregate", true, "externalStyleSheet", true);
+        servlet = context.registerInjectActivateService(new PageStyleServlet());
+        context.request().setRequestDispatcherFactory(new MockRequestDispatcherFactory() {
+            @Override
+            public RequestDispatcher getRequestDispatcher(String path, RequestDispatcherOptions options) {
+                includedPath = path;
+                return new RequestDispatcher() {
+                    @Override
+                    public void forward(ServletRequest request, ServletResponse response) {
+                        fail("page should be included");
+                    }
+
+                    @Override
+                    public void include(ServletRequest request, ServletResponse response) throws IOException {
+                        Resource component = context.resourceResolver().getResource(COMPONENT);
+                        SlingHttpServletRequest componentRequest =
+                            new SlingHttpServletRequestWrapper((SlingHttpServletRequest) request) {
+                                @Override
+                                public Resource getResource() {
+                                    return component;
+                                }
+                            };
+                        assertTrue(service.collectLocalStyle("my-comp", componentRequest));
+                        response.getWriter().write("<html>page markup</html>");
+                    }
+                };
+            }
+
+            @Override
+            public RequestDispatcher getRequestDispatcher(Resource resource, RequestDispatcherOptions options) {
+                return null;
+            }
+        });
+    }
+
+    String getStyleSheet() {
+        context.currentResource(COMPONENT);
+        return service.getPageStyleSheet(context.request());
+    }
+
+    void requestStyleSheet(String styleSheet) {
+        context.currentResource(PAGE);
+        context.requestPathInfo().setSelectorString(StringUtils.substringBetween(styleSheet, PAGE + ".", ".css"));
+        context.requestPathInfo().setExtension("css");
+    }
+
+    @Test
+    void getPageStyleSheet() {
+        context.currentResource(COMPONENT);
+        assertFalse(service.collectLocalStyle("my-comp", context.request()),
+            "component rendered alone should keep its style inline");
+        String styleSheet = getStyleSheet();
+        assertNotNull(styleSheet);
+        assertTrue(styleSheet.matches("\\Q" + PAGE + "\\E\\.dxstyle\\.[0-9a-f]{16}\\.css"), styleSheet);
+        assertEquals(styleSheet, getStyleSheet());
+        assertEquals(1, service.pageCache.size(), "hash should be computed once");
+        assertTrue(service.collectLocalStyle("my-comp", context.request()),
+            "style should be left to the stylesheet once its link is written");
+    }
+
+    @Test
+    void getInlinePageStyle() {
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "aggregate", true);
+        context.currentResource(COMPONENT);
+        assertNull(service.getPageStyleSheet(context.request()));
+        assertTrue(service.startPageStyle(context.request()));
+        assertTrue(service.collectLocalStyle("my-comp", context.request()));
+        assertEquals("#my-comp {color: blue}", service.getPageStyle(context.request()));
+        assertNull(includedPath, "page should not be rendered again for its style");
+    }
+
+    @Test
+    void contentHash() throws PersistenceException {
+        String styleSheet = getStyleSheet();
+        context.resourceResolver().getResource(COMPONENT).adaptTo(ModifiableValueMap.class).put("color", "red");
+        assertEquals(styleSheet, getStyleSheet(), "hash is kept until a change is notified");
+        service.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            COMPONENT, false)));
+        assertNotEquals(styleSheet, getStyleSheet(), "styled component content should be part of the hash");
+        styleSheet = getStyleSheet();
+        context.build().resource(PAGE + "/jcr:content/unstyled", "title", "blah");
+        service.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.ADDED,
+            PAGE + "/jcr:content/unstyled", false)));
+        assertEquals(styleSheet, getStyleSheet(), "unstyled components should not change the hash");
+    }
+
+    @Test
+    void fragmentHash() throws PersistenceException {
+        String fragment = CONTENT_ROOT + "/xf/header/master";
+        context.create().page(fragment);
+        context.build().resource(fragment + "/jcr:content/comp", "sling:resourceType", "foo/bar");
+        context.build().resource(PAGE + "/jcr:content/xf", "fragmentVariationPath", fragment);
+        String styleSheet = getStyleSheet();
+        context.resourceResolver().getResource(fragment + "/jcr:content/comp").adaptTo(ModifiableValueMap.class)
+            .put("color", "red");
+        service.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            fragment + "/jcr:content/comp", false)));
+        assertNotEquals(styleSheet, getStyleSheet(), "included fragment should be part of the hash");
+    }
+
+    @Test
+    void doGet() throws ServletException, IOException {
+        String styleSheet = getStyleSheet();
+        requestStyleSheet(styleSheet);
+        servlet.doGet(context.request(), context.response());
+        assertEquals(PAGE + "/jcr:content.html", includedPath);
+        assertEquals("text/css;charset=UTF-8", context.response().getContentType());
+        assertEquals("public, max-age=31536000, immutable", context.response().getHeader("Cache-Control"));
+        assertEquals("\"" + StringUtils.substringBetween(styleSheet, ".dxstyle.", ".css") + "\"",
+            context.response().getHeader("ETag"));
+        assertEquals("#my-comp {color: blue}", context.response().getOutputAsString(),
+            "only page style should be written");
+    }
+
+    @Test
+    void doGetNotModified() throws ServletException, IOException {
+        String styleSheet = getStyleSheet();
+        requestStyleSheet(styleSheet);
+        context.request().setHeader("If-None-Match", "\"foo\", W/\""
+            + StringUtils.substringBetween(styleSheet, ".dxstyle.", ".css") + "\"");
+        servlet.doGet(context.request(), context.response());
+        assertEquals(304, context.response().getStatus());
+        assertNull(includedPath, "page should not be rendered");
+    }
+
+    @Test
+    void doGetOutdated() throws ServletException, IOException {
+        requestStyleSheet(PAGE + ".dxstyle.0123456789abcdef.css");
+        servlet.doGet(context.request(), context.response());
+        assertEquals("no-cache", context.response().getHeader("Cache-Control"));
+        assertEquals("#my-comp {color: blue}", context.response().getOutputAsString());
+    }
+
+    @Test
+    void doGetFailure() throws ServletException, IOException {
+        String styleSheet = getStyleSheet();
+        requestStyleSheet(styleSheet);
+        context.request().setRequestDispatcherFactory(new MockRequestDispatcherFactory() {
+            @Override
+            public RequestDispatcher getRequestDispatcher(String path, RequestDispatcherOptions options) {
+                return new RequestDispatcher() {
+                    @Override
+                    public void forward(ServletRequest request, ServletResponse response) {
+                        fail("page should be included");
+                    }
+
+                    @Override
+                    public void include(ServletRequest request, ServletResponse response) throws ServletException {
+                        throw new ServletException("failing page");
+                    }
+                };
+            }
+
+            @Override
+            public RequestDispatcher getRequestDispatcher(Resource resource, RequestDispatcherOptions options) {
+                return null;
+            }
+        });
+        servlet.doGet(context.request(), context.response());
+        assertEquals(500, context.response().getStatus());
+        assertNull(context.response().getHeader("Cache-Control"), "failed style should not be cached");
+        assertNull(PageStyle.fromRequest(context.request()), "collection should be stopped");
+    }
+
+    @Test
+    void doGetNoContent() throws ServletException, IOException {
+        context.build().resource(CONTENT_ROOT + "/notapage");
+        context.currentResource(CONTENT_ROOT + "/notapage");
+        servlet.doGet(context.request(), context.response());
+        assertEquals(404, context.response().getStatus());
+    }
+
+    @Test
+    void matches() {
+        assertTrue(PageStyleServlet.matches("*", "\"abc\""));
+        assertFalse(PageStyleServlet.matches(null, "\"abc\""));
+        assertFalse(PageStyleServlet.matches("\"abcd\"", "\"abc\""));
+    }
+}
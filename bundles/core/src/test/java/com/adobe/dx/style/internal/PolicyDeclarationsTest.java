@@ -0,0 +1,125 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import static com.day.cq.wcm.scripting.WCMBindingsConstants.NAME_CURRENT_CONTENT_POLICY;
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.adobe.dx.bindings.internal.DxBindingsValueProvider;
+import com.adobe.dx.testing.AbstractTest;
+import com.day.cq.wcm.api.policies.ContentPolicy;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
+
+import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.scripting.SlingBindings;
+import org.apache.sling.api.wrappers.CompositeValueMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PolicyDeclarationsTest extends AbstractTest {
+
+    static final String COMPONENT = CONTENT_ROOT + "/comp";
+
+    AtomicInteger compilations = new AtomicInteger();
+
+    PolicyDeclarations declarations = new PolicyDeclarations(properties -> {
+        compilations.incrementAndGet();
+        return Shadow.compile(properties);
+    }, "shadowColor", "shadowOffsetX", "shadowOffsetY", "shadowBlur", "shadowSpread", "shadowInset");
+
+    ContentPolicy policy;
+
+    @BeforeEach
+    void setup() {
+        context.build().resource(COMPONENT, "sling:resourceType", "foo/shadow", "title", "some title");
+        context.contentPolicyMapping("foo/shadow", "shadowColor", "blue",
+            "jcr:lastModified", Calendar.getInstance());
+        context.currentResource(COMPONENT);
+        policy = context.resourceResolver().adaptTo(ContentPolicyManager.class).getPolicy(context.currentResource());
+        bind();
+    }
+
+    void bind() {
+        Resource resource = context.currentResource();
+        SlingBindings bindings = (SlingBindings) context.request().getAttribute(SlingBindings.class.getName());
+        bindings.put(NAME_CURRENT_CONTENT_POLICY, policy);
+        bindings.put(DxBindingsValueProvider.POLICY_KEY,
+            new CompositeValueMap(resource.getValueMap(), policy.getProperties()));
+    }
+
+    @Test
+    void compiledOnce() {
+        assertEquals("box-shadow: 0px 0px 0px 0px blue", declarations.get(context.request()));
+        assertEquals("box-shadow: 0px 0px 0px 0px blue", declarations.get(context.request()));
+        assertEquals(1, compilations.get(), "declarations should be compiled once per policy revision");
+        assertEquals(1, declarations.size());
+    }
+
+    @Test
+    void newRevision() {
+        declarations.get(context.request());
+        Calendar later = Calendar.getInstance();
+        later.add(Calendar.MINUTE, 1);
+        ModifiableValueMap properties = context.resourceResolver().getResource(policy.getPath())
+            .adaptTo(ModifiableValueMap.class);
+        properties.put("shadowColor", "red");
+        properties.put("jcr:lastModified", later);
+        policy = context.resourceResolver().adaptTo(ContentPolicyManager.class).getPolicy(context.currentResource());
+        bind();
+        assertEquals("box-shadow: 0px 0px 0px 0px red", declarations.get(context.request()));
+        assertEquals(2, compilations.get());
+    }
+
+    @Test
+    void noRevision() {
+        ModifiableValueMap properties = context.resourceResolver().getResource(policy.getPath())
+            .adaptTo(ModifiableValueMap.class);
+        properties.remove("jcr:lastModified");
+        policy = context.resourceResolver().adaptTo(ContentPolicyManager.class).getPolicy(context.currentResource());
+        bind();
+        assertEquals("box-shadow: 0px 0px 0px 0px blue", declarations.get(context.request()));
+        assertEquals("box-shadow: 0px 0px 0px 0px blue", declarations.get(context.request()));
+        assertEquals(1, compilations.get(), "policy without revision should be compiled once per path");
+        properties.put("shadowColor", "red");
+        assertEquals("box-shadow: 0px 0px 0px 0px red", declarations.get(context.request()));
+        assertEquals(2, compilations.get(), "policy change should be compiled again");
+    }
+
+    @Test
+    void resourceOverride() {
+        context.resourceResolver().getResource(COMPONENT).adaptTo(ModifiableValueMap.class).put("shadowBlur", 3L);
+        bind();
+        assertEquals("box-shadow: 0px 0px 3px 0px blue", declarations.get(context.request()));
+        declarations.get(context.request());
+        assertEquals(2, compilations.get(), "components overriding policy should be compiled each time");
+        assertEquals(0, declarations.size());
+    }
+
+    @Test
+    void noPolicy() {
+        ValueMap properties = context.currentResource().getValueMap();
+        SlingBindings bindings = (SlingBindings) context.request().getAttribute(SlingBindings.class.getName());
+        bindings.put(DxBindingsValueProvider.POLICY_KEY, properties);
+        bindings.remove(NAME_CURRENT_CONTENT_POLICY);
+        assertNull(declarations.get(context.request()));
+        assertEquals(0, declarations.size());
+    }
+}
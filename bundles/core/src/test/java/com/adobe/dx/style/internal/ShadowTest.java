@@ -16,8 +16,18 @@
 package com.adobe.dx.style.internal;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
+import com.adobe.dx.bindings.internal.DxBindingsValueProvider;
+import com.adobe.dx.responsive.Breakpoint;
+import com.adobe.dx.responsive.ResponsiveConfiguration;
+import com.adobe.dx.responsive.internal.ResponsiveProperties;
+import com.adobe.dx.responsive.internal.ResponsivePropertiesTest;
 import com.adobe.dx.style.StyleWorker;
+import com.adobe.dx.utils.RequestUtil;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.scripting.SlingBindings;
 
 import org.junit.jupiter.api.Test;
 
@@ -49,4 +59,25 @@ class ShadowTest extends AbstractStyleWorkerTest {
             "shadowInset", true);
         assertEquals("box-shadow: 0px 0px 0px 0px red inset", getDeclaration());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getResponsiveShadow() {
+        ResponsiveConfiguration conf = ResponsivePropertiesTest.initResponsiveConfiguration(context);
+        context.build().resource(CONTENT_ROOT + "/shadow", "shadowColor", "blue",
+            "shadowBlurTablet", "3",
+            "shadowColorDesktop", " ");
+        context.currentResource(CONTENT_ROOT + "/shadow");
+        ValueMap properties = context.currentResource().getValueMap();
+        SlingBindings bindings = RequestUtil.getBindings(context.request());
+        bindings.put(DxBindingsValueProvider.POLICY_KEY, properties);
+        bindings.put(DxBindingsValueProvider.BP_KEY, conf.breakpoints());
+        bindings.put(DxBindingsValueProvider.RESP_PROPS_KEY, new ResponsiveProperties(conf, properties));
+        Breakpoint[] breakpoints = conf.breakpoints();
+        Shadow shadow = new Shadow();
+        assertEquals("box-shadow: 0px 0px 0px 0px blue", shadow.getDeclaration(null, context.request()));
+        assertNull(shadow.getDeclaration(breakpoints[0], context.request()), "nothing is set for mobile");
+        assertEquals("box-shadow: 0px 0px 3px 0px blue", shadow.getDeclaration(breakpoints[1], context.request()));
+        assertEquals("box-shadow: 0px 0px 3px 0px blue", shadow.getDeclaration(breakpoints[2], context.request()),
+            "tablet value should cascade to desktop, blank values being ignored");
+    }
+}
@@ -0,0 +1,90 @@
+/*~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~
+ ~ Copyright 2020 Adobe
+ ~
+ ~ Licensed under the Apache License, Version 2.0 (the "License");
+ ~ you may not use this file except in compliance with the License.
+ ~ You may obtain a copy of the License at
+ ~
+ ~     http://www.apache.org/licenses/LICENSE-2.0
+ ~
+ ~ Unless required by applicable law or agreed to in writing, software
+ ~ distributed under the License is distributed on an "AS IS" BASIS,
+ ~ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ ~ See the License for the specific language governing permissions and
+ ~ limitations under the License.
+ ~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~~*/
+package com.adobe.dx.style.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class StyleCacheTest {
+
+    StyleCache.Key key(String path, String policy) {
+        return new StyleCache.Key(null, path, policy, 1, 0L, 0L);
+    }
+
+    void put(StyleCache cache, String path, String policy, String style) {
+        cache.put(key(path, policy), style, style.length(), style.length());
+    }
+
+    String get(StyleCache cache, String path, String policy) {
+        StyleCache.Entry entry = cache.get(key(path, policy));
+        return entry != null ? entry.style : null;
+    }
+
+    @Test
+    void evict() {
+        StyleCache cache = new StyleCache(2);
+        put(cache, "/content/a", null, "a");
+        put(cache, "/content/b", null, "b");
+        assertEquals("a", get(cache, "/content/a", null));
+        put(cache, "/content/c", null, "c");
+        assertEquals(2, cache.size());
+        assertNull(get(cache, "/content/b", null), "least recently used entry should have been evicted");
+        assertEquals("a", get(cache, "/content/a", null));
+        assertEquals("c", get(cache, "/content/c", null));
+    }
+
+    @Test
+    void replace() {
+        StyleCache cache = new StyleCache(2);
+        for (int i = 0; i < 10; i++) {
+            put(cache, "/content/a", null, "a" + i);
+        }
+        put(cache, "/content/b", null, "b");
+        assertEquals("a9", get(cache, "/content/a", null));
+        assertEquals("b", get(cache, "/content/b", null));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void invalidate() {
+        StyleCache cache = new StyleCache(10);
+        put(cache, "/content/page/jcr:content/flex", "/conf/foo/policies/flex", "flex");
+        put(cache, "/content/page/jcr:content/flex2", "/conf/foo/policies/flex2", "flex2");
+        put(cache, "/content/other/jcr:content/flex", null, "other");
+        put(cache, "/content/other-page/jcr:content/flex", null, "other page");
+        cache.invalidate("/content/page/jcr:content/flex/definitionsMobile");
+        assertNull(get(cache, "/content/page/jcr:content/flex", "/conf/foo/policies/flex"),
+            "change of a child should invalidate parent style");
+        assertEquals("flex2", get(cache, "/content/page/jcr:content/flex2", "/conf/foo/policies/flex2"));
+        cache.invalidate("/conf/foo/policies/flex2");
+        assertNull(get(cache, "/content/page/jcr:content/flex2", "/conf/foo/policies/flex2"),
+            "change of a policy should invalidate style");
+        assertEquals("other", get(cache, "/content/other/jcr:content/flex", null));
+        cache.invalidate("/content/other");
+        assertEquals(1, cache.size(), "removal of a page should invalidate its styles, and only those");
+        cache.invalidate("/");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void isRelated() {
+        assertTrue(StyleCache.isRelated("/content/foo", "/content/foo/bar"));
+        assertTrue(StyleCache.isRelated("/content/foo/bar", "/content/foo"));
+        assertFalse(StyleCache.isRelated("/content/foo", "/content/foobar"));
+        assertFalse(StyleCache.isRelated("/content/foo", null));
+    }
+}
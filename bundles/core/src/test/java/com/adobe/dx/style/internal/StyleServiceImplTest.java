@@ -18,6 +18,9 @@ package com.adobe.dx.style.internal;
 import static org.junit.jupiter.api.Assertions.*;
 
 import com.adobe.dx.bindings.internal.DxBindingsValueProvider;
+import com.adobe.dx.metrics.DxMetrics;
+import com.adobe.dx.metrics.RenderTrace;
+import com.adobe.dx.metrics.internal.DxMetricsImpl;
 import com.adobe.dx.responsive.Breakpoint;
 import com.adobe.dx.responsive.ResponsiveConfiguration;
 import com.adobe.dx.responsive.internal.ResponsiveProperties;
@@ -26,13 +29,21 @@ import com.adobe.dx.style.StyleWorker;
 import com.adobe.dx.testing.AbstractTest;
 import com.adobe.dx.utils.RequestUtil;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.apache.sling.api.scripting.SlingBindings;
 import org.jetbrains.annotations.Nullable;
 import org.junit.jupiter.api.BeforeEach;
+import org.osgi.framework.ServiceReference;
 import org.junit.jupiter.api.Test;
 
 class StyleServiceImplTest extends AbstractTest {
@@ -134,18 +145,365 @@ class StyleServiceImplTest extends AbstractTest {
     }
 
     @Test
-    void getWorkerKeysFullPath() {
+    void resolveWorkerKeysFullPath() {
         final String[] array = new String[] {"workers1", "workers2"};
         context.build().resource("/apps/foo/bar", "styleWorkers", array);
         context.build().resource(CONTENT_ROOT, "sling:resourceType", "foo/bar");
-        assertArrayEquals(array, new StyleServiceImpl().getWorkerKeys(context.currentResource(CONTENT_ROOT)));
+        assertArrayEquals(array, new StyleServiceImpl().resolveWorkerKeys(context.currentResource(CONTENT_ROOT)));
     }
 
 
     @Test
-    void getWorkerKeysNothing() {
+    void resolveWorkerKeysNothing() {
         context.build().resource("/apps/check/this", "blah", "blah");
         context.build().resource(CONTENT_ROOT, "sling:resourceType", "check/this");
-        assertEquals(0, new StyleServiceImpl().getWorkerKeys(context.currentResource(CONTENT_ROOT)).length);
+        assertEquals(0, new StyleServiceImpl().resolveWorkerKeys(context.currentResource(CONTENT_ROOT)).length);
     }
-}
\ No newline at end of file
+
+    @Test
+    void getCachedLocalStyle() {
+        DxMetrics metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "cacheSize", 10);
+        service.bindWorker(worker1);
+        String style = service.getLocalStyle(null, context.request());
+        assertTrue(style.startsWith("color: blue"));
+        context.currentResource().adaptTo(ModifiableValueMap.class).put("color", "red");
+        assertSame(style, service.getLocalStyle(null, context.request()), "style should come from cache");
+        assertEquals(1L, metrics.getCounters().get("style.cache:hit"));
+        assertEquals(1L, metrics.getCounters().get("style.cache:miss"));
+        assertEquals(2 * StyleBytes.utf8Length(style), StyleBytes.fromRequest(context.request()).getWritten(),
+            "cached style should still be counted");
+        assertNotEquals(style, service.getLocalStyle("some-id", context.request()), "id should be part of the key");
+        service.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            context.currentResource().getPath(), false, null, Collections.singleton("cq:lastReplicated"), null)));
+        assertSame(style, service.getLocalStyle(null, context.request()),
+            "replication status change should not invalidate the cache");
+        service.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            context.currentResource().getPath(), false)));
+        assertTrue(service.getLocalStyle(null, context.request()).startsWith("color: red"),
+            "cache should have been invalidated");
+    }
+
+    String[] getListenedPaths() {
+        ServiceReference<ResourceChangeListener> reference =
+            context.bundleContext().getServiceReference(ResourceChangeListener.class);
+        return reference != null ? (String[]) reference.getProperty(ResourceChangeListener.PATHS) : null;
+    }
+
+    @Test
+    void listenedPaths() {
+        service = context.registerInjectActivateService(new StyleServiceImpl());
+        assertArrayEquals(new String[] {"/apps", "/libs"}, getListenedPaths(),
+            "content should not be listened to without cache");
+        assertTrue(context.getService(ResourceChangeListener.class) instanceof ExternalResourceChangeListener,
+            "changes of other cluster instances should invalidate caches too");
+        service.deactivate();
+        assertNull(getListenedPaths());
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "cacheSize", 10);
+        assertArrayEquals(new String[] {"/apps", "/libs", "/content", "/conf"}, getListenedPaths());
+        service.deactivate();
+    }
+
+    @Test
+    void resolveWorkerKeysInherited() {
+        final String[] array = new String[] {"workers1", "workers2"};
+        context.build().resource("/libs/foo/parent", "styleWorkers", array);
+        context.build().resource("/apps/foo/child", "sling:resourceSuperType", "foo/parent");
+        context.build().resource(CONTENT_ROOT, "sling:resourceType", "foo/child");
+        assertArrayEquals(array, new StyleServiceImpl().resolveWorkerKeys(context.currentResource(CONTENT_ROOT)),
+            "worker keys should be inherited from super type");
+    }
+
+    @Test
+    void getUnreadableWorkerChain() {
+        service.bindWorker(worker1);
+        context.build().resource(CONTENT_ROOT + "/unreadable", "sling:resourceType", "foo/unreadable")
+            .resource(CONTENT_ROOT + "/untyped", "jcr:primaryType", "nt:unstructured");
+        assertEquals(0, service.getWorkers(context.currentResource(CONTENT_ROOT + "/unreadable")).length);
+        assertFalse(service.workerChains.containsKey("foo/unreadable"),
+            "chain of a component that can't be read should not be cached");
+        context.build().resource("/apps/foo/unreadable", "styleWorkers", new String[] {worker1.getKey()});
+        assertArrayEquals(new StyleWorker[] {worker1},
+            service.getWorkers(context.currentResource(CONTENT_ROOT + "/unreadable")));
+        service.getWorkers(context.currentResource(CONTENT_ROOT + "/untyped"));
+        assertTrue(service.workerChains.containsKey("nt:unstructured"), "node types should be cached as empty");
+    }
+
+    @Test
+    void getWorkerChain() {
+        service.bindWorker(worker1);
+        service.bindWorker(worker2);
+        StyleWorker[] chain = service.getWorkers(context.currentResource());
+        assertArrayEquals(new StyleWorker[] {worker1, worker2}, chain);
+        assertSame(chain, service.getWorkers(context.currentResource()), "chain should be cached per type");
+        service.onChange(Collections.singletonList(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            "/apps/foo/bar", false)));
+        assertNotSame(chain, service.getWorkers(context.currentResource()), "chain should be resolved again");
+        service.unbindWorker(worker1);
+        assertArrayEquals(new StyleWorker[] {worker2}, service.getWorkers(context.currentResource()));
+    }
+
+    @Test
+    void collectLocalStyle() {
+        assertFalse(service.collectLocalStyle("block-a", context.request()), "aggregation should be off by default");
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "aggregate", true);
+        service.bindWorker(worker1);
+        service.bindWorker(worker2);
+        assertFalse(service.collectLocalStyle(null, context.request()), "style can't be collected without id");
+        assertFalse(service.collectLocalStyle("block-a", context.request()),
+            "component rendered without page style should keep its style inline");
+        assertTrue(service.startPageStyle(context.request()));
+        assertFalse(service.startPageStyle(context.request()), "page style should be collected once");
+        assertTrue(service.collectLocalStyle("block-a", context.request()));
+        assertTrue(service.collectLocalStyle("block-b", context.request()));
+        assertTrue(service.collectLocalStyle("block-a", context.request()));
+        assertEquals("#block-a {color: blue;font-size: 13px}\n"
+            + "#block-b {color: blue;font-size: 13px}\n"
+            + "@media screen and (min-width: 600px) {\n"
+            + "#block-a {min-height: 200px}\n"
+            + "#block-b {min-height: 200px}\n"
+            + "}\n"
+            + "@media screen and (min-width: 1200px) {\n"
+            + "#block-a {min-width: 90%}\n"
+            + "#block-b {min-width: 90%}\n"
+            + "}", service.getPageStyle(context.request()));
+        assertNull(service.getPageStyle(context.request()), "page style should be written once");
+        assertFalse(service.collectLocalStyle("block-c", context.request()),
+            "component rendered after page style should keep its style inline");
+        assertNull(service.getPageStyleSheet(context.request()), "style should be inline");
+    }
+
+    StyleWorker threadSafe(StyleWorker worker) {
+        return new StyleWorker() {
+            @Override
+            public String getKey() {
+                return worker.getKey();
+            }
+
+            @Override
+            public @Nullable String getDeclaration(@Nullable Breakpoint breakpoint, SlingHttpServletRequest request) {
+                return worker.getDeclaration(breakpoint, request);
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        };
+    }
+
+    @Test
+    void getParallelLocalStyle() {
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "parallelThreads", 2);
+        service.metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        service.bindWorker(threadSafe(worker1));
+        service.bindWorker(new StyleWorker() {
+            @Override
+            public String getKey() {
+                return worker2.getKey();
+            }
+
+            @Override
+            public @Nullable String getDeclaration(@Nullable Breakpoint breakpoint, SlingHttpServletRequest request) {
+                assertTrue(breakpoint == null || request instanceof SnapshotRequest,
+                    "breakpoints should be rendered out of a request snapshot");
+                return worker2.getDeclaration(breakpoint, request);
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        });
+        assertEquals("#this-is-my-block {color: blue;font-size: 13px}\n"
+            + "@media screen and (min-width: 600px) {\n"
+            + "#this-is-my-block {min-height: 200px}\n"
+            + "}\n"
+            + "@media screen and (min-width: 1200px) {\n"
+            + "#this-is-my-block {min-width: 90%}\n"
+            + "}", service.getLocalStyle("this-is-my-block", context.request()));
+        assertEquals(1, service.metrics.getStatistics().get("style.generation:parallel").getCount());
+        assertNull(service.metrics.getStatistics().get("style.generation:sequential"));
+        service.unbindWorker(service.workers.get(1));
+        service.bindWorker(worker2);
+        service.getLocalStyle("this-is-my-block", context.request());
+        assertEquals(1, service.metrics.getStatistics().get("style.generation:sequential").getCount(),
+            "a non thread safe worker should keep generation sequential");
+        service.deactivate();
+        assertNull(service.executor);
+    }
+
+    static final String EXPECTED_BLOCK = "#this-is-my-block {color: blue;font-size: 13px}\n"
+        + "@media screen and (min-width: 600px) {\n"
+        + "#this-is-my-block {min-height: 200px}\n"
+        + "}\n"
+        + "@media screen and (min-width: 1200px) {\n"
+        + "#this-is-my-block {min-width: 90%}\n"
+        + "}";
+
+    @Test
+    void reconfigureWhileRenderingInParallel() {
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "parallelThreads", 1);
+        service.metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        StyleServiceImpl reconfigured = service;
+        StyleExecutor initial = service.executor;
+        service.bindWorker(threadSafe(worker1));
+        service.bindWorker(new StyleWorker() {
+            @Override
+            public String getKey() {
+                return worker2.getKey();
+            }
+
+            @Override
+            public @Nullable String getDeclaration(@Nullable Breakpoint breakpoint, SlingHttpServletRequest request) {
+                return worker2.getDeclaration(breakpoint, request);
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                //called once the render holds the executor, that is shut down by the new configuration
+                if (reconfigured.executor == initial) {
+                    context.registerInjectActivateService(reconfigured, "parallelThreads", 1);
+                }
+                return true;
+            }
+        });
+        assertEquals(EXPECTED_BLOCK, service.getLocalStyle("this-is-my-block", context.request()));
+        assertNotSame(initial, service.executor);
+        assertEquals(1, service.metrics.getStatistics().get("style.generation:parallel").getCount(),
+            "sections submitted to a shut down executor should be rendered inline");
+        service.deactivate();
+    }
+
+    @Test
+    void parallelTimeout() {
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "parallelThreads", 1,
+            "parallelTimeout", 10L);
+        service.metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        service.bindWorker(threadSafe(worker1));
+        service.bindWorker(new StyleWorker() {
+            @Override
+            public String getKey() {
+                return worker2.getKey();
+            }
+
+            @Override
+            public @Nullable String getDeclaration(@Nullable Breakpoint breakpoint, SlingHttpServletRequest request) {
+                if (Thread.currentThread().getName().startsWith("dx-style-")) {
+                    try {
+                        Thread.sleep(200L);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return worker2.getDeclaration(breakpoint, request);
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return true;
+            }
+        });
+        assertEquals(EXPECTED_BLOCK, service.getLocalStyle("this-is-my-block", context.request()));
+        assertEquals(1, service.metrics.getStatistics().get("style.generation:sequential").getCount(),
+            "style should be generated sequentially once parallel rendering timed out");
+        assertNull(service.metrics.getStatistics().get("style.generation:parallel"));
+        service.deactivate();
+    }
+
+    StyleWorker constant = new StyleWorker() {
+        @Override
+        public String getKey() {
+            //takes worker2's place in the chain
+            return "worker2";
+        }
+
+        @Override
+        public @Nullable String getDeclaration(Breakpoint breakpoint, SlingHttpServletRequest request) {
+            return breakpoint != null ? "opacity: 1" : null;
+        }
+
+        @Override
+        public boolean isThreadSafe() {
+            return true;
+        }
+    };
+
+    @Test
+    void deduplicate() {
+        service.bindWorker(threadSafe(worker1));
+        service.bindWorker(constant);
+        assertEquals("#b {color: blue}#b {opacity: 1}\n"
+            + "@media screen and (min-width: 600px) {\n"
+            + "#b {min-height: 200px;opacity: 1}\n"
+            + "}\n"
+            + "@media screen and (min-width: 1200px) {\n"
+            + "#b {opacity: 1}\n"
+            + "}", service.getLocalStyle("b", context.request()), "deduplication should be off by default");
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "deduplicate", true);
+        service.bindWorker(threadSafe(worker1));
+        service.bindWorker(constant);
+        String expected = "#b {color: blue}#b {opacity: 1}\n"
+            + "@media screen and (min-width: 600px) {\n"
+            + "#b {min-height: 200px}\n"
+            + "}";
+        assertEquals(expected, service.getLocalStyle("b", context.request()));
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "deduplicate", true,
+            "parallelThreads", 2);
+        service.metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        service.bindWorker(threadSafe(worker1));
+        service.bindWorker(constant);
+        assertEquals(expected, service.getLocalStyle("b", context.request()));
+        assertEquals(1, service.metrics.getStatistics().get("style.generation:parallel").getCount());
+        service.deactivate();
+    }
+
+    @Test
+    void minify() {
+        service = context.registerInjectActivateService(new StyleServiceImpl(), "minify", true);
+        service.metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        service.bindWorker(worker1);
+        service.bindWorker(worker2);
+        assertEquals("#b{color:blue;font-size:13px}"
+            + "@media screen and (min-width:600px){#b{min-height:200px}}"
+            + "@media screen and (min-width:1200px){#b{min-width:90%}}",
+            service.getLocalStyle("b", context.request()));
+        StyleBytes bytes = StyleBytes.fromRequest(context.request());
+        assertEquals(158, bytes.getRaw());
+        assertEquals(141, bytes.getWritten());
+        assertEquals(bytes.getRaw(), service.metrics.getCounters().get("style.bytes:raw"));
+        assertEquals(bytes.getWritten(), service.metrics.getCounters().get("style.bytes:written"));
+    }
+
+    @Test
+    void metrics() {
+        service.metrics = context.registerInjectActivateService(new DxMetricsImpl());
+        service.bindWorker(worker1);
+        service.getLocalStyle("b", context.request());
+        service.getLocalStyle("b", context.request());
+        assertEquals(2, service.metrics.getStatistics().get("style.getLocalStyle:foo/bar").getCount());
+    }
+
+    @Test
+    void trace() {
+        RenderTrace trace = new RenderTrace("1", null);
+        context.request().setAttribute(RenderTrace.ATTRIBUTE, trace);
+        service.bindWorker(worker1);
+        service.getLocalStyle("b", context.request());
+        assertTrue(trace.getComponents().get(context.currentResource().getPath()).containsKey(RenderTrace.STYLE));
+    }
+
+    @Test
+    void isRelevant() {
+        assertFalse(StyleServiceImpl.isRelevant(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            "/apps/foo/bar/bar.html", false)), "scripts should not be relevant");
+        assertFalse(StyleServiceImpl.isRelevant(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            "/apps/foo/bar", false, null, Collections.singleton("jcr:title"), null)));
+        assertTrue(StyleServiceImpl.isRelevant(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            "/apps/foo/bar", false, null, Collections.singleton("styleWorkers"), null)));
+        assertTrue(StyleServiceImpl.isRelevant(new ResourceChange(ResourceChange.ChangeType.REMOVED,
+            "/libs/foo/bar", false)));
+        assertTrue(StyleServiceImpl.isRelevant(new ResourceChange(ResourceChange.ChangeType.CHANGED,
+            CONTENT_ROOT, false, null, new HashSet<>(Arrays.asList("dx_id", "color")), null)));
+    }
+}